@@ -0,0 +1,815 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.proofchecker;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.proof.LratWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Backward DRAT checker in the manner of drat-trim.
+ * <p/>
+ * A forward pass adds the lemmas of the proof and propagates them on level 0 until a conflict occurs.  The backward
+ * pass then walks the proof in reverse, removing each lemma again, and checks only the lemmas which took part in the
+ * conflict or in the checks of later lemmas (the core).  Propagation prefers core clauses, which keeps the core and
+ * so the work small.  A lemma is checked for RUP first and for RAT on its first literal if that fails.  Deleting a
+ * clause which is the reason of a level 0 assignment is ignored, as in drat-trim.
+ * <p/>
+ * Clauses are kept in one int array: a header of {@link #HEADER} words followed by the literals.  After a successful
+ * check the core can be written as a trimmed LRAT proof, see {@link #writeLrat(LratWriter)}.
+ */
+public class DratChecker {
+  // header words: number of literals, flags, first literal of the clause as given (the RAT pivot), link in the hash
+  // chain while reading and position of the hints afterwards, LRAT id
+  private final static int SIZE = 0;
+  private final static int FLAGS = 1;
+  private final static int PIVOT = 2;
+  private final static int LINK = 3;
+  private final static int ID = 4;
+  private final static int HEADER = 5;
+
+  private final static int ACTIVE = 1;
+  private final static int CORE = 2;
+
+  private final static int NONE = -1;
+  private final static int IGNORED = Integer.MIN_VALUE;
+  private final static byte TRUE = 1;
+  private final static byte FALSE = -1;
+
+  // propagation modes
+  private final static int ALL = 0;
+  private final static int CORE_ONLY = 1;
+  private final static int NON_CORE_ONLY = 2;
+
+  private final Path formula;
+  private final Path proof;
+  private final boolean recordHints;
+
+  private int[] db = new int[1 << 16];
+  private int dbSize = 0;
+  private int originalsEnd;
+  private int nVars = 0;
+
+  // additions (refs) and deletions (~ref) of the proof, and the trail size before each addition
+  private int[] steps = new int[1 << 10];
+  private int[] trailBefore;
+  private int nSteps = 0;
+
+  private int[] buckets = new int[1 << 10];
+  private int nHashed = 0;
+  private int[] litStamps = new int[0];
+  private int litStamp = 0;
+
+  private byte[] values;
+  private int[] reasons;
+  private int[] positions;
+  private int[][] watches;
+  private int[] watchSizes;
+  private int[] seen;
+  private int seenStamp = 0;
+  private final IntVec trail = new IntVec();
+  private int head = 0;
+  private int coreHead = 0;
+
+  private int conflictRef = NONE;
+  private int conflictStep = NONE;
+  private final IntVec hints = new IntVec();
+  private final IntVec hintStore = new IntVec();
+  private int finalHints = NONE;
+
+  private long checked = 0;
+  private long ratLemmas = 0;
+  private long ignoredDeletions = 0;
+  private long missingDeletions = 0;
+  private String failure = null;
+
+  public DratChecker(Path formula, Path proof) {
+    this(formula, proof, false);
+  }
+
+  /**
+   * @param formula     the DIMACS file
+   * @param proof       the DRAT proof, text or binary
+   * @param recordHints true if the check should record the hints needed by {@link #writeLrat(LratWriter)}
+   */
+  public DratChecker(Path formula, Path proof, boolean recordHints) {
+    this.formula = formula;
+    this.proof = proof;
+    this.recordHints = recordHints;
+    Arrays.fill(buckets, NONE);
+  }
+
+  /**
+   * Checks the proof.
+   *
+   * @return true if the proof refutes the formula
+   * @throws IOException              if a file cannot be read
+   * @throws IllegalArgumentException if a file is malformed
+   */
+  public boolean check() throws IOException {
+    read();
+    if (!forward()) {
+      failure = "the proof does not lead to a conflict";
+      return false;
+    }
+    return backward();
+  }
+
+  /**
+   * @return the reason of a failed check, or null
+   */
+  public String failure() {
+    return failure;
+  }
+
+  /**
+   * @return the number of lemmas checked, i.e. the size of the core
+   */
+  public long checkedLemmas() {
+    return checked;
+  }
+
+  public long ratLemmas() {
+    return ratLemmas;
+  }
+
+  /**
+   * @return the number of deletions ignored because they delete reasons of level 0 assignments
+   */
+  public long ignoredDeletions() {
+    return ignoredDeletions;
+  }
+
+  /**
+   * @return the number of deletions of clauses which were not in the formula
+   */
+  public long missingDeletions() {
+    return missingDeletions;
+  }
+
+  /* Reading */
+
+  private void read() throws IOException {
+    IntVec lits = new IntVec();
+    try (MappedInput in = new MappedInput(formula)) {
+      nVars = in.skipHeader();
+      while (in.skipBlanks() != -1) {
+        in.readClause(false, lits);
+        newClause(lits);
+      }
+    }
+    originalsEnd = dbSize;
+    try (MappedInput in = new MappedInput(proof)) {
+      boolean binary = in.isBinary();
+      while (true) {
+        boolean delete;
+        if (binary) {
+          int b = in.read();
+          if (b == -1) {
+            break;
+          }
+          if (b != 'a' && b != 'd') {
+            throw in.error("'a' or 'd' expected");
+          }
+          delete = b == 'd';
+        } else {
+          int b = in.skipBlanks();
+          if (b == -1) {
+            break;
+          }
+          delete = b == 'd';
+          if (delete) {
+            in.read();
+          }
+        }
+        in.readClause(binary, lits);
+        if (delete) {
+          int ref = unhash(lits);
+          if (ref == NONE) {
+            missingDeletions++;
+          } else {
+            addStep(~ref);
+          }
+        } else {
+          addStep(newClause(lits));
+        }
+      }
+    }
+    trailBefore = new int[nSteps];
+  }
+
+  private void addStep(int step) {
+    if (nSteps == steps.length) {
+      steps = Arrays.copyOf(steps, 2 * nSteps);
+    }
+    steps[nSteps++] = step;
+  }
+
+  /**
+   * Removes duplicate literals and stamps the remaining ones with {@link #litStamp}.
+   */
+  private void normalize(IntVec lits) {
+    litStamp++;
+    int j = 0;
+    for (int i = 0; i < lits.size(); i++) {
+      int lit = lits.get(i);
+      if (lit >= litStamps.length) {
+        litStamps = Arrays.copyOf(litStamps, Math.max(2 * litStamps.length, lit + 2));
+      }
+      if (litStamps[lit] != litStamp) {
+        litStamps[lit] = litStamp;
+        lits.set(j++, lit);
+      }
+      nVars = Math.max(nVars, (lit >> 1) + 1);
+    }
+    lits.shrinkTo(j);
+  }
+
+  private int newClause(IntVec lits) {
+    normalize(lits);
+    int n = lits.size();
+    if (dbSize + HEADER + n > db.length) {
+      long capacity = Math.max(db.length + (db.length >> 1), (long) dbSize + HEADER + n);
+      if (capacity > Integer.MAX_VALUE - 8) {
+        throw new OutOfMemoryError("DRAT checker clause store exhausted");
+      }
+      db = Arrays.copyOf(db, (int) capacity);
+    }
+    int ref = dbSize;
+    db[ref + SIZE] = n;
+    db[ref + FLAGS] = 0;
+    db[ref + PIVOT] = n > 0 ? lits.get(0) : NONE;
+    db[ref + ID] = 0;
+    for (int i = 0; i < n; i++)
+      db[ref + HEADER + i] = lits.get(i);
+    dbSize += HEADER + n;
+    if (2 * ++nHashed > buckets.length) {
+      rehash();
+    }
+    int b = hash(ref) & (buckets.length - 1);
+    db[ref + LINK] = buckets[b];
+    buckets[b] = ref;
+    return ref;
+  }
+
+  private int hash(int ref) {
+    int sum = 0;
+    int prod = 1;
+    int xor = 0;
+    for (int i = ref + HEADER; i < ref + HEADER + db[ref + SIZE]; i++) {
+      sum += db[i];
+      prod *= db[i] + 1;
+      xor ^= db[i];
+    }
+    return 1023 * sum + prod ^ (31 * xor);
+  }
+
+  private void rehash() {
+    int[] old = buckets;
+    buckets = new int[2 * old.length];
+    Arrays.fill(buckets, NONE);
+    for (int chain : old)
+      for (int ref = chain; ref != NONE; ) {
+        int next = db[ref + LINK];
+        int b = hash(ref) & (buckets.length - 1);
+        db[ref + LINK] = buckets[b];
+        buckets[b] = ref;
+        ref = next;
+      }
+  }
+
+  /**
+   * Finds the latest clause with the given literals and removes it from the hash table.
+   */
+  private int unhash(IntVec lits) {
+    normalize(lits);
+    int n = lits.size();
+    int sum = 0;
+    int prod = 1;
+    int xor = 0;
+    for (int i = 0; i < n; i++) {
+      sum += lits.get(i);
+      prod *= lits.get(i) + 1;
+      xor ^= lits.get(i);
+    }
+    int b = (1023 * sum + prod ^ (31 * xor)) & (buckets.length - 1);
+    for (int ref = buckets[b], prev = NONE; ref != NONE; prev = ref, ref = db[ref + LINK]) {
+      if (db[ref + SIZE] != n) {
+        continue;
+      }
+      boolean same = true;
+      for (int i = ref + HEADER; i < ref + HEADER + n && same; i++)
+        same = litStamps[db[i]] == litStamp;
+      if (same) {
+        if (prev == NONE) {
+          buckets[b] = db[ref + LINK];
+        } else {
+          db[prev + LINK] = db[ref + LINK];
+        }
+        nHashed--;
+        return ref;
+      }
+    }
+    return NONE;
+  }
+
+  /* Propagation */
+
+  private void init() {
+    values = new byte[2 * nVars];
+    reasons = new int[nVars];
+    positions = new int[nVars];
+    seen = new int[nVars];
+    watches = new int[2 * nVars][];
+    watchSizes = new int[2 * nVars];
+    for (int i = 0; i < watches.length; i++)
+      watches[i] = new int[4];
+  }
+
+  private void assign(int lit, int reason) {
+    values[lit] = TRUE;
+    values[lit ^ 1] = FALSE;
+    reasons[lit >> 1] = reason;
+    positions[lit >> 1] = trail.size();
+    trail.push(lit);
+  }
+
+  /**
+   * Undoes the assignments from the given trail position on.
+   */
+  private void backtrack(int size) {
+    for (int i = trail.size() - 1; i >= size; i--) {
+      int lit = trail.get(i);
+      values[lit] = 0;
+      values[lit ^ 1] = 0;
+      reasons[lit >> 1] = NONE;
+    }
+    trail.shrinkTo(size);
+    head = size;
+    coreHead = size;
+  }
+
+  private void watch(int lit, int ref) {
+    if (watchSizes[lit] == watches[lit].length) {
+      watches[lit] = Arrays.copyOf(watches[lit], 2 * watchSizes[lit]);
+    }
+    watches[lit][watchSizes[lit]++] = ref;
+  }
+
+  private void unwatch(int lit, int ref) {
+    int[] ws = watches[lit];
+    int n = watchSizes[lit];
+    for (int i = 0; i < n; i++)
+      if (ws[i] == ref) {
+        ws[i] = ws[n - 1];
+        watchSizes[lit] = n - 1;
+        return;
+      }
+  }
+
+  /**
+   * Adds a clause to the active clauses.  The watches are two non-false literals if possible.  Otherwise the false
+   * literal assigned last is watched, so that the watches stay valid whenever the trail is cut back to the end of an
+   * earlier step.
+   *
+   * @param propagate true if a unit clause should be propagated, false when restoring a deleted clause
+   */
+  private void attach(int ref, boolean propagate) {
+    db[ref + FLAGS] |= ACTIVE;
+    int n = db[ref + SIZE];
+    int base = ref + HEADER;
+    if (n == 0) {
+      if (propagate) {
+        conflictRef = ref;
+      }
+      return;
+    }
+    if (n == 1) {
+      if (propagate && values[db[base]] == FALSE) {
+        conflictRef = ref;
+      } else if (propagate && values[db[base]] == 0) {
+        assign(db[base], ref);
+        conflictRef = propagate(ALL);
+      }
+      return;
+    }
+    for (int w = base; w < base + 2; w++) {
+      int best = w;
+      int bestRank = rank(db[w]);
+      for (int i = w + 1; i < base + n && bestRank != Integer.MAX_VALUE; i++)
+        if (rank(db[i]) > bestRank) {
+          best = i;
+          bestRank = rank(db[i]);
+        }
+      int lit = db[best];
+      db[best] = db[w];
+      db[w] = lit;
+    }
+    watch(db[base], ref);
+    watch(db[base + 1], ref);
+    if (propagate && values[db[base + 1]] == FALSE) {
+      if (values[db[base]] == FALSE) {
+        conflictRef = ref;
+      } else if (values[db[base]] == 0) {
+        assign(db[base], ref);
+        conflictRef = propagate(ALL);
+      }
+    }
+  }
+
+  private int rank(int lit) {
+    return values[lit] != FALSE ? Integer.MAX_VALUE : positions[lit >> 1];
+  }
+
+  private void detach(int ref) {
+    db[ref + FLAGS] &= ~ACTIVE;
+    if (db[ref + SIZE] >= 2) {
+      unwatch(db[ref + HEADER], ref);
+      unwatch(db[ref + HEADER + 1], ref);
+    }
+  }
+
+  private boolean isReason(int ref) {
+    if (db[ref + SIZE] == 0) {
+      return false;
+    }
+    int lit = db[ref + HEADER];
+    return values[lit] == TRUE && reasons[lit >> 1] == ref;
+  }
+
+  /**
+   * Propagates the assignments of the trail.  In mode {@link #ALL} every clause is visited.  Otherwise core clauses
+   * are propagated to a fixpoint first and a non-core clause is only used when no core clause propagates.
+   *
+   * @return the falsified clause, or {@link #NONE}
+   */
+  private int propagate(int mode) {
+    if (mode == ALL) {
+      while (head < trail.size()) {
+        int confl = propagate(trail.get(head++) ^ 1, ALL);
+        if (confl != NONE) {
+          return confl;
+        }
+      }
+      return NONE;
+    }
+    while (true) {
+      while (coreHead < trail.size()) {
+        int confl = propagate(trail.get(coreHead++) ^ 1, CORE_ONLY);
+        if (confl != NONE) {
+          return confl;
+        }
+      }
+      if (head == trail.size()) {
+        return NONE;
+      }
+      int size = trail.size();
+      while (head < trail.size() && trail.size() == size) {
+        int confl = propagate(trail.get(head++) ^ 1, NON_CORE_ONLY);
+        if (confl != NONE) {
+          return confl;
+        }
+      }
+    }
+  }
+
+  private int propagate(int falseLit, int mode) {
+    int[] ws = watches[falseLit];
+    int n = watchSizes[falseLit];
+    int i = 0;
+    int j = 0;
+    while (i < n) {
+      int ref = ws[i++];
+      if (mode != ALL && ((db[ref + FLAGS] & CORE) != 0) != (mode == CORE_ONLY)) {
+        ws[j++] = ref;
+        continue;
+      }
+      int base = ref + HEADER;
+      if (db[base] == falseLit) {
+        db[base] = db[base + 1];
+        db[base + 1] = falseLit;
+      }
+      int first = db[base];
+      if (values[first] == TRUE) {
+        ws[j++] = ref;
+        continue;
+      }
+      boolean moved = false;
+      for (int k = base + 2; k < base + db[ref + SIZE]; k++)
+        if (values[db[k]] != FALSE) {
+          db[base + 1] = db[k];
+          db[k] = falseLit;
+          watch(db[base + 1], ref);
+          moved = true;
+          break;
+        }
+      if (moved) {
+        continue;
+      }
+      ws[j++] = ref;
+      if (values[first] == FALSE) {
+        while (i < n)
+          ws[j++] = ws[i++];
+        watchSizes[falseLit] = j;
+        return ref;
+      }
+      assign(first, ref);
+    }
+    watchSizes[falseLit] = j;
+    return NONE;
+  }
+
+  /* Checking */
+
+  /**
+   * Adds the formula and the lemmas until a conflict on level 0 occurs.
+   *
+   * @return true if there is a conflict
+   */
+  private boolean forward() {
+    init();
+    for (int ref = 0; ref < originalsEnd && conflictRef == NONE; ref += HEADER + db[ref + SIZE])
+      attach(ref, true);
+    for (int i = 0; i < nSteps && conflictRef == NONE; i++) {
+      int step = steps[i];
+      if (step >= 0) {
+        trailBefore[i] = trail.size();
+        attach(step, true);
+        if (conflictRef != NONE) {
+          conflictStep = i;
+        }
+      } else if (isReason(~step)) {
+        steps[i] = IGNORED;
+        ignoredDeletions++;
+      } else {
+        detach(~step);
+      }
+    }
+    return conflictRef != NONE;
+  }
+
+  private boolean backward() {
+    analyze(conflictRef, NONE);
+    if (recordHints) {
+      finalHints = storeHints();
+    }
+    for (int i = conflictStep; i >= 0; i--) {
+      int step = steps[i];
+      if (step == IGNORED) {
+        continue;
+      }
+      if (step < 0) {
+        attach(~step, false);
+        continue;
+      }
+      detach(step);
+      backtrack(trailBefore[i]);
+      if ((db[step + FLAGS] & CORE) != 0 && !verify(step)) {
+        failure = "lemma " + toString(step) + " is neither RUP nor RAT";
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Assigns the negation of the literals of a clause on top of level 0, except for {@code skip}.
+   *
+   * @return a literal of the clause which is true, or {@link #NONE}
+   */
+  private int assume(int ref, int skip) {
+    for (int i = ref + HEADER; i < ref + HEADER + db[ref + SIZE]; i++) {
+      int lit = db[i];
+      if (lit == skip) {
+        continue;
+      }
+      if (values[lit] == TRUE) {
+        return lit;
+      }
+      if (values[lit] == 0) {
+        assign(lit ^ 1, NONE);
+      }
+    }
+    return NONE;
+  }
+
+  private boolean verify(int ref) {
+    checked++;
+    int top = trail.size();
+    int trueLit = assume(ref, NONE);
+    int confl = trueLit == NONE ? propagate(CORE_ONLY) : NONE;
+    if (trueLit != NONE || confl != NONE) {
+      analyze(confl, trueLit);
+      backtrack(top);
+      if (recordHints) {
+        db[ref + LINK] = storeHints();
+      }
+      return true;
+    }
+    backtrack(top);
+    return verifyRat(ref, top);
+  }
+
+  /**
+   * Checks that every resolvent on the pivot of the lemma with an active clause is RUP.  The hints are recorded as in
+   * LRAT: for each such clause its id negated followed by the hints of the resolvent.
+   */
+  private boolean verifyRat(int ref, int top) {
+    int pivot = db[ref + PIVOT];
+    if (pivot == NONE) {
+      return false;
+    }
+    IntVec ratHints = recordHints ? new IntVec() : null;
+    for (int other = 0; other < dbSize; other += HEADER + db[other + SIZE]) {
+      if ((db[other + FLAGS] & ACTIVE) == 0 || !contains(other, pivot ^ 1)) {
+        continue;
+      }
+      int trueLit = assume(ref, NONE);
+      if (trueLit == NONE) {
+        trueLit = assume(other, pivot ^ 1);
+      }
+      int confl = trueLit == NONE ? propagate(CORE_ONLY) : NONE;
+      if (trueLit == NONE && confl == NONE) {
+        backtrack(top);
+        return false;
+      }
+      db[other + FLAGS] |= CORE;
+      analyze(confl, trueLit);
+      backtrack(top);
+      if (recordHints) {
+        ratHints.push(~other);
+        for (int i = 0; i < hints.size(); i++)
+          ratHints.push(hints.get(i));
+      }
+    }
+    ratLemmas++;
+    if (recordHints) {
+      hints.clear();
+      ratHints.copyTo(hints);
+      db[ref + LINK] = storeHints();
+    }
+    return true;
+  }
+
+  private boolean contains(int ref, int lit) {
+    for (int i = ref + HEADER; i < ref + HEADER + db[ref + SIZE]; i++)
+      if (db[i] == lit) {
+        return true;
+      }
+    return false;
+  }
+
+  /**
+   * Marks the clauses the conflict depends on as core and collects them in trail order in {@link #hints}, ending
+   * with the conflicting clause.
+   *
+   * @param confl   the falsified clause, or {@link #NONE}
+   * @param trueLit if there is no falsified clause, a literal whose negation was assumed although it is true
+   */
+  private void analyze(int confl, int trueLit) {
+    hints.clear();
+    seenStamp++;
+    int pending = 0;
+    if (confl != NONE) {
+      db[confl + FLAGS] |= CORE;
+      for (int i = confl + HEADER; i < confl + HEADER + db[confl + SIZE]; i++) {
+        seen[db[i] >> 1] = seenStamp;
+        pending++;
+      }
+    } else {
+      seen[trueLit >> 1] = seenStamp;
+      pending++;
+    }
+    for (int p = trail.size() - 1; pending > 0; p--) {
+      int var = trail.get(p) >> 1;
+      if (seen[var] != seenStamp) {
+        continue;
+      }
+      pending--;
+      int reason = reasons[var];
+      if (reason == NONE) {
+        continue;
+      }
+      db[reason + FLAGS] |= CORE;
+      hints.push(reason);
+      for (int i = reason + HEADER + 1; i < reason + HEADER + db[reason + SIZE]; i++)
+        if (seen[db[i] >> 1] != seenStamp) {
+          seen[db[i] >> 1] = seenStamp;
+          pending++;
+        }
+    }
+    for (int i = 0, k = hints.size() - 1; i < k; i++, k--) {
+      int h = hints.get(i);
+      hints.set(i, hints.get(k));
+      hints.set(k, h);
+    }
+    if (confl != NONE) {
+      hints.push(confl);
+    }
+  }
+
+  private int storeHints() {
+    int start = hintStore.size();
+    hintStore.push(hints.size());
+    for (int i = 0; i < hints.size(); i++)
+      hintStore.push(hints.get(i));
+    return start;
+  }
+
+  /* LRAT output */
+
+  /**
+   * Writes the core of a successfully checked proof as LRAT.  The clauses of the formula get the ids 1, 2, ... in
+   * the order of the file, the lemmas of the core the following ids; deletions of the formula and the core are kept.
+   *
+   * @param out the writer, which is flushed but not closed
+   */
+  public void writeLrat(LratWriter out) {
+    if (!recordHints || conflictRef == NONE || failure != null) {
+      throw new IllegalStateException("no successful check with recorded hints");
+    }
+    int id = 0;
+    for (int ref = 0; ref < originalsEnd; ref += HEADER + db[ref + SIZE])
+      db[ref + ID] = ++id;
+    IntVec lits = new IntVec();
+    long[] ids = new long[16];
+    for (int i = 0; i <= conflictStep; i++) {
+      int step = steps[i];
+      if (step == IGNORED) {
+        continue;
+      }
+      if (step < 0) {
+        if (db[~step + ID] != 0) {
+          lits.clear();
+          out.delete(db[~step + ID], lits);
+        }
+      } else if ((db[step + FLAGS] & CORE) != 0) {
+        db[step + ID] = ++id;
+        lits.clear();
+        int n = db[step + SIZE];
+        if (n > 0) {
+          int pivot = db[step + PIVOT];
+          lits.push(pivot);
+          for (int k = step + HEADER; k < step + HEADER + n; k++)
+            if (db[k] != pivot) {
+              lits.push(db[k]);
+            }
+        }
+        ids = writeHints(out, id, lits, db[step + LINK], ids);
+      }
+    }
+    if (db[conflictRef + SIZE] != 0 || conflictRef < originalsEnd) {
+      lits.clear();
+      writeHints(out, id + 1, lits, finalHints, ids);
+    }
+    out.flush();
+  }
+
+  private long[] writeHints(LratWriter out, long id, IntVec lits, int start, long[] ids) {
+    int n = hintStore.get(start);
+    if (n > ids.length) {
+      ids = new long[Math.max(n, 2 * ids.length)];
+    }
+    for (int i = 0; i < n; i++) {
+      int h = hintStore.get(start + 1 + i);
+      ids[i] = h >= 0 ? db[h + ID] : -db[~h + ID];
+    }
+    out.add(id, lits, ids, n);
+    return ids;
+  }
+
+  private String toString(int ref) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = ref + HEADER; i < ref + HEADER + db[ref + SIZE]; i++) {
+      int lit = db[i];
+      sb.append(i > ref + HEADER ? " " : "").append((lit & 1) == 0 ? (lit >> 1) + 1 : -(lit >> 1) - 1);
+    }
+    return sb.append("]").toString();
+  }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.proofchecker;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.LongLongMap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Linear LRAT checker.  Every lemma is checked by propagating exactly its hints, so the work is linear in the size
+ * of the proof.  Text and binary LRAT are accepted, including RAT steps, whose hints name every active clause
+ * containing the negated pivot by its negated id.
+ * <p/>
+ * Clauses are kept in one int array, each as its number of literals followed by the literals, and are found by id
+ * through a {@link LongLongMap}.  The array is compacted when deleted clauses make up half of it.
+ */
+public class LratChecker {
+  private final static byte TRUE = 1;
+  private final static byte FALSE = -1;
+
+  private final static int FAILED = -1;
+  private final static int UNIT = 0;
+  private final static int CONFLICT = 1;
+
+  private final Path formula;
+  private final Path proof;
+
+  private int[] db = new int[1 << 16];
+  private int dbSize = 0;
+  private int garbage = 0;
+  private final LongLongMap clauses = new LongLongMap();
+
+  private byte[] values = new byte[0];
+  private final IntVec assigned = new IntVec();
+  private final IntVec lits = new IntVec();
+  private long[] hints = new long[16];
+  private long[] ratIds = new long[16];
+
+  private long lemmas = 0;
+  private String failure = null;
+
+  /**
+   * @param formula the DIMACS file
+   * @param proof   the LRAT proof, text or binary
+   */
+  public LratChecker(Path formula, Path proof) {
+    this.formula = formula;
+    this.proof = proof;
+  }
+
+  /**
+   * Checks the proof up to the first empty clause.
+   *
+   * @return true if the proof refutes the formula
+   * @throws IOException              if a file cannot be read
+   * @throws IllegalArgumentException if a file is malformed
+   */
+  public boolean check() throws IOException {
+    long id = 0;
+    try (MappedInput in = new MappedInput(formula)) {
+      in.skipHeader();
+      while (in.skipBlanks() != -1) {
+        in.readClause(false, lits);
+        store(++id, lits);
+        if (lits.size() == 0) {
+          return true;
+        }
+      }
+    }
+    try (MappedInput in = new MappedInput(proof)) {
+      boolean binary = in.isBinary();
+      while (true) {
+        boolean delete;
+        if (binary) {
+          int b = in.read();
+          if (b == -1) {
+            break;
+          }
+          if (b != 'a' && b != 'd') {
+            throw in.error("'a' or 'd' expected");
+          }
+          delete = b == 'd';
+          if (!delete) {
+            id = readId(in, true);
+          }
+        } else {
+          if (in.skipBlanks() == -1) {
+            break;
+          }
+          id = in.readNumber();
+          delete = in.skipBlanks() == 'd';
+          if (delete) {
+            in.read();
+          }
+        }
+        if (delete) {
+          for (long deleted = readId(in, binary); deleted != 0; deleted = readId(in, binary))
+            if (!delete(deleted)) {
+              failure = "deleted clause " + deleted + " does not exist";
+              return false;
+            }
+          continue;
+        }
+        in.readClause(binary, lits);
+        int nHints = 0;
+        for (long hint = readId(in, binary); hint != 0; hint = readId(in, binary)) {
+          if (nHints == hints.length) {
+            hints = Arrays.copyOf(hints, 2 * nHints);
+          }
+          hints[nHints++] = hint;
+        }
+        lemmas++;
+        if (!verify(id, nHints)) {
+          return false;
+        }
+        if (lits.size() == 0) {
+          return true;
+        }
+      }
+    }
+    failure = "the proof does not derive the empty clause";
+    return false;
+  }
+
+  /**
+   * @return the reason of a failed check, or null
+   */
+  public String failure() {
+    return failure;
+  }
+
+  /**
+   * @return the number of lemmas checked
+   */
+  public long checkedLemmas() {
+    return lemmas;
+  }
+
+  private static long readId(MappedInput in, boolean binary) {
+    if (!binary) {
+      return in.readNumber();
+    }
+    long n = in.readVarint();
+    return (n & 1) == 0 ? n >>> 1 : -(n >>> 1);
+  }
+
+  /* Clause store */
+
+  private void store(long id, IntVec clause) {
+    int n = clause.size();
+    if (dbSize + n + 1 > db.length) {
+      long capacity = Math.max(db.length + (db.length >> 1), (long) dbSize + n + 1);
+      if (capacity > Integer.MAX_VALUE - 8) {
+        throw new OutOfMemoryError("LRAT checker clause store exhausted");
+      }
+      db = Arrays.copyOf(db, (int) capacity);
+    }
+    clauses.put(id, dbSize);
+    db[dbSize++] = n;
+    for (int i = 0; i < n; i++) {
+      int lit = clause.get(i);
+      if (lit >= values.length) {
+        values = Arrays.copyOf(values, Math.max(2 * values.length, (lit | 1) + 1));
+      }
+      db[dbSize++] = lit;
+    }
+  }
+
+  private boolean delete(long id) {
+    long ref = clauses.remove(id, -1);
+    if (ref < 0) {
+      return false;
+    }
+    garbage += db[(int) ref] + 1;
+    if (garbage > dbSize / 2 && dbSize > 1 << 16) {
+      compact();
+    }
+    return true;
+  }
+
+  private void compact() {
+    int[] compacted = new int[Math.max(1 << 16, 2 * (dbSize - garbage))];
+    int size = 0;
+    for (int slot = 0; slot < clauses.capacity(); slot++)
+      if (clauses.keyAt(slot) >= 0) {
+        int ref = (int) clauses.valueAt(slot);
+        int n = db[ref] + 1;
+        System.arraycopy(db, ref, compacted, size, n);
+        clauses.setValueAt(slot, size);
+        size += n;
+      }
+    db = compacted;
+    dbSize = size;
+    garbage = 0;
+  }
+
+  private boolean contains(int ref, int lit) {
+    for (int i = ref + 1; i <= ref + db[ref]; i++)
+      if (db[i] == lit) {
+        return true;
+      }
+    return false;
+  }
+
+  /* Checking */
+
+  private void assign(int lit) {
+    values[lit] = TRUE;
+    values[lit ^ 1] = FALSE;
+    assigned.push(lit);
+  }
+
+  private void backtrack(int size) {
+    for (int i = assigned.size() - 1; i >= size; i--) {
+      int lit = assigned.get(i);
+      values[lit] = 0;
+      values[lit ^ 1] = 0;
+    }
+    assigned.shrinkTo(size);
+  }
+
+  /**
+   * Assigns the negations of the literals of the lemma.
+   *
+   * @return true if the lemma is a tautology
+   */
+  private boolean assumeLemma() {
+    for (int i = 0; i < lits.size(); i++) {
+      int lit = lits.get(i);
+      if (lit >= values.length) {
+        values = Arrays.copyOf(values, Math.max(2 * values.length, (lit | 1) + 1));
+      }
+      if (values[lit] == TRUE) {
+        return true;
+      }
+      if (values[lit] == 0) {
+        assign(lit ^ 1);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Propagates a hint, which has to be unit or falsified.
+   */
+  private int propagate(long lemma, long hint) {
+    long ref = clauses.get(hint, -1);
+    if (ref < 0) {
+      failure = "hint " + hint + " of lemma " + lemma + " does not exist";
+      return FAILED;
+    }
+    int unit = -1;
+    for (int i = (int) ref + 1; i <= ref + db[(int) ref]; i++) {
+      int lit = db[i];
+      if (values[lit] == TRUE) {
+        failure = "hint " + hint + " of lemma " + lemma + " is satisfied";
+        return FAILED;
+      }
+      if (values[lit] == 0 && lit != unit) {
+        if (unit != -1) {
+          failure = "hint " + hint + " of lemma " + lemma + " is not unit";
+          return FAILED;
+        }
+        unit = lit;
+      }
+    }
+    if (unit == -1) {
+      return CONFLICT;
+    }
+    assign(unit);
+    return UNIT;
+  }
+
+  private boolean verify(long id, int nHints) {
+    if (id <= 0 || clauses.containsKey(id)) {
+      failure = "lemma id " + id + " is already in use";
+      return false;
+    }
+    boolean conflict = assumeLemma();
+    int k = 0;
+    for (; !conflict && k < nHints && hints[k] > 0; k++) {
+      int result = propagate(id, hints[k]);
+      if (result == FAILED) {
+        backtrack(0);
+        return false;
+      }
+      conflict = result == CONFLICT;
+    }
+    if (!conflict && !verifyRat(id, k, nHints)) {
+      backtrack(0);
+      return false;
+    }
+    backtrack(0);
+    store(id, lits);
+    return true;
+  }
+
+  /**
+   * Checks the RAT part of the hints from {@code k} on: groups of a negated clause id followed by the hints which
+   * refute the resolvent of the lemma with that clause on the first literal of the lemma.  There are no groups if no
+   * clause contains the negated pivot.
+   */
+  private boolean verifyRat(long id, int k, int nHints) {
+    if (lits.size() == 0) {
+      failure = "the hints of lemma " + id + " do not lead to a conflict";
+      return false;
+    }
+    int negPivot = lits.get(0) ^ 1;
+    int top = assigned.size();
+    int nRat = 0;
+    while (k < nHints) {
+      long other = -hints[k++];
+      long ref = clauses.get(other, -1);
+      if (ref < 0 || !contains((int) ref, negPivot)) {
+        failure = "RAT hint " + other + " of lemma " + id + " does not contain the negated pivot";
+        return false;
+      }
+      if (nRat == ratIds.length) {
+        ratIds = Arrays.copyOf(ratIds, 2 * nRat);
+      }
+      ratIds[nRat++] = other;
+      boolean conflict = false;
+      for (int i = (int) ref + 1; i <= ref + db[(int) ref] && !conflict; i++) {
+        int lit = db[i];
+        if (lit != negPivot) {
+          conflict = values[lit] == TRUE;
+          if (values[lit] == 0) {
+            assign(lit ^ 1);
+          }
+        }
+      }
+      for (; k < nHints && hints[k] > 0; k++)
+        if (!conflict) {
+          int result = propagate(id, hints[k]);
+          if (result == FAILED) {
+            return false;
+          }
+          conflict = result == CONFLICT;
+        }
+      if (!conflict) {
+        failure = "the RAT hints of lemma " + id + " on clause " + other + " do not lead to a conflict";
+        return false;
+      }
+      backtrack(top);
+    }
+    Arrays.sort(ratIds, 0, nRat);
+    for (int i = 1; i < nRat; i++)
+      if (ratIds[i] == ratIds[i - 1]) {
+        failure = "lemma " + id + " names clause " + ratIds[i] + " twice";
+        return false;
+      }
+    int candidates = 0;
+    for (int slot = 0; slot < clauses.capacity(); slot++)
+      if (clauses.keyAt(slot) >= 0 && contains((int) clauses.valueAt(slot), negPivot)) {
+        candidates++;
+      }
+    if (candidates != nRat) {
+      failure = nRat == 0 ? "the hints of lemma " + id + " do not lead to a conflict"
+              : "the RAT hints of lemma " + id + " miss clauses containing the negated pivot";
+      return false;
+    }
+    return true;
+  }
+}
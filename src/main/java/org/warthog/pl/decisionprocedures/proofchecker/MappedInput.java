@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.proofchecker;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader of a memory mapped DIMACS or proof file.  Files larger than a mapping window are mapped window
+ * by window, so proofs of any size can be read without copying them onto the heap.
+ * <p/>
+ * Literals are returned in the encoding of the MiniSatJava prover: DIMACS literal {@code v} becomes
+ * {@code 2 * (v - 1)}, {@code -v} becomes {@code 2 * (v - 1) + 1}.
+ */
+public class MappedInput implements Closeable {
+  private final static long WINDOW = 1L << 30;
+
+  private final FileChannel channel;
+  private final long length;
+  private long windowStart;
+  private MappedByteBuffer window;
+
+  public MappedInput(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    length = channel.size();
+    map(0);
+  }
+
+  private void map(long start) {
+    try {
+      windowStart = start;
+      window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, length - start));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private boolean nextWindow() {
+    long next = windowStart + window.limit();
+    if (next >= length) {
+      return false;
+    }
+    map(next);
+    return true;
+  }
+
+  /**
+   * @return the offset of the next byte
+   */
+  public long position() {
+    return windowStart + window.position();
+  }
+
+  /**
+   * @return the next byte without consuming it, or -1 at the end of the file
+   */
+  public int peek() {
+    if (!window.hasRemaining() && !nextWindow()) {
+      return -1;
+    }
+    return window.get(window.position()) & 0xff;
+  }
+
+  /**
+   * @return the next byte, or -1 at the end of the file
+   */
+  public int read() {
+    if (!window.hasRemaining() && !nextWindow()) {
+      return -1;
+    }
+    return window.get() & 0xff;
+  }
+
+  /**
+   * Guesses the format of a proof file.  A binary proof starts with {@code 'a'} or {@code 'd'}, a text proof with a
+   * digit, a sign, white space or a comment.  A proof starting with {@code 'd'} is binary if, as in drat-trim, one of
+   * its first bytes cannot occur in a text proof.
+   */
+  public boolean isBinary() {
+    int first = peek();
+    if (first != 'd') {
+      return first == 'a';
+    }
+    int end = Math.min(window.position() + 10, window.limit());
+    for (int i = window.position(); i < end; i++) {
+      int b = window.get(i) & 0xff;
+      if (!(b >= '0' && b <= '9' || b == '-' || b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == 'd' ||
+              b == 'c' || b == 'p')) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Skips white space and comment lines.
+   *
+   * @return the next byte, or -1 at the end of the file
+   */
+  public int skipBlanks() {
+    int b;
+    while ((b = peek()) != -1) {
+      if (b == 'c') {
+        while ((b = read()) != -1 && b != '\n') {
+          // skip the comment
+        }
+      } else if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+        read();
+      } else {
+        break;
+      }
+    }
+    return b;
+  }
+
+  /**
+   * Skips the comments and the problem line {@code p cnf vars clauses} of a DIMACS file.
+   *
+   * @return the number of variables of the problem line, or 0 if there is none
+   */
+  public int skipHeader() {
+    if (skipBlanks() != 'p') {
+      return 0;
+    }
+    int b;
+    while ((b = peek()) != -1 && (b < '0' || b > '9'))
+      read();
+    long vars = readNumber();
+    readNumber();
+    return (int) vars;
+  }
+
+  /**
+   * Reads a decimal number after skipping white space and comments.
+   */
+  public long readNumber() {
+    int b = skipBlanks();
+    boolean negative = b == '-';
+    if (negative) {
+      read();
+      b = peek();
+    }
+    if (b < '0' || b > '9') {
+      throw error("number expected");
+    }
+    long n = 0;
+    while ((b = peek()) >= '0' && b <= '9') {
+      n = 10 * n + (b - '0');
+      read();
+    }
+    return negative ? -n : n;
+  }
+
+  /**
+   * Reads a number of a binary proof: seven bits per byte, least significant first, the high bit of a byte tells
+   * whether more bytes follow.
+   */
+  public long readVarint() {
+    long n = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = read();
+      if (b == -1 || shift > 56) {
+        throw error("unterminated number");
+      }
+      n |= (long) (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return n;
+  }
+
+  /**
+   * Reads the literals of a clause up to the terminating zero.
+   *
+   * @param binary true for the binary proof format
+   * @param lits   the vector receiving the literals
+   */
+  public void readClause(boolean binary, IntVec lits) {
+    lits.clear();
+    while (true) {
+      long n = binary ? readVarint() : readNumber();
+      if (n == 0) {
+        return;
+      }
+      if (binary) {
+        if (n < 2 || n > Integer.MAX_VALUE) {
+          throw error("literal out of range");
+        }
+        lits.push((int) n - 2);
+      } else {
+        if (n > Integer.MAX_VALUE / 2 || n < -(Integer.MAX_VALUE / 2)) {
+          throw error("literal out of range");
+        }
+        lits.push(n > 0 ? 2 * ((int) n - 1) : 2 * (-(int) n - 1) + 1);
+      }
+    }
+  }
+
+  /**
+   * @return an exception reporting a malformed file at the current position
+   */
+  public IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(message + " at byte " + position());
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.proofchecker;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.proof.LratWriter;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Command line interface for the proof checkers: {@code ProofCheckerCLI [-lrat] formula.cnf proof [trimmed.lrat]}.
+ * Without {@code -lrat} the proof is checked as DRAT and its core can be written as a text LRAT proof.
+ */
+public class ProofCheckerCLI {
+
+  public static void main(String[] args) {
+    boolean lrat = args.length > 0 && args[0].equals("-lrat");
+    int first = lrat ? 1 : 0;
+    assert args.length > first + 1 : "Not enough arguments";
+    try {
+      Path formula = Paths.get(args[first]);
+      Path proof = Paths.get(args[first + 1]);
+      Path trimmed = !lrat && args.length > first + 2 ? Paths.get(args[first + 2]) : null;
+      long start = System.currentTimeMillis();
+      boolean verified;
+      String failure;
+      long lemmas;
+      if (lrat) {
+        LratChecker checker = new LratChecker(formula, proof);
+        verified = checker.check();
+        failure = checker.failure();
+        lemmas = checker.checkedLemmas();
+      } else {
+        DratChecker checker = new DratChecker(formula, proof, trimmed != null);
+        verified = checker.check();
+        failure = checker.failure();
+        lemmas = checker.checkedLemmas();
+        if (verified && trimmed != null) {
+          try (LratWriter out = new LratWriter(FileChannel.open(trimmed, StandardOpenOption.CREATE,
+                  StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), false)) {
+            checker.writeLrat(out);
+          }
+        }
+        System.out.printf("RAT lemmas            : %d\n", checker.ratLemmas());
+        System.out.printf("ignored deletions     : %d\n", checker.ignoredDeletions());
+      }
+      double cpu_time = (System.currentTimeMillis() - start) / 1000.0;
+      System.out.printf("checked lemmas        : %d\n", lemmas);
+      System.out.printf("CPU time              : %g s\n", cpu_time);
+      System.out.println("\n" + (verified ? "s VERIFIED" : "s NOT VERIFIED: " + failure));
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType;
+
+import java.util.Arrays;
+
+/**
+ * Binary max-heap over the ints 0..n-1, ordered by the values of an external key array.  The position of each
+ * element is kept in an index array, so membership tests are O(1) and key changes are O(log n).
+ * <p/>
+ * The owner of the key array must call {@link #increase(int)} or {@link #decrease(int)} after changing the key of an
+ * element in the heap, and {@link #setKeys(double[])} after reallocating the key array.
+ */
+public class IntHeap {
+  private double[] keys;
+  private int[] heap = new int[16];
+  private int[] indices = new int[0];
+  private int size = 0;
+
+  public IntHeap(double[] keys) {
+    this.keys = keys;
+  }
+
+  public void setKeys(double[] keys) {
+    this.keys = keys;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean inHeap(int n) {
+    return n < indices.length && indices[n] >= 0;
+  }
+
+  public void insert(int n) {
+    if (n >= indices.length) {
+      int old = indices.length;
+      indices = Arrays.copyOf(indices, Math.max(n + 1, 2 * old));
+      Arrays.fill(indices, old, indices.length, -1);
+    }
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, 2 * size);
+    }
+    heap[size] = n;
+    indices[n] = size;
+    percolateUp(size++);
+  }
+
+  /**
+   * Restores the heap property after the key of {@code n} was increased.  Does nothing if {@code n} is not in the heap.
+   */
+  public void increase(int n) {
+    if (inHeap(n)) {
+      percolateUp(indices[n]);
+    }
+  }
+
+  /**
+   * Restores the heap property after the key of {@code n} was decreased.  Does nothing if {@code n} is not in the heap.
+   */
+  public void decrease(int n) {
+    if (inHeap(n)) {
+      percolateDown(indices[n]);
+    }
+  }
+
+  public int max() {
+    return heap[0];
+  }
+
+  public int removeMax() {
+    int max = heap[0];
+    heap[0] = heap[--size];
+    indices[heap[0]] = 0;
+    indices[max] = -1;
+    if (size > 1) {
+      percolateDown(0);
+    }
+    return max;
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; i++)
+      indices[heap[i]] = -1;
+    size = 0;
+  }
+
+  private void percolateUp(int i) {
+    int n = heap[i];
+    double key = keys[n];
+    while (i > 0) {
+      int parent = (i - 1) >> 1;
+      if (keys[heap[parent]] >= key) {
+        break;
+      }
+      heap[i] = heap[parent];
+      indices[heap[i]] = i;
+      i = parent;
+    }
+    heap[i] = n;
+    indices[n] = i;
+  }
+
+  private void percolateDown(int i) {
+    int n = heap[i];
+    double key = keys[n];
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && keys[heap[child + 1]] > keys[heap[child]]) {
+        child++;
+      }
+      if (keys[heap[child]] <= key) {
+        break;
+      }
+      heap[i] = heap[child];
+      indices[heap[i]] = i;
+      i = child;
+    }
+    heap[i] = n;
+    indices[n] = i;
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from non-negative longs to longs with linear probing.  Removal shifts the following
+ * entries back, so the table never fills up with tombstones.
+ */
+public class LongLongMap {
+  private final static long FREE = -1;
+
+  private long[] keys;
+  private long[] values;
+  private int size = 0;
+
+  public LongLongMap() {
+    this(16);
+  }
+
+  /**
+   * @param capacity the expected number of entries
+   */
+  public LongLongMap(int capacity) {
+    int n = 16;
+    while (n < 2 * capacity)
+      n <<= 1;
+    keys = new long[n];
+    values = new long[n];
+    Arrays.fill(keys, FREE);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private int slot(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+  }
+
+  /**
+   * @return the value of the key, or {@code missing} if the key is not in the map
+   */
+  public long get(long key, long missing) {
+    int mask = keys.length - 1;
+    for (int i = slot(key); keys[i] != FREE; i = (i + 1) & mask)
+      if (keys[i] == key) {
+        return values[i];
+      }
+    return missing;
+  }
+
+  public boolean containsKey(long key) {
+    int mask = keys.length - 1;
+    for (int i = slot(key); keys[i] != FREE; i = (i + 1) & mask)
+      if (keys[i] == key) {
+        return true;
+      }
+    return false;
+  }
+
+  /**
+   * Maps the key to the value, replacing the previous value of the key.
+   *
+   * @param key   the key, must not be negative
+   * @param value the value
+   */
+  public void put(long key, long value) {
+    assert key >= 0;
+    if (2 * (size + 1) > keys.length) {
+      rehash(2 * keys.length);
+    }
+    int mask = keys.length - 1;
+    int i = slot(key);
+    while (keys[i] != FREE && keys[i] != key)
+      i = (i + 1) & mask;
+    if (keys[i] == FREE) {
+      keys[i] = key;
+      size++;
+    }
+    values[i] = value;
+  }
+
+  /**
+   * Removes the key.
+   *
+   * @return the value of the key, or {@code missing} if the key was not in the map
+   */
+  public long remove(long key, long missing) {
+    int mask = keys.length - 1;
+    int i = slot(key);
+    while (keys[i] != key) {
+      if (keys[i] == FREE) {
+        return missing;
+      }
+      i = (i + 1) & mask;
+    }
+    long value = values[i];
+    size--;
+    // move back the following entries of the probe sequence which may not skip the freed slot
+    int hole = i;
+    for (int j = (i + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+      int home = slot(keys[j]);
+      if (((j - home) & mask) >= ((j - hole) & mask)) {
+        keys[hole] = keys[j];
+        values[hole] = values[j];
+        hole = j;
+      }
+    }
+    keys[hole] = FREE;
+    return value;
+  }
+
+  /**
+   * @return the number of slots, see {@link #keyAt(int)}
+   */
+  public int capacity() {
+    return keys.length;
+  }
+
+  /**
+   * Iterates over the entries: {@code for (int i = 0; i < map.capacity(); i++) if (map.keyAt(i) >= 0) ...}.  The
+   * slots do not change as long as no key is added or removed.
+   *
+   * @return the key in the slot, or a negative number if the slot is free
+   */
+  public long keyAt(int slot) {
+    return keys[slot];
+  }
+
+  public long valueAt(int slot) {
+    return values[slot];
+  }
+
+  public void setValueAt(int slot, long value) {
+    values[slot] = value;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, FREE);
+    size = 0;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    long[] oldValues = values;
+    keys = new long[capacity];
+    values = new long[capacity];
+    Arrays.fill(keys, FREE);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++)
+      if (oldKeys[i] != FREE) {
+        put(oldKeys[i], oldValues[i]);
+      }
+  }
+}
@@ -22,20 +22,29 @@
 
 package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core;
 
-import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.HeapWithIndex;
 import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.IVec;
 import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.Vec;
 import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.BooleanVec;
 import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.LongLongMap;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.enumeration.ModelHandler;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics.BranchingHeuristic;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics.VSIDSHeuristic;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.phases.PhaseWalker;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.phases.Rephase;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.proof.ProofWriter;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.restarts.ModeSwitchingRestartPolicy;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.restarts.RestartPolicy;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.sharing.ClauseExchange;
 import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.stats.SearchParams;
 import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.stats.SolverStats;
 import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.LBool;
-import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.MSJClause;
-import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.MSJVariable;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.MSJClauseArena;
 
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * MiniSAT Java
@@ -45,33 +54,242 @@ public class MSJCoreProver {
     // The solver state //
     //////////////////////
     protected boolean ok = true;
-    protected IVec<MSJClause> clauses = new Vec<MSJClause>();
-    protected IVec<MSJClause> learnts = new Vec<MSJClause>();
-    protected IVec<MSJVariable> vars = new Vec<MSJVariable>();
-    private HeapWithIndex<MSJVariable> varHeap = new HeapWithIndex<MSJVariable>();
-    private IVec<IVec<MSJClause>> watches = new Vec<IVec<MSJClause>>();
+    protected MSJClauseArena ca = new MSJClauseArena();
+    protected IntVec clauses = new IntVec();
+    // learnt clauses by tier, see MSJClauseArena.CORE, TIER2 and LOCAL
+    protected IntVec learntsCore = new IntVec();
+    protected IntVec learntsTier2 = new IntVec();
+    protected IntVec learntsLocal = new IntVec();
+    private IntVec lbdStamps = new IntVec(1, 0);
+    private int lbdStamp = 0;
+    private long nextTier2Reduce;
+    private long nextLocalReduce;
+    protected int nVars = 0;
+    protected byte[] assigns = new byte[0];
+    protected int[] levels = new int[0];
+    protected int[] reasons = new int[0];
+    // saved phases, phases of the longest conflict-free trail since the last restart and since the last rephasing,
+    // and the initial phases
+    protected boolean[] polarity = new boolean[0];
+    private boolean[] targetPhase = new boolean[0];
+    private boolean[] bestPhase = new boolean[0];
+    private boolean[] originalPhase = new boolean[0];
+    private int targetAssigned;
+    private int bestAssigned;
+    private int rephaseCount;
+    private long nextRephase;
+    private Random random;
+    // representative literal of the positive literal of each variable, see substituteEquivalences()
+    private int[] reprs = new int[0];
+    private int ignoredClause = CREF_UNDEF;
+    private long nextInprocess;
+    private long inprocessProps;
+    private long walkProps;
+    private int inprocessCount;
+    private int[] vivifyCursors = new int[3];
+    private int probeCursor;
+    private int reduceCursor;
+    private final BranchingHeuristic heuristic;
+    // watcher lists hold pairs (clause reference, blocker literal)
+    private IVec<IntVec> watches = new Vec<IntVec>();
+    private BooleanVec watchesDirty = new BooleanVec();
+    private IntVec dirtyWatches = new IntVec();
+    private IVec<IntVec> binWatches = new Vec<IntVec>();
+    // scratch clause holding the two literals of a falsified binary clause
+    private int binConflict = ca.alloc(new IntVec(2, 0), false);
     protected IntVec trail = new IntVec();
     protected IntVec trailLimits = new IntVec();
     private int rootLevel;
+    // true if the trail may hold literals below their level, see SearchParams.chrono_backtrack
+    private boolean chronoBacktrack;
     private int qhead = 0;
     protected BooleanVec seen = new BooleanVec();
+    // scratch buffers of conflict analysis, reused for every conflict
+    private IntVec learntClause = new IntVec();
+    private IntVec analyzeToClear = new IntVec();
+    private IntVec minimizeStack = new IntVec();
+    // marks of the recursive minimization by variable, see litRedundant()
+    private static final byte REMOVABLE = 1;
+    private static final byte POISONED = 2;
+    private byte[] minimizeMarks = new byte[0];
+    // decision levels of the learnt clause with the earliest trail position of its literals on them
+    private IntVec levelStamps = new IntVec(1, 0);
+    private IntVec levelFirstPos = new IntVec(1, 0);
+    private int levelStamp;
+    // trail positions by decision level of the literals to shrink, see shrinkLearntClause()
+    private long[] shrinkKeys = new long[16];
+    private int[] shrinkStamps = new int[0];
+    private int shrinkStamp;
     public SolverStats stats = new SolverStats();
-    private SearchParams params = new SearchParams();
-    private BooleanVec model = new BooleanVec();
+    private final SearchParams params;
+    protected BooleanVec model = new BooleanVec();
     protected IntVec conflict = new IntVec();
+    private IntVec assumptions = new IntVec();
     double learntsize_adjust_confl;
     int learntsize_adjust_cnt;
-    double learntsize_factor = 1.0 / 3.0;
-    double learntsize_inc = 1.1;
     int learntsize_adjust_start_confl = 100;
     double learntsize_adjust_inc = 1.5;
-    int restart_first = 100;
-    double restart_inc = 2.0;
-    double max_learnts;
+    private final RestartPolicy restarts;
+    private boolean stableMode;
+    private long modeStart;
+    private ClauseExchange exchange;
+    private IntVec imported = new IntVec();
+    private volatile boolean interruptRequested;
+    // limits of the search, -1 if unlimited
+    private long conflictBudget = -1;
+    private long propagationBudget = -1;
+    private long learntMemoryBudget = -1;
+    private long deadline = -1;
+    // proof output, see setProof()
+    private ProofWriter proof;
+    private boolean proofHints;
+    private long lastClauseId;
+    // ids of the unit clauses by literal, 0 if there is none; the level 0 trail has ids up to unitsWithIds
+    private long[] unitIds = new long[0];
+    private int unitsWithIds;
+    private LongLongMap binaryIds = new LongLongMap();
+    protected int[] trailPos = new int[0];
+    private int[] hintStamps = new int[0];
+    private int hintStamp;
+    private long[] hints = new long[16];
+    private int nHints;
+    private int[] hintPositions = new int[16];
+    private int nHintPositions;
+    private IntVec hintStack = new IntVec();
+    private IntVec proofLits = new IntVec();
+    private IntVec unitLits = new IntVec();
+    // LRAT: problem clauses simplified before the first solve call as pairs (clause, simplified clause) with the id
+    // of the clause, see recordDeferred()
+    private IVec<IntVec> deferred = new Vec<IntVec>();
+    private long[] deferredIds = new long[0];
+    private boolean solveCalled;
+    // model enumeration, see startEnumeration()
+    private static final int ENUM_OFF = 0;
+    private static final int ENUM_STARTED = 1;
+    private static final int ENUM_PAUSED = 2;
+    private static final int ENUM_MODEL = 3;
+    private static final int ENUM_DONE = 4;
+    // kinds of the decision levels in chronological enumeration
+    private static final int LEVEL_OTHER = 0;
+    private static final int LEVEL_UNFLIPPED = 1;
+    private static final int LEVEL_FLIPPED = 2;
+    // local search flips between two checks of the budget, see walk()
+    private static final int WALK_SLICE = 1 << 14;
+    private int enumState = ENUM_OFF;
+    // the number of enumerations started, see enumeration()
+    private int enumGeneration;
+    private boolean enumShrink;
+    private boolean enumChrono;
+    private int enumActivation;
+    private IntVec enumAssumptions = new IntVec();
+    // the projection and the representative variables of the projection
+    private IntVec enumProjection = new IntVec();
+    private IntVec enumVars = new IntVec();
+    private boolean[] enumProjected = new boolean[0];
+    private boolean[] enumForced = new boolean[0];
+    private int[] enumChosen = new int[0];
+    private int enumStamp;
+    private IntVec enumCube = new IntVec();
+    private IntVec enumBlocking = new IntVec();
+    private IntVec enumClause = new IntVec();
+    private IntVec enumLevels = new IntVec();
+    private int enumFlipLevel;
+    // conflicting blocking clause to be analyzed first by search()
+    private int pendingConflict = CREF_UNDEF;
+    // linear constraints, see addAtMost(): constraint c bounds the weighted literals at positions
+    // linStarts[c]..linStarts[c + 1] of linLits and linCoefs, sorted by descending coefficient
+    private IntVec linLits = new IntVec();
+    private long[] linCoefs = new long[0];
+    private IntVec linOwners = new IntVec();
+    private IntVec linStarts = new IntVec(1, 0);
+    private long[] linBounds = new long[0];
+    private IntVec linGuards = new IntVec();
+    // LBD of learnt constraints, 0 for added ones, and whether a learnt one was used in conflict analysis
+    private IntVec linLbds = new IntVec();
+    private BooleanVec linUsed = new BooleanVec();
+    // weight of the true literals of each constraint, summed up on assignment
+    private long[] linSums = new long[0];
+    // constraints by literal, 2 * k for the literal at position k and 2 * c + 1 for the guard of constraint c;
+    // null without constraints
+    private IVec<IntVec> linWatches;
+    // explanations of linear constraints, freed by purgeExplanations() once they are no reasons any more
+    private IntVec explanations = new IntVec();
+    private IntVec linClause = new IntVec();
+    // linear constraint which propagate() found conflicting, -1 if none
+    private int conflictLinear = -1;
+    // constraint derived by analyzeCuttingPlanes(): coefficients by literal and degree of the >= form
+    private long[] cpCoefs = new long[0];
+    private long cpDegree;
+    private IntVec cpVars = new IntVec();
+    private long[] cpKeys = new long[0];
+    // XOR constraints, see addXor(): constraint c is the parity of xorLits[xorStarts[c]..xorStarts[c + 1])
+    private IntVec xorLits = new IntVec();
+    private IntVec xorStarts = new IntVec(1, 0);
+    // true if constraints were added since the matrix was built
+    private boolean xorDirty;
+    // the matrix over the variables xorColumnVars, row r at xorMatrix[r * xorWords..], column xorColumns holds the
+    // right-hand sides
+    private long[] xorMatrix = new long[0];
+    private int xorRows;
+    private int xorColumns;
+    private int xorWords;
+    private IntVec xorColumnVars = new IntVec();
+    private int[] xorColumnOf = new int[0];
+    // basic column of each row, which occurs in no other row, and the watched other column, -1 if none
+    private int[] xorBasics = new int[0];
+    private int[] xorWatched = new int[0];
+    // assigned and true columns of the matrix
+    private long[] xorAssigned = new long[0];
+    private long[] xorTrue = new long[0];
+    // rows by the variables of their basic and watched columns; null without a matrix
+    private IVec<IntVec> xorWatches;
+    // copies of the rows which implied the variables, explained by reason()
+    private long[][] xorReasons = new long[0][];
+    private IntVec xorClause = new IntVec();
+
+    public MSJCoreProver() {
+        this(new VSIDSHeuristic());
+    }
+
+    /**
+     * Creates a prover which picks its decision variables with the given heuristic.
+     *
+     * @param heuristic a fresh branching heuristic, it must not be shared with another prover
+     */
+    public MSJCoreProver(BranchingHeuristic heuristic) {
+        this(heuristic, new ModeSwitchingRestartPolicy());
+    }
+
+    /**
+     * Creates a prover with the given branching heuristic and restart policy.
+     *
+     * @param heuristic a fresh branching heuristic, it must not be shared with another prover
+     * @param restarts  a fresh restart policy, it must not be shared with another prover
+     */
+    public MSJCoreProver(BranchingHeuristic heuristic, RestartPolicy restarts) {
+        this(heuristic, restarts, new SearchParams());
+    }
+
+    /**
+     * Creates a prover with the given branching heuristic, restart policy and search parameters.  Provers with
+     * different seeds and initial phases search differently, see the portfolio solver.
+     *
+     * @param heuristic a fresh branching heuristic, it must not be shared with another prover
+     * @param restarts  a fresh restart policy, it must not be shared with another prover
+     * @param params    fresh search parameters, they must not be shared with another prover
+     */
+    public MSJCoreProver(BranchingHeuristic heuristic, RestartPolicy restarts, SearchParams params) {
+        this.heuristic = heuristic;
+        this.restarts = restarts;
+        this.params = params;
+        this.random = new Random(params.random_seed);
+    }
+
     ////////////////////////////////
     // Literal & variable helpers //
     ////////////////////////////////
     private final static int litUndef = -1;
+    private final static int CREF_UNDEF = MSJClauseArena.CREF_UNDEF;
 
     public static int mkLit(int var, boolean sign) {
         return var + var + (sign ? 1 : 0);
@@ -89,35 +307,117 @@ public class MSJCoreProver {
         return lit >> 1;
     }
 
-    protected MSJVariable v(int lit) {
-        return vars.get(lit >> 1);
+    /**
+     * A reason is either CREF_UNDEF, a clause reference or, for a binary clause, the encoding of the clause's other
+     * (false) literal as {@code -2 - lit}.  For linear constraint c it is {@code LINEAR_REASON + c} until
+     * {@link #reason(int)} replaces it by a clause.
+     */
+    protected static int binaryReason(int otherLit) {
+        return -2 - otherLit;
+    }
+
+    protected static boolean isBinaryReason(int reason) {
+        return reason < CREF_UNDEF;
+    }
+
+    protected static int binaryReasonLit(int reason) {
+        return -2 - reason;
     }
 
-    protected LBool value(int lit) {
-        return sign(lit) ? LBool.negate(v(lit).assignment()) : v(lit).assignment();
+    private final static int LINEAR_REASON = Integer.MIN_VALUE;
+
+    private static boolean isLinearReason(int reason) {
+        return reason < LINEAR_REASON + (1 << 30);
+    }
+
+    private final static int XOR_REASON = LINEAR_REASON + (1 << 30);
+
+    /**
+     * The assignment is kept per literal, so a literal's value is a single array load.
+     */
+    protected byte value(int lit) {
+        return assigns[lit];
     }
 
     //////////////////////////////////
     // Variable & clause management //
     //////////////////////////////////
     public int newVar() {
-        int index = vars.size();
-        MSJVariable newVar = new MSJVariable(index);
-        vars.push(newVar);
-        varHeap.insert(newVar);
-        watches.push(new Vec<MSJClause>());
-        watches.push(new Vec<MSJClause>());
+        int index = nVars++;
+        if (index == levels.length) {
+            int capacity = Math.max(16, index * 2);
+            assigns = Arrays.copyOf(assigns, 2 * capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+            polarity = Arrays.copyOf(polarity, capacity);
+            targetPhase = Arrays.copyOf(targetPhase, capacity);
+            bestPhase = Arrays.copyOf(bestPhase, capacity);
+            originalPhase = Arrays.copyOf(originalPhase, capacity);
+            reprs = Arrays.copyOf(reprs, capacity);
+            unitIds = Arrays.copyOf(unitIds, 2 * capacity);
+            trailPos = Arrays.copyOf(trailPos, capacity);
+            hintStamps = Arrays.copyOf(hintStamps, capacity);
+            minimizeMarks = Arrays.copyOf(minimizeMarks, capacity);
+            shrinkStamps = Arrays.copyOf(shrinkStamps, capacity);
+            cpCoefs = Arrays.copyOf(cpCoefs, 2 * capacity);
+            xorColumnOf = Arrays.copyOf(xorColumnOf, capacity);
+            xorReasons = Arrays.copyOf(xorReasons, capacity);
+        }
+        xorColumnOf[index] = -1;
+        assigns[index + index] = LBool.UNDEF;
+        assigns[index + index + 1] = LBool.UNDEF;
+        levels[index] = -1;
+        reasons[index] = CREF_UNDEF;
+        polarity[index] = params.initial_phase;
+        targetPhase[index] = params.initial_phase;
+        bestPhase[index] = params.initial_phase;
+        originalPhase[index] = params.initial_phase;
+        reprs[index] = mkLit(index, false);
+        heuristic.newVar(index);
+        watches.push(new IntVec());
+        watches.push(new IntVec());
+        watchesDirty.push(false);
+        watchesDirty.push(false);
+        binWatches.push(new IntVec());
+        binWatches.push(new IntVec());
+        if (linWatches != null) {
+            linWatches.push(new IntVec());
+            linWatches.push(new IntVec());
+        }
+        if (xorWatches != null) {
+            xorWatches.push(new IntVec());
+        }
         seen.push(false);
+        lbdStamps.push(0);
+        levelStamps.push(0);
+        levelFirstPos.push(0);
         return index;
     }
 
+    /**
+     * Adds a clause.  With a proof, problem clauses get the ids 1, 2, ... in the order they are added and learnt
+     * clauses are recorded with the hints collected during conflict analysis.
+     */
     public void newClause(IntVec clauseVec, boolean learnt) {
+        if (!learnt) {
+            stopEnumeration();
+        }
+        long id = ++lastClauseId;
         if (!ok) {
             return;
         }
+        if (learnt && proof != null) {
+            proof.add(id, clauseVec, hints, nHints);
+            nHints = 0;
+        }
         IntVec simplifiedLearnt = null;
         if (!learnt) {
             simplifiedLearnt = simplifyProblemClause(clauseVec);
+            if (proofHints && !solveCalled) {
+                deferReplace(id, clauseVec, simplifiedLearnt);
+            } else if (proof != null) {
+                id = proofReplace(id, clauseVec, simplifiedLearnt, false);
+            }
             if (simplifiedLearnt == null) {
                 return;
             }
@@ -126,19 +426,21 @@ public class MSJCoreProver {
         if (clause.size() == 0) {
             ok = false;
         } else if (clause.size() == 1) {
-            if (!enqueue(clause.get(0), null)) {
+            unitIds[clause.get(0)] = id;
+            if (!enqueue(clause.get(0), CREF_UNDEF)) {
                 ok = false;
             }
         } else if (clause.size() == 2) {
-            addBinaryClause(clause, learnt);
+            addBinaryClause(clause, learnt, id);
         } else {
-            addNAryClause(clause, learnt);
+            addNAryClause(clause, learnt, id);
         }
     }
 
     private IntVec simplifyProblemClause(IntVec clauseVec) {
         IntVec clause = new IntVec(clauseVec.size());
-        clauseVec.copyTo(clause);
+        for (int i = 0; i < clauseVec.size(); i++)
+            clause.push(repr(clauseVec.get(i)));
         clause.sortUnique();
         for (int i = 0; i < clause.size() - 1; i++)
             if (clause.get(i) == not(clause.get(i + 1))) {
@@ -157,496 +459,3647 @@ public class MSJCoreProver {
         return clause;
     }
 
-    private void addBinaryClause(IntVec clauseVec, boolean learnt) {
-        watches.get(not(clauseVec.get(0))).push(new MSJClause(1, clauseVec.get(1)));
-        watches.get(not(clauseVec.get(1))).push(new MSJClause(1, clauseVec.get(0)));
+    private void addBinaryClause(IntVec clauseVec, boolean learnt, long id) {
+        if (!proofHints || registerBinary(clauseVec, id)) {
+            binWatches.get(not(clauseVec.get(0))).push(clauseVec.get(1));
+            binWatches.get(not(clauseVec.get(1))).push(clauseVec.get(0));
+            stats.n_bin_clauses++;
+        }
         if (learnt) {
-            enqueue(clauseVec.get(0), new MSJClause(1, not(clauseVec.get(1))));
+            enqueue(clauseVec.get(0), binaryReason(clauseVec.get(1)),
+                    chronoBacktrack ? levels[var(clauseVec.get(1))] : decisionLevel());
             stats.learnts_literals += clauseVec.size();
         } else {
             stats.clauses_literals += clauseVec.size();
         }
-        stats.n_bin_clauses++;
     }
 
-    private void addNAryClause(IntVec clauseVec, boolean learnt) {
-        MSJClause clause = new MSJClause(learnt, clauseVec);
+    private void addNAryClause(IntVec clauseVec, boolean learnt, long id) {
+        int cref = ca.alloc(clauseVec, learnt);
+        if (proofHints) {
+            ca.setId(cref, id);
+        }
         if (learnt) {
             int sndMax = 1;
-            int max = v(clauseVec.get(1)).level();
+            int max = levels[var(clauseVec.get(1))];
             for (int i = 2; i < clauseVec.size(); i++)
-                if (v(clauseVec.get(i)).level() > max) {
-                    max = v(clauseVec.get(i)).level();
+                if (levels[var(clauseVec.get(i))] > max) {
+                    max = levels[var(clauseVec.get(i))];
                     sndMax = i;
                 }
-            clause.set(1, clauseVec.get(sndMax));
-            clause.set(sndMax, clauseVec.get(1));
-            claBumpActivity(clause);
-            enqueue(clause.get(0), clause);
-            learnts.push(clause);
-            stats.learnts_literals += clause.size();
+            ca.set(cref, 1, clauseVec.get(sndMax));
+            ca.set(cref, sndMax, clauseVec.get(1));
+            int lbd = computeLBD(cref);
+            ca.setLbd(cref, lbd);
+            if (lbd <= params.core_lbd) {
+                ca.setTier(cref, MSJClauseArena.CORE);
+                learntsCore.push(cref);
+            } else if (lbd <= params.tier2_lbd) {
+                ca.setTier(cref, MSJClauseArena.TIER2);
+                learntsTier2.push(cref);
+            } else {
+                ca.setTier(cref, MSJClauseArena.LOCAL);
+                learntsLocal.push(cref);
+                claBumpActivity(cref);
+            }
+            enqueue(ca.get(cref, 0), cref, chronoBacktrack ? levels[var(ca.get(cref, 1))] : decisionLevel());
+            stats.learnts_literals += clauseVec.size();
         } else {
-            clauses.push(clause);
-            stats.clauses_literals += clause.size();
+            clauses.push(cref);
+            stats.clauses_literals += clauseVec.size();
         }
-        watches.get(not(clause.get(0))).push(clause);
-        watches.get(not(clause.get(1))).push(clause);
+        watches.get(not(ca.get(cref, 0))).push(cref).push(ca.get(cref, 1));
+        watches.get(not(ca.get(cref, 1))).push(cref).push(ca.get(cref, 0));
     }
 
-    private void remove(MSJClause clause) {
-        if (clause.size() == 2) {
-            removeWatch(watches.get(not(clause.get(0))), new MSJClause(1, clause.get(1)));
-            removeWatch(watches.get(not(clause.get(1))), new MSJClause(1, clause.get(0)));
-        } else {
-            removeWatch(watches.get(not(clause.get(0))), clause);
-            removeWatch(watches.get(not(clause.get(1))), clause);
+    /**
+     * Removes a clause.  Its watchers are not removed immediately, instead both watcher lists are marked dirty and
+     * must be cleaned by {@link #cleanWatches()} before the next propagation.
+     */
+    private void remove(int cref) {
+        if (proof != null) {
+            proofDelete(cref);
         }
-        if (clause.learnt()) {
-            stats.learnts_literals -= clause.size();
+        detach(cref);
+    }
+
+    /**
+     * Removes a clause like {@link #remove(int)} without recording the deletion in the proof.
+     */
+    private void detach(int cref) {
+        smudgeWatches(not(ca.get(cref, 0)));
+        smudgeWatches(not(ca.get(cref, 1)));
+        if (ca.learnt(cref)) {
+            stats.learnts_literals -= ca.size(cref);
         } else {
-            stats.clauses_literals -= clause.size();
+            stats.clauses_literals -= ca.size(cref);
         }
+        if (locked(cref)) {
+            reasons[var(ca.get(cref, 0))] = CREF_UNDEF;
+        }
+        ca.free(cref);
     }
 
-    private boolean removeWatch(IVec<MSJClause> watches, MSJClause clause) {
-        if (watches.size() == 0) {
-            return false;
+    private void smudgeWatches(int lit) {
+        if (!watchesDirty.get(lit)) {
+            watchesDirty.set(lit, true);
+            dirtyWatches.push(lit);
         }
-        int j;
-        for (j = 0; !watches.get(j).equals(clause); j++)
-            assert (j < watches.size()) : "There was a problem removing a watcher";
-        for (; j < watches.size() - 1; j++)
-            watches.set(j, watches.get(j + 1));
-        watches.pop();
-        return true;
     }
 
-    private boolean locked(MSJClause clause) {
-        MSJClause r = v(clause.get(0)).reason();
-        if (r == null) {
-            return false;
+    private void cleanWatches() {
+        for (int d = 0; d < dirtyWatches.size(); d++) {
+            int lit = dirtyWatches.get(d);
+            IntVec ws = watches.get(lit);
+            int i, j;
+            for (i = j = 0; i < ws.size(); i += 2)
+                if (!ca.deleted(ws.get(i))) {
+                    ws.set(j++, ws.get(i));
+                    ws.set(j++, ws.get(i + 1));
+                }
+            ws.shrink(i - j);
+            watchesDirty.set(lit, false);
         }
-        return !r.isLit() && r == clause;
+        dirtyWatches.clear();
+    }
+
+    private boolean locked(int cref) {
+        return reasons[var(ca.get(cref, 0))] == cref;
     }
 
     /////////////////////////
     // Main CDCL functions //
     /////////////////////////
-    private LBool search(int nof_conflicts) {
+    private byte search() {
         if (!ok) {
             return LBool.FALSE;
         }
         stats.starts++;
-        int conflCount = 0;
         model.clear();
         while (true) {
-            MSJClause confl = propagate();
-            if (confl != null) {
+            int confl = pendingConflict;
+            if (confl != CREF_UNDEF) {
+                pendingConflict = CREF_UNDEF;
+                conflictLinear = -1;
+            } else {
+                confl = propagate();
+            }
+            if (confl != CREF_UNDEF) {
                 stats.conflicts++;
-                conflCount++;
-                IntVec learntClause = new IntVec();
+                learntClause.clear();
+                if (chronoBacktrack && backtrackToConflict(confl)) {
+                    continue;
+                }
                 if (decisionLevel() == rootLevel) {
+                    if (rootLevel == 0) {
+                        proofRefute(confl);
+                    }
                     analyzeFinal(confl, false);
                     return LBool.FALSE;
                 }
-                int backtrackLevel = analyze(confl, learntClause);
-                cancelUntil(backtrackLevel > rootLevel ? backtrackLevel : rootLevel);
-                newClause(learntClause, true);
-                if (learntClause.size() == 1) {
-                    v(learntClause.get(0)).setLevel(0);
+                if (enumChrono && decisionLevel() <= enumFlipLevel) {
+                    // both values of the flipped decision are done, backtrack chronologically
+                    if (!flipDecision(decisionLevel())) {
+                        return LBool.FALSE;
+                    }
+                    continue;
+                }
+                int backtrackLevel = -1;
+                if (conflictLinear != -1 && params.cutting_planes && !enumChrono) {
+                    backtrackLevel = analyzeCuttingPlanes(conflictLinear);
+                    if (backtrackLevel == -1) {
+                        stats.clausal_fallbacks++;
+                    }
+                }
+                boolean linear = backtrackLevel != -1;
+                int lbd;
+                if (linear) {
+                    for (int i = 0; i < cpVars.size(); i++)
+                        heuristic.bump(cpVars.get(i));
+                    lbd = linearLBD();
+                } else {
+                    backtrackLevel = analyze(confl, learntClause);
+                    if (proofHints) {
+                        collectHints(confl, -1, learntClause);
+                    }
+                    lbd = computeLBD(learntClause);
+                }
+                heuristic.conflict();
+                updatePhases();
+                restarts.conflict(lbd, trail.size());
+                if (restarts.stable() != stableMode) {
+                    switchMode();
+                }
+                int level = backtrackLevel > rootLevel ? backtrackLevel : rootLevel;
+                if (chronoBacktrack && decisionLevel() - level > params.chrono_threshold) {
+                    level = decisionLevel() - 1;
+                    stats.chrono_backtracks++;
+                }
+                // chronological enumeration must not jump over a flipped decision
+                cancelUntil(enumChrono && level < enumFlipLevel ? enumFlipLevel : level);
+                if (linear) {
+                    addLearntLinear(lbd);
+                } else {
+                    newClause(learntClause, true);
+                    if (learntClause.size() == 1) {
+                        levels[var(learntClause.get(0))] = 0;
+                    }
+                    if (exchange != null) {
+                        exchange.export(learntClause, lbd);
+                    }
+                }
+                if (explanations.size() > 2 * trail.size() + 100) {
+                    purgeExplanations();
                 }
                 claDecayActivity();
                 if (--learntsize_adjust_cnt == 0) {
                     learntsize_adjust_confl *= learntsize_adjust_inc;
                     learntsize_adjust_cnt = (int) learntsize_adjust_confl;
-                    max_learnts *= learntsize_inc;
                     if (params.log) {
-                        System.out.printf("| %9d | %7d %8d | %7d %7d %8d %7.1f |\n",
+                        System.out.printf("| %9d | %7d %8d | %7d %7d %7d %8d %7.1f |\n",
                                 (int) stats.conflicts,
                                 nClauses(),
                                 (int) stats.clauses_literals,
-                                (int) max_learnts, learnts.size(),
+                                learntsCore.size(), learntsTier2.size(), learntsLocal.size(),
                                 (int) stats.learnts_literals,
-                                (double) stats.learnts_literals / learnts.size());
+                                (double) stats.learnts_literals / nLearnts());
                     }
                 }
             } else {
-                if (nof_conflicts >= 0 && conflCount >= nof_conflicts) {
-                    cancelUntil(rootLevel);
+                if (!withinBudget()) {
+                    if (!enumChrono) {
+                        cancelUntil(rootLevel);
+                    }
+                    return LBool.UNDEF;
+                }
+                if (!enumChrono && restarts.shouldRestart()) {
+                    restarts.restarted();
+                    targetAssigned = 0;
+                    if (stats.conflicts >= nextRephase) {
+                        cancelUntil(rootLevel);
+                        rephase();
+                    } else {
+                        cancelUntil(reusedTrailLevel());
+                    }
                     return LBool.UNDEF;
                 }
                 if (decisionLevel() == 0) {
                     simplifyDB();
                 }
-                if (learnts.size() - trail.size() >= max_learnts) {
-                    reduceDB();
+                if (stats.conflicts >= nextTier2Reduce) {
+                    nextTier2Reduce = stats.conflicts + params.tier2_reduce_interval;
+                    reduceTier2();
+                }
+                if (stats.conflicts >= nextLocalReduce) {
+                    nextLocalReduce = stats.conflicts + params.local_reduce_interval;
+                    reduceLocal();
+                    if (linWatches != null) {
+                        reduceLinearLearnts();
+                    }
                 }
                 stats.decisions++;
-                if (stats.decisions % params.var_decay_rate == 0) {
-                    decayVarActivity();
+                int next = enumChrono ? pickProjectedLit() : -1;
+                boolean projected = next != -1;
+                if (!projected) {
+                    next = pickBranchLit();
                 }
-                int next = pickBranchLit();
                 if (next == -1) {
-                    for (int i = 0; i < vars.size(); i++)
-                        model.push(value(mkLit(i, false)) == LBool.TRUE);
+                    for (int i = 0; i < nVars; i++)
+                        model.push(value(repr(mkLit(i, false))) == LBool.TRUE);
+                    if (enumState != ENUM_OFF) {
+                        // the enumeration continues from this trail, see nextModel()
+                        recordModel();
+                        return LBool.TRUE;
+                    }
                     cancelUntil(rootLevel);
                     return LBool.TRUE;
                 }
                 assume(next);
+                if (enumChrono) {
+                    if (enumLevels.size() <= decisionLevel()) {
+                        enumLevels.growTo(decisionLevel() + 1, LEVEL_OTHER);
+                    }
+                    enumLevels.set(decisionLevel(), projected ? LEVEL_UNFLIPPED : LEVEL_OTHER);
+                }
             }
         }
     }
 
-    protected MSJClause propagate() {
-        MSJClause confl = null;
+    protected int propagate() {
+        int confl = CREF_UNDEF;
+        conflictLinear = -1;
         while (qhead < trail.size()) {
             stats.propagations++;
             stats.simpDBProps--;
             int propLit = trail.get(qhead++);
-            IVec<MSJClause> watchers = watches.get(propLit);
+            int false_lit = not(propLit);
+            IntVec implied = binWatches.get(propLit);
+            int level = chronoBacktrack ? levels[var(propLit)] : decisionLevel();
+            for (int k = 0; k < implied.size(); k++) {
+                int q = implied.get(k);
+                if (!enqueue(q, binaryReason(false_lit), level)) {
+                    if (decisionLevel() == 0) {
+                        ok = false;
+                    }
+                    ca.set(binConflict, 0, q);
+                    ca.set(binConflict, 1, false_lit);
+                    qhead = trail.size();
+                    return binConflict;
+                }
+            }
+            IntVec watchers = watches.get(propLit);
             int i = 0;
             int j = 0;
             while (i != watchers.size()) {
-                if (watchers.get(i).isLit()) {
-                    MSJClause unitClause = watchers.get(i);
-                    if (!enqueue(unitClause.lit(), new MSJClause(1, propLit))) {
-                        if (decisionLevel() == 0) {
-                            ok = false;
-                        }
-                        confl = new MSJClause(2);
-                        confl.set(1, not(propLit));
-                        confl.set(0, unitClause.lit());
-                        qhead = trail.size();
-                        while (i < watchers.size())
-                            watchers.set(j++, watchers.get(i++));
-                    } else {
-                        watchers.set(j++, watchers.get(i++));
-                    }
+                int cr = watchers.get(i);
+                int blocker = watchers.get(i + 1);
+                i += 2;
+                // Clause is satisfied by its blocker, no need to look at the clause itself.
+                if (value(blocker) == LBool.TRUE || cr == ignoredClause) {
+                    watchers.set(j++, cr);
+                    watchers.set(j++, blocker);
+                    continue;
+                }
+                // Make sure the false literal is data[1]:
+                if (ca.get(cr, 0) == false_lit) {
+                    ca.set(cr, 0, ca.get(cr, 1));
+                    ca.set(cr, 1, false_lit);
+                }
+                // If 0th watch is true, then clause is already satisfied.
+                int first = ca.get(cr, 0);
+                if (first != blocker && value(first) == LBool.TRUE) {
+                    watchers.set(j++, cr);
+                    watchers.set(j++, first);
                 } else {
-                    MSJClause c = watchers.get(i);
-                    i++;
-                    // Make sure the false literal is data[1]:
-                    int false_lit = not(propLit);
-                    if (c.get(0) == false_lit) {
-                        c.set(0, c.get(1));
-                        c.set(1, false_lit);
-                    }
-                    // If 0th watch is true, then clause is already satisfied.
-                    int first = c.get(0);
-                    if (value(first) == LBool.TRUE) {
-                        watchers.set(j++, c);
-                    } else {
-                        // Look for new watch:
-                        boolean foundWatch = false;
-                        for (int k = 2; k < c.size() && !foundWatch; k++)
-                            if (value(c.get(k)) != LBool.FALSE) {
-                                c.set(1, c.get(k));
-                                c.set(k, false_lit);
-                                watches.get(not(c.get(1))).push(c);
-                                foundWatch = true;
-                            }
-                        // Did not find watch -- clause is unit under assignment
-                        if (!foundWatch) {
-                            watchers.set(j++, c);
-                            if (!enqueue(first, c)) {
-                                if (decisionLevel() == 0) {
-                                    ok = false;
-                                }
-                                confl = c;
-                                qhead = trail.size();
-                                while (i < watchers.size())
-                                    watchers.set(j++, watchers.get(i++));
+                    // Look for new watch:
+                    boolean foundWatch = false;
+                    int size = ca.size(cr);
+                    for (int k = 2; k < size && !foundWatch; k++)
+                        if (value(ca.get(cr, k)) != LBool.FALSE) {
+                            ca.set(cr, 1, ca.get(cr, k));
+                            ca.set(cr, k, false_lit);
+                            watches.get(not(ca.get(cr, 1))).push(cr).push(first);
+                            foundWatch = true;
+                        }
+                    // Did not find watch -- clause is unit under assignment
+                    if (!foundWatch) {
+                        watchers.set(j++, cr);
+                        watchers.set(j++, first);
+                        if (!enqueue(first, cr, level < decisionLevel() ? implicationLevel(cr) : level)) {
+                            if (decisionLevel() == 0) {
+                                ok = false;
                             }
+                            confl = cr;
+                            qhead = trail.size();
+                            while (i < watchers.size())
+                                watchers.set(j++, watchers.get(i++));
                         }
                     }
                 }
             }
             watchers.shrink(i - j);
+            if (linWatches != null && confl == CREF_UNDEF) {
+                confl = propagateLinear(propLit);
+                if (confl != CREF_UNDEF) {
+                    if (decisionLevel() == 0) {
+                        ok = false;
+                    }
+                    qhead = trail.size();
+                }
+            }
+            if (xorWatches != null && confl == CREF_UNDEF) {
+                confl = propagateXor(propLit);
+                if (confl != CREF_UNDEF) {
+                    if (decisionLevel() == 0) {
+                        ok = false;
+                    }
+                    qhead = trail.size();
+                }
+            }
         }
         return confl;
     }
 
-    protected int analyze(MSJClause conflictClause, IntVec learntVec) {
-        MSJClause confl = conflictClause;
+    protected int analyze(int conflictClause, IntVec learntVec) {
+        int confl = conflictClause;
         int pathCounter = 0;
         int conflictLit = litUndef;
         learntVec.push(-1);
-        int backtrackLevel = 0;
         int index = trail.size() - 1;
-        MSJClause temp = new MSJClause(2);
         do {
-            if (confl.isLit()) {
-                temp.set(1, confl.lit());
-            }
-            MSJClause c = confl.isLit() ? temp : confl;
-            if (c.learnt()) {
-                claBumpActivity(c);
-            }
-            for (int j = (conflictLit == litUndef) ? 0 : 1; j < c.size(); j++) {
-                int q = c.get(j);
-                if (!seen.get(var(q)) && v(q).level() > 0) {
-                    v(q).bumpActivity();
-                    seen.set(var(q), true);
-                    if (v(q).level() == decisionLevel()) {
-                        pathCounter++;
-                    } else {
-                        learntVec.push(q);
-                        backtrackLevel = backtrackLevel > v(q).level() ? backtrackLevel : v(q).level();
-                    }
+            if (isBinaryReason(confl)) {
+                pathCounter += analyzeLit(binaryReasonLit(confl), learntVec);
+            } else {
+                if (ca.learnt(confl)) {
+                    updateLearnt(confl);
                 }
+                for (int j = (conflictLit == litUndef) ? 0 : 1; j < ca.size(confl); j++)
+                    pathCounter += analyzeLit(ca.get(confl, j), learntVec);
             }
-            while (!seen.get(var(trail.get(index--)))) ;
-            conflictLit = trail.get(index + 1);
-            confl = v(conflictLit).reason();
+            // after chronological backtracking, literals of lower levels may follow on the trail
+            while (!seen.get(var(trail.get(index))) || levels[var(trail.get(index))] != decisionLevel())
+                index--;
+            conflictLit = trail.get(index--);
+            confl = reason(var(conflictLit));
             seen.set(var(conflictLit), false);
             pathCounter--;
         } while (pathCounter > 0);
         learntVec.set(0, not(conflictLit));
         simplifyLearntClause(learntVec);
+        int backtrackLevel = 0;
+        for (int i = 1; i < learntVec.size(); i++)
+            backtrackLevel = backtrackLevel > levels[var(learntVec.get(i))] ? backtrackLevel : levels[var(learntVec.get(i))];
         return backtrackLevel;
     }
 
+    /**
+     * Visits literal {@code q} of a conflicting or reason clause during conflict analysis.
+     *
+     * @return 1 if {@code q} was assigned on the current decision level and not yet seen, 0 otherwise
+     */
+    private int analyzeLit(int q, IntVec learntVec) {
+        if (!seen.get(var(q)) && levels[var(q)] > 0) {
+            heuristic.bump(var(q));
+            seen.set(var(q), true);
+            if (levels[var(q)] == decisionLevel()) {
+                return 1;
+            }
+            learntVec.push(q);
+        }
+        return 0;
+    }
+
+    /**
+     * Removes redundant literals from a learnt clause: shrinks the literals of each lower level to their UIP,
+     * removes literals implied by the other literals of the clause and strengthens short clauses with the binary
+     * clauses of the asserting literal.  All buffers are reused from conflict to conflict.
+     */
     private void simplifyLearntClause(IntVec learntVec) {
         int i, j;
-        IntVec toClear = new IntVec();
+        stats.max_literals += learntVec.size();
+        analyzeToClear.clear();
+        learntVec.copyTo(analyzeToClear);
+        if (learntVec.size() >= params.shrink_min_size) {
+            shrinkLearntClause(learntVec);
+        }
         if (params.expensive_ccmin) {
-            int minLevel = 0;
-            for (i = 1; i < learntVec.size(); i++)
-                minLevel |= 1 << (v(learntVec.get(i)).level() & 31);
-            learntVec.copyTo(toClear);
+            levelStamp++;
+            for (i = 1; i < learntVec.size(); i++) {
+                int x = var(learntVec.get(i));
+                if (levelStamps.get(levels[x]) != levelStamp) {
+                    levelStamps.set(levels[x], levelStamp);
+                    levelFirstPos.set(levels[x], trailPos[x]);
+                } else if (trailPos[x] < levelFirstPos.get(levels[x])) {
+                    levelFirstPos.set(levels[x], trailPos[x]);
+                }
+            }
             for (i = j = 1; i < learntVec.size(); i++)
-                if (v(learntVec.get(i)).reason() == null || !analyzeRemovable(learntVec.get(i), minLevel, toClear)) {
+                if (reasons[var(learntVec.get(i))] == CREF_UNDEF || !litRedundant(learntVec.get(i))) {
                     learntVec.set(j++, learntVec.get(i));
                 }
         } else {
-            learntVec.copyTo(toClear);
             for (i = j = 1; i < learntVec.size(); i++) {
-                MSJClause r = v(learntVec.get(i)).reason();
-                if (r == null) {
+                int r = reason(var(learntVec.get(i)));
+                if (r == CREF_UNDEF) {
                     learntVec.set(j++, learntVec.get(i));
-                } else if (r.isLit()) {
-                    int q = r.lit();
-                    if (!seen.get(var(q)) && v(q).level() != 0) {
+                } else if (isBinaryReason(r)) {
+                    int q = binaryReasonLit(r);
+                    if (!seen.get(var(q)) && levels[var(q)] != 0) {
                         learntVec.set(j++, learntVec.get(i));
                     }
                 } else {
-                    MSJClause c = r;
-                    for (int k = 1; k < c.size(); k++)
-                        if (!seen.get(var(c.get(k))) && v(c.get(k)).level() != 0) {
+                    for (int k = 1; k < ca.size(r); k++)
+                        if (!seen.get(var(ca.get(r, k))) && levels[var(ca.get(r, k))] != 0) {
                             learntVec.set(j++, learntVec.get(i));
                             break;
                         }
                 }
             }
         }
-        stats.max_literals += learntVec.size();
         learntVec.shrink(i - j);
+        // the binary clauses are no reasons on the trail, so the LRAT hints could not justify their use
+        if (!proofHints && learntVec.size() > 1 && computeLBD(learntVec) <= params.binary_minimize_lbd) {
+            strengthenByBinaries(learntVec);
+        }
         stats.tot_literals += learntVec.size();
-        for (int l = 0; l < toClear.size(); l++)
-            seen.set(var(toClear.get(l)), false);
+        for (int l = 0; l < analyzeToClear.size(); l++) {
+            seen.set(var(analyzeToClear.get(l)), false);
+            minimizeMarks[var(analyzeToClear.get(l))] = 0;
+        }
     }
 
-    private boolean analyzeRemovable(int lit, int minLevel, IntVec toClear) {
-        IntVec stack = new IntVec();
-        stack.push(lit);
-        int top = toClear.size();
-        MSJClause temp = new MSJClause(2);
-        while (stack.size() > 0) {
-            assert (v(stack.last()).reason() != null);
-            MSJClause r = v(stack.last()).reason();
-            stack.pop();
-            if (r.isLit()) {
-                temp.set(1, r.lit());
-            }
-            MSJClause c = r.isLit() ? temp : r;
-            for (int i = 1; i < c.size(); i++) {
-                int p1 = c.get(i);
-                if (!seen.get(var(p1)) && v(p1).level() != 0) {
-                    if (v(p1).reason() != null && ((1 << (v(p1).level() & 31)) & minLevel) != 0) {
-                        seen.set(var(p1), true);
-                        stack.push(p1);
-                        toClear.push(p1);
-                    } else {
-                        for (int j = top; j < toClear.size(); j++)
-                            seen.set(var(toClear.get(j)), false);
-                        toClear.shrink(toClear.size() - top);
-                        return false;
+    /**
+     * Checks whether a literal of the learnt clause is implied by the other literals, i.e. whether all reason paths
+     * from it end in literals of the clause or of level 0.  The search is depth first with an explicit stack of
+     * literals and reason positions.  Literals found removable or not are marked, so later searches stop at them.
+     * A reason literal can only be implied by the clause if the clause has a literal of its level assigned before it.
+     */
+    private boolean litRedundant(int p) {
+        IntVec stack = minimizeStack;
+        stack.clear();
+        int r = reason(var(p));
+        int i = 1;
+        while (true) {
+            int size = isBinaryReason(r) ? 2 : ca.size(r);
+            if (i < size) {
+                int q = isBinaryReason(r) ? binaryReasonLit(r) : ca.get(r, i);
+                int x = var(q);
+                i++;
+                if (levels[x] == 0 || seen.get(x) || minimizeMarks[x] == REMOVABLE) {
+                    continue;
+                }
+                if (reasons[x] == CREF_UNDEF || minimizeMarks[x] == POISONED
+                        || levelStamps.get(levels[x]) != levelStamp || trailPos[x] < levelFirstPos.get(levels[x])) {
+                    markMinimized(p, POISONED);
+                    for (int k = 0; k < stack.size(); k += 2)
+                        markMinimized(stack.get(k), POISONED);
+                    return false;
+                }
+                stack.push(p);
+                stack.push(i);
+                p = q;
+                r = reason(x);
+                i = 1;
+            } else {
+                markMinimized(p, REMOVABLE);
+                if (stack.size() == 0) {
+                    return true;
+                }
+                i = stack.last();
+                stack.pop();
+                p = stack.last();
+                stack.pop();
+                r = reason(var(p));
+            }
+        }
+    }
+
+    private void markMinimized(int lit, byte mark) {
+        int x = var(lit);
+        if (!seen.get(x) && minimizeMarks[x] == 0) {
+            minimizeMarks[x] = mark;
+            analyzeToClear.push(lit);
+        }
+    }
+
+    /**
+     * Shrinks a learnt clause by all-UIP learning: the literals of each level below the asserting one are replaced by
+     * the negation of their first unique implication point, if the reasons between them contain only literals of
+     * that level, of level 0 or of the clause.
+     */
+    private void shrinkLearntClause(IntVec learntVec) {
+        int n = learntVec.size() - 1;
+        if (shrinkKeys.length < n) {
+            shrinkKeys = new long[2 * n];
+        }
+        for (int i = 0; i < n; i++) {
+            int x = var(learntVec.get(i + 1));
+            shrinkKeys[i] = ((long) levels[x] << 32) | trailPos[x];
+        }
+        Arrays.sort(shrinkKeys, 0, n);
+        int j = 1;
+        for (int start = 0; start < n; ) {
+            int level = (int) (shrinkKeys[start] >>> 32);
+            int end = start + 1;
+            while (end < n && (int) (shrinkKeys[end] >>> 32) == level)
+                end++;
+            int uip = end - start > 1 ? levelUIP(start, end, level) : litUndef;
+            if (uip != litUndef) {
+                learntVec.set(j++, not(uip));
+                if (!seen.get(var(uip))) {
+                    seen.set(var(uip), true);
+                    analyzeToClear.push(uip);
+                }
+                stats.shrunk_literals += end - start - 1;
+            } else {
+                for (int k = start; k < end; k++)
+                    learntVec.set(j++, not(trail.get((int) shrinkKeys[k])));
+            }
+            start = end;
+        }
+        learntVec.shrink(learntVec.size() - j);
+    }
+
+    /**
+     * Walks the trail back from the literals of the clause on the given level, given by {@code shrinkKeys[start]}
+     * to {@code shrinkKeys[end - 1]}, until a single open path remains.
+     *
+     * @return the literal assigned at the unique implication point or {@code litUndef} if none qualifies
+     */
+    private int levelUIP(int start, int end, int level) {
+        shrinkStamp++;
+        for (int k = start; k < end; k++)
+            shrinkStamps[var(trail.get((int) shrinkKeys[k]))] = shrinkStamp;
+        int open = end - start;
+        for (int pos = (int) shrinkKeys[end - 1]; ; pos--) {
+            int t = trail.get(pos);
+            if (shrinkStamps[var(t)] != shrinkStamp) {
+                continue;
+            }
+            if (--open == 0) {
+                return t;
+            }
+            int r = reason(var(t));
+            if (r == CREF_UNDEF) {
+                return litUndef;
+            }
+            int size = isBinaryReason(r) ? 2 : ca.size(r);
+            for (int k = 1; k < size; k++) {
+                int y = var(isBinaryReason(r) ? binaryReasonLit(r) : ca.get(r, k));
+                if (levels[y] == level) {
+                    if (shrinkStamps[y] != shrinkStamp) {
+                        shrinkStamps[y] = shrinkStamp;
+                        open++;
                     }
+                } else if (levels[y] != 0 && !seen.get(y)) {
+                    return litUndef;
                 }
             }
         }
-        return true;
     }
 
-    protected void analyzeFinal(MSJClause confl, boolean skipFirst) {
+    /**
+     * Removes every literal {@code l} from a learnt clause for which a binary clause of the asserting literal and
+     * {@code -l} exists, since resolving the clause with it yields the clause without {@code l}.
+     */
+    private void strengthenByBinaries(IntVec learntVec) {
+        IntVec implied = binWatches.get(not(learntVec.get(0)));
+        if (implied.size() == 0) {
+            return;
+        }
+        shrinkStamp++;
+        for (int i = 1; i < learntVec.size(); i++)
+            shrinkStamps[var(learntVec.get(i))] = shrinkStamp;
+        int removed = 0;
+        for (int k = 0; k < implied.size(); k++) {
+            int q = implied.get(k);
+            if (shrinkStamps[var(q)] == shrinkStamp && value(q) == LBool.TRUE) {
+                shrinkStamps[var(q)] = 0;
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            int j = 1;
+            for (int i = 1; i < learntVec.size(); i++)
+                if (shrinkStamps[var(learntVec.get(i))] == shrinkStamp) {
+                    learntVec.set(j++, learntVec.get(i));
+                }
+            learntVec.shrink(learntVec.size() - j);
+            stats.binary_minimized += removed;
+        }
+    }
+
+    protected void analyzeFinal(int confl, boolean skipFirst) {
         conflict.clear();
         if (rootLevel == 0) {
             return;
         }
-        for (int i = skipFirst ? 1 : 0; i < confl.size(); i++) {
-            int x = var(confl.get(i));
-            if (v(x).level() > 0) {
+        if (isBinaryReason(confl)) {
+            assert skipFirst;
+            int x = var(binaryReasonLit(confl));
+            if (levels[x] > 0) {
                 seen.set(x, true);
             }
+        } else {
+            for (int i = skipFirst ? 1 : 0; i < ca.size(confl); i++) {
+                int x = var(ca.get(confl, i));
+                if (levels[x] > 0) {
+                    seen.set(x, true);
+                }
+            }
         }
         int start = (rootLevel >= trailLimits.size()) ? trail.size() - 1 : trailLimits.get(rootLevel);
         for (int i = start; i >= trailLimits.get(0); i--) {
             int lit = trail.get(i);
             int var = var(lit);
             if (seen.get(var)) {
-                MSJClause r = v(var).reason();
-                if (r == null) {
-                    assert (v(var).level() > 0);
+                int r = reason(var);
+                if (r == CREF_UNDEF) {
+                    assert (levels[var] > 0);
                     conflict.push(not(trail.get(i)));
+                } else if (isBinaryReason(r)) {
+                    int p = binaryReasonLit(r);
+                    if (levels[var(p)] > 0) {
+                        seen.set(var(p), true);
+                    }
                 } else {
-                    if (r.isLit()) {
-                        int p = r.lit();
-                        if (v(var).level() > 0) {
-                            seen.set(var(p), true);
+                    for (int j = 1; j < ca.size(r); j++)
+                        if (levels[var(ca.get(r, j))] > 0) {
+                            seen.set(var(ca.get(r, j)), true);
                         }
-                    } else {
-                        MSJClause c = r;
-                        for (int j = 1; j < c.size(); j++)
-                            if (v(c.get(j)).level() > 0) {
-                                seen.set(var(c.get(j)), true);
-                            }
-                    }
                 }
                 seen.set(var, false);
             }
         }
     }
 
+    /**
+     * Backtracks to the given level.  Literals of this or lower levels which were assigned out of order after
+     * chronological backtracking stay assigned and are propagated again.
+     */
     protected void cancelUntil(int level) {
         if (decisionLevel() > level) {
-            for (int c = trail.size() - 1; c >= trailLimits.get(level); c--) {
-                MSJVariable var = v(trail.get(c));
-                var.assign(LBool.UNDEF);
-                var.setReason(null);
-                var.setPolarity(sign(trail.get(c)));
-                if (varHeap.find(var) == -1) {
-                    varHeap.insert(var);
+            int limit = trailLimits.get(level);
+            int kept = 0;
+            for (int c = trail.size() - 1; c >= limit; c--) {
+                int lit = trail.get(c);
+                int x = var(lit);
+                if (chronoBacktrack && levels[x] <= level) {
+                    kept++;
+                    continue;
+                }
+                assigns[lit] = LBool.UNDEF;
+                assigns[not(lit)] = LBool.UNDEF;
+                reasons[x] = CREF_UNDEF;
+                polarity[x] = sign(lit);
+                heuristic.unassigned(x);
+                if (linWatches != null) {
+                    sumLinear(lit, -1);
+                }
+                if (xorWatches != null) {
+                    assignXor(lit, false);
+                }
+            }
+            int j = limit;
+            for (int c = limit; kept > 0 && c < trail.size(); c++) {
+                int lit = trail.get(c);
+                if (assigns[lit] == LBool.TRUE) {
+                    trailPos[var(lit)] = j;
+                    trail.set(j++, lit);
+                    kept--;
                 }
             }
-            trail.shrink(trail.size() - trailLimits.get(level));
+            trail.shrink(trail.size() - j);
             trailLimits.shrink(trailLimits.size() - level);
-            qhead = trail.size();
+            qhead = Math.min(qhead, limit);
         }
     }
 
-    private int pickBranchLit() {
-        while (!varHeap.isEmpty()) {
-            MSJVariable next = varHeap.heapExtractMax();
-            if (next.assignment() == LBool.UNDEF) {
-                return mkLit(next.num(), next.polarity());
-            }
+    /**
+     * Returns the level a restart backtracks to: the decisions up to it are preferred by the heuristic over the best
+     * unassigned variable, so the search would make them again in the same order.
+     */
+    private int reusedTrailLevel() {
+        if (!params.reuse_trail) {
+            return rootLevel;
         }
-        return -1;
+        int next = heuristic.peekVar(assigns);
+        if (next == -1) {
+            return decisionLevel();
+        }
+        int level = rootLevel;
+        while (level < decisionLevel() && heuristic.prefers(var(trail.get(trailLimits.get(level))), next))
+            level++;
+        if (level > rootLevel) {
+            stats.reused_trails++;
+        }
+        return level;
     }
 
-    protected boolean assume(int lit) {
-        trailLimits.push(trail.size());
-        return enqueue(lit, null);
+    /**
+     * Returns the level on which a clause implies its first literal, i.e. the highest level of its other literals.
+     */
+    private int implicationLevel(int cref) {
+        int level = 0;
+        for (int k = 1; k < ca.size(cref); k++)
+            level = Math.max(level, levels[var(ca.get(cref, k))]);
+        return level;
     }
 
-    protected boolean enqueue(int lit, MSJClause reason) {
-        if (value(lit) != LBool.UNDEF) {
-            return value(lit) != LBool.FALSE;
+    /**
+     * After chronological backtracking, a clause may be falsified below the current level.  Backtracks to the highest
+     * level of the conflicting clause.  If the clause has a single literal there, the clause is no conflict but a
+     * missed reason for the negation of this literal on a lower level, in which case the prover backtracks below the
+     * literal and assigns it.  Otherwise the conflict is analyzed as usual.
+     *
+     * @return true if a missed implication was assigned
+     */
+    private boolean backtrackToConflict(int confl) {
+        int level = 0;
+        int sndLevel = 0;
+        int count = 0;
+        int index = -1;
+        for (int i = 0; i < ca.size(confl); i++) {
+            int l = levels[var(ca.get(confl, i))];
+            if (l > level) {
+                sndLevel = level;
+                level = l;
+                count = 1;
+                index = i;
+            } else if (l == level) {
+                sndLevel = level;
+                count++;
+            } else if (l > sndLevel) {
+                sndLevel = l;
+            }
+        }
+        if (level == 0) {
+            ok = false;
+        }
+        if (level < decisionLevel()) {
+            cancelUntil(level > rootLevel ? level : rootLevel);
+        }
+        // the implied literal must be watched, see propagate(), and chronological enumeration must flip the decision
+        // of a refuted flipped level instead
+        if (count != 1 || level <= rootLevel || index > 1 || enumChrono && level <= enumFlipLevel) {
+            return false;
+        }
+        int lit = ca.get(confl, index);
+        int other = ca.get(confl, 1 - index);
+        cancelUntil(level - 1);
+        if (confl == binConflict) {
+            enqueue(lit, binaryReason(other), sndLevel);
         } else {
-            MSJVariable var = v(lit);
-            var.assign(LBool.fromBool(!sign(lit)));
-            var.setLevel(decisionLevel());
-            var.setReason(reason);
-            trail.push(lit);
-            return true;
+            ca.set(confl, 0, lit);
+            ca.set(confl, 1, other);
+            enqueue(lit, confl, sndLevel);
         }
+        return true;
     }
 
-    //////////////////////////////////////////
-    // Clause DB Simplification & Reduction //
-    //////////////////////////////////////////
-    private void reduceDB() {
-        int i, j;
-        double limit = params.cla_inc / learnts.size();
-        learnts.sort(MSJClause.comp);
-        for (i = j = 0; i < learnts.size() / 2; i++)
-            if (learnts.get(i).size() > 2 && !locked(learnts.get(i))) {
-                remove(learnts.get(i));
-            } else {
-                learnts.set(j++, learnts.get(i));
-            }
-        for (; i < learnts.size(); i++)
-            if (learnts.get(i).size() > 2 && !locked(learnts.get(i)) && learnts.get(i).activity() < limit) {
-                remove(learnts.get(i));
-            } else {
-                learnts.set(j++, learnts.get(i));
-            }
-        learnts.shrink(i - j);
+    private int pickBranchLit() {
+        int next = heuristic.nextVar(assigns);
+        if (next == -1) {
+            return -1;
+        }
+        return mkLit(next, stableMode ? targetPhase[next] : polarity[next]);
     }
 
-    private void simplifyDB() {
-        if (!ok) {
-            return;
+    /**
+     * Sets the initial phase of a variable, i.e. the value tried first when branching on it.  Seeding the phases
+     * with a model of a similar formula lets the prover start its search close to a solution.
+     *
+     * @param var   the variable
+     * @param phase the sign of the literal to try first
+     */
+    public void setPhase(int var, boolean phase) {
+        originalPhase[var] = phase;
+        polarity[var] = phase;
+        targetPhase[var] = phase;
+        bestPhase[var] = phase;
+    }
+
+    /**
+     * Records the phases of the conflict-free part of the trail, i.e. everything assigned before the conflict
+     * level, if it is longer than the target or best trail seen so far.
+     */
+    private void updatePhases() {
+        int assigned = trailLimits.get(decisionLevel() - 1);
+        if (assigned > targetAssigned) {
+            targetAssigned = assigned;
+            for (int i = 0; i < assigned; i++)
+                targetPhase[var(trail.get(i))] = sign(trail.get(i));
         }
-        if (propagate() != null) {
-            ok = false;
-            return;
+        if (assigned > bestAssigned) {
+            bestAssigned = assigned;
+            for (int i = 0; i < assigned; i++)
+                bestPhase[var(trail.get(i))] = sign(trail.get(i));
         }
-        if (trail.size() == stats.simpDBAssigns || stats.simpDBProps > 0) {
-            return;
+    }
+
+    /**
+     * Resets saved and target phases following the rephasing schedule.  Must be called at the root level.
+     */
+    private void rephase() {
+        Rephase[] schedule = Rephase.SCHEDULE;
+        int index = rephaseCount < schedule.length ? rephaseCount
+                : Rephase.SCHEDULE_REPEAT + (rephaseCount - Rephase.SCHEDULE_REPEAT) % (schedule.length - Rephase.SCHEDULE_REPEAT);
+        rephaseCount++;
+        nextRephase = stats.conflicts + (long) params.rephase_interval * rephaseCount;
+        switch (schedule[index]) {
+            case ORIGINAL:
+                System.arraycopy(originalPhase, 0, polarity, 0, nVars);
+                break;
+            case INVERTED:
+                for (int v = 0; v < nVars; v++)
+                    polarity[v] = !originalPhase[v];
+                break;
+            case BEST:
+                System.arraycopy(bestPhase, 0, polarity, 0, nVars);
+                break;
+            case RANDOM:
+                for (int v = 0; v < nVars; v++)
+                    polarity[v] = random.nextBoolean();
+                break;
+            case WALK:
+                System.arraycopy(bestPhase, 0, polarity, 0, nVars);
+                walk();
+                break;
         }
-        for (int i = stats.simpDBAssigns; i < trail.size(); i++) {
-            int p = trail.get(i);
-            IVec<MSJClause> watchers = watches.get(not(p));
-            for (int j = 0; j < watchers.size(); j++)
-                if (watchers.get(j).isLit()) {
-                    if (removeWatch(this.watches.get(not(watchers.get(j).lit())), new MSJClause(1, p))) {
-                        stats.n_bin_clauses--;
-                    }
-                }
-            this.watches.get(p).clear();
-            this.watches.get(not(p)).clear();
+        System.arraycopy(polarity, 0, targetPhase, 0, nVars);
+        targetAssigned = 0;
+        bestAssigned = 0;
+        stats.rephased++;
+    }
+
+    /**
+     * Improves the saved phases with a bounded local search over the clauses not satisfied at the root level.  The
+     * flips are bounded by a fraction of the propagations the search spent since the last walk, but at least by a
+     * number of flips per clause.  The search runs in slices between which the budget and interruption are checked,
+     * and stops once all clauses are satisfied.
+     */
+    private void walk() {
+        PhaseWalker walker = new PhaseWalker(nVars, random);
+        IntVec reduced = new IntVec();
+        for (int i = 0; i < clauses.size(); i++) {
+            int cr = clauses.get(i);
+            if (!reduceAtRoot(cr, reduced)) {
+                walker.addClause(reduced);
+            }
         }
-        // Remove satisfied clauses:
-        for (int type = 0; type < 2; type++) {
-            IVec<MSJClause> cs = type == 1 ? learnts : clauses;
-            int j = 0;
-            for (int i = 0; i < cs.size(); i++) {
-                if (!locked(cs.get(i)) && canBeSimplified(cs.get(i))) {
-                    remove(cs.get(i));
-                } else {
-                    cs.set(j++, cs.get(i));
+        for (int p = 0; p < 2 * nVars; p++) {
+            IntVec implied = binWatches.get(p);
+            for (int k = 0; k < implied.size(); k++) {
+                // each binary clause (-p, q) appears in the lists of p and -q, take it once
+                int q = implied.get(k);
+                if (not(p) < q && value(not(p)) == LBool.UNDEF && value(q) == LBool.UNDEF) {
+                    reduced.clear();
+                    reduced.push(not(p));
+                    reduced.push(q);
+                    walker.addClause(reduced);
                 }
             }
-            cs.shrink(cs.size() - j);
         }
-        stats.simpDBAssigns = trail.size();
-        stats.simpDBProps = stats.clauses_literals + stats.learnts_literals;
+        for (int i = 0; i < trail.size(); i++)
+            polarity[var(trail.get(i))] = sign(trail.get(i));
+        walker.start(polarity);
+        long maxFlips = Math.max((long) params.walk_effort * (walker.nClauses() + 1),
+                (long) (params.walk_rel_effort * (stats.propagations - walkProps)));
+        walkProps = stats.propagations;
+        int unsat = walker.nClauses();
+        while (unsat > 0 && walker.flips() < maxFlips && withinBudget())
+            unsat = walker.walk(Math.min(WALK_SLICE, maxFlips - walker.flips()));
+        walker.best(polarity);
+        stats.walk_flips += walker.flips();
     }
 
-    private boolean canBeSimplified(MSJClause c) {
-        for (int i = 0; i < c.size(); i++) {
-            if (value(c.get(i)) == LBool.TRUE) {
+    /**
+     * Copies the literals of a clause which are unassigned at the root level into the given vector.
+     *
+     * @return true if the clause is satisfied at the root level
+     */
+    private boolean reduceAtRoot(int cr, IntVec reduced) {
+        reduced.clear();
+        for (int j = 0; j < ca.size(cr); j++) {
+            int lit = ca.get(cr, j);
+            if (value(lit) == LBool.TRUE) {
                 return true;
+            } else if (value(lit) == LBool.UNDEF) {
+                reduced.push(lit);
             }
         }
         return false;
     }
 
-    ////////////////
-    // Activities //
-    ////////////////
-    private void decayVarActivity() {
-        for (int i = 1; i < vars.size(); i++) {
-            MSJVariable var = vars.get(i);
-            var.decayActivity(params.var_decay);
+    protected boolean assume(int lit) {
+        trailLimits.push(trail.size());
+        return enqueue(lit, CREF_UNDEF);
+    }
+
+    protected boolean enqueue(int lit, int reason) {
+        return enqueue(lit, reason, decisionLevel());
+    }
+
+    /**
+     * Assigns a literal on the given level, which is below the current level if the reason has no literal of the
+     * current level after chronological backtracking.
+     */
+    private boolean enqueue(int lit, int reason, int level) {
+        if (assigns[lit] != LBool.UNDEF) {
+            return assigns[lit] != LBool.FALSE;
+        } else {
+            assigns[lit] = LBool.TRUE;
+            assigns[not(lit)] = LBool.FALSE;
+            levels[var(lit)] = level;
+            reasons[var(lit)] = reason;
+            trailPos[var(lit)] = trail.size();
+            trail.push(lit);
+            heuristic.assigned(var(lit));
+            if (linWatches != null) {
+                sumLinear(lit, 1);
+            }
+            if (xorWatches != null) {
+                assignXor(lit, true);
+            }
+            return true;
+        }
+    }
+
+    //////////////////////////////////////////
+    // Clause DB Simplification & Reduction //
+    //////////////////////////////////////////
+    /**
+     * Updates a learnt clause taking part in conflict analysis: marks it used, recomputes its LBD and promotes it to
+     * a better tier if the LBD dropped far enough.
+     */
+    private void updateLearnt(int cref) {
+        ca.setUsed(cref, true);
+        int tier = ca.tier(cref);
+        if (tier != MSJClauseArena.CORE) {
+            int lbd = computeLBD(cref);
+            if (lbd < ca.lbd(cref)) {
+                ca.setLbd(cref, lbd);
+                if (lbd <= params.core_lbd) {
+                    ca.setTier(cref, MSJClauseArena.CORE);
+                } else if (lbd <= params.tier2_lbd && tier == MSJClauseArena.LOCAL) {
+                    ca.setTier(cref, MSJClauseArena.TIER2);
+                }
+            }
+        }
+        if (ca.tier(cref) == MSJClauseArena.LOCAL) {
+            claBumpActivity(cref);
+        }
+    }
+
+    /**
+     * @return the number of distinct decision levels among the literals of the assigned clause
+     */
+    private int computeLBD(IntVec clause) {
+        lbdStamp++;
+        int lbd = 0;
+        for (int i = 0; i < clause.size(); i++) {
+            int level = levels[var(clause.get(i))];
+            if (lbdStamps.get(level) != lbdStamp) {
+                lbdStamps.set(level, lbdStamp);
+                lbd++;
+            }
+        }
+        return lbd;
+    }
+
+    /**
+     * @return the number of distinct decision levels among the literals of the clause
+     */
+    private int computeLBD(int cref) {
+        lbdStamp++;
+        int lbd = 0;
+        boolean unassigned = false;
+        for (int i = 0; i < ca.size(cref); i++) {
+            int lit = ca.get(cref, i);
+            if (value(lit) == LBool.UNDEF) {
+                // a freshly learnt clause is added after backtracking, its asserting literal is on a level of its own
+                if (!unassigned) {
+                    unassigned = true;
+                    lbd++;
+                }
+                continue;
+            }
+            int level = levels[var(lit)];
+            if (lbdStamps.get(level) != lbdStamp) {
+                lbdStamps.set(level, lbdStamp);
+                lbd++;
+            }
+        }
+        return lbd;
+    }
+
+    /**
+     * Moves learnt clauses whose tier changed since the last call to the list of their new tier.
+     */
+    private void sortLearntsByTier() {
+        IntVec moved = new IntVec();
+        sortLearntsByTier(learntsCore, MSJClauseArena.CORE, moved);
+        sortLearntsByTier(learntsTier2, MSJClauseArena.TIER2, moved);
+        sortLearntsByTier(learntsLocal, MSJClauseArena.LOCAL, moved);
+        for (int i = 0; i < moved.size(); i++) {
+            int cr = moved.get(i);
+            learnts(ca.tier(cr)).push(cr);
+        }
+    }
+
+    private void sortLearntsByTier(IntVec cs, int tier, IntVec moved) {
+        int i, j;
+        for (i = j = 0; i < cs.size(); i++)
+            if (ca.tier(cs.get(i)) == tier) {
+                cs.set(j++, cs.get(i));
+            } else {
+                moved.push(cs.get(i));
+            }
+        cs.shrink(i - j);
+    }
+
+    private IntVec learnts(int tier) {
+        return tier == MSJClauseArena.CORE ? learntsCore : tier == MSJClauseArena.TIER2 ? learntsTier2 : learntsLocal;
+    }
+
+    /**
+     * Demotes tier 2 clauses which were not used since the last call to the local tier.
+     */
+    private void reduceTier2() {
+        sortLearntsByTier();
+        for (int i = 0; i < learntsTier2.size(); i++) {
+            int cr = learntsTier2.get(i);
+            if (!ca.used(cr) && !locked(cr)) {
+                ca.setTier(cr, MSJClauseArena.LOCAL);
+                ca.setActivity(cr, 0);
+                claBumpActivity(cr);
+            }
+            ca.setUsed(cr, false);
+        }
+        sortLearntsByTier();
+    }
+
+    /**
+     * Removes the less active half of the local tier.
+     */
+    private void reduceLocal() {
+        sortLearntsByTier();
+        sortByActivity(learntsLocal);
+        int i, j;
+        int limit = learntsLocal.size() / 2;
+        for (i = j = 0; i < learntsLocal.size(); i++) {
+            int cr = learntsLocal.get(i);
+            if (i < limit && !locked(cr)) {
+                remove(cr);
+            } else {
+                learntsLocal.set(j++, cr);
+            }
+        }
+        learntsLocal.shrink(i - j);
+        cleanWatches();
+        checkGarbage();
+    }
+
+    /**
+     * Sorts the given clause references by ascending activity.  Activities are non-negative floats, so their raw bits
+     * order like the values themselves and can be packed together with the position into one sort key.
+     */
+    private void sortByActivity(IntVec crefs) {
+        long[] keys = new long[crefs.size()];
+        for (int i = 0; i < crefs.size(); i++)
+            keys[i] = ((long) Float.floatToRawIntBits(ca.activity(crefs.get(i))) << 32) | i;
+        Arrays.sort(keys);
+        int[] sorted = new int[crefs.size()];
+        for (int i = 0; i < keys.length; i++)
+            sorted[i] = crefs.get((int) keys[i]);
+        for (int i = 0; i < sorted.length; i++)
+            crefs.set(i, sorted[i]);
+    }
+
+    private void simplifyDB() {
+        if (!ok) {
+            return;
+        }
+        int confl = propagate();
+        if (confl != CREF_UNDEF) {
+            ok = false;
+            proofRefute(confl);
+            return;
+        }
+        if (trail.size() == stats.simpDBAssigns || stats.simpDBProps > 0) {
+            return;
+        }
+        // Remove satisfied binary clauses:
+        int removedBinaries = 0;
+        for (int lit = 0; lit < binWatches.size(); lit++) {
+            IntVec implied = binWatches.get(lit);
+            if (value(lit) == LBool.FALSE) {
+                removedBinaries += implied.size();
+                if (proof != null) {
+                    for (int i = 0; i < implied.size(); i++)
+                        proofDeleteSatisfiedBinary(not(lit), implied.get(i));
+                }
+                implied.clear();
+                continue;
+            }
+            int j = 0;
+            for (int i = 0; i < implied.size(); i++)
+                if (value(implied.get(i)) == LBool.TRUE) {
+                    removedBinaries++;
+                    if (proof != null) {
+                        proofDeleteSatisfiedBinary(not(lit), implied.get(i));
+                    }
+                } else {
+                    implied.set(j++, implied.get(i));
+                }
+            implied.shrink(implied.size() - j);
+        }
+        stats.n_bin_clauses -= removedBinaries / 2;
+        if (linWatches != null) {
+            removeSatisfiedLinear();
+        }
+        // Remove satisfied clauses:
+        sortLearntsByTier();
+        for (int type = 0; type < 4; type++) {
+            IntVec cs = type == 0 ? clauses : learnts(type - 1);
+            int j = 0;
+            for (int i = 0; i < cs.size(); i++) {
+                if (canBeSimplified(cs.get(i))) {
+                    remove(cs.get(i));
+                } else {
+                    cs.set(j++, cs.get(i));
+                }
+            }
+            cs.shrink(cs.size() - j);
+        }
+        cleanWatches();
+        checkGarbage();
+        stats.simpDBAssigns = trail.size();
+        stats.simpDBProps = stats.clauses_literals + stats.learnts_literals;
+    }
+
+    private boolean canBeSimplified(int cref) {
+        for (int i = 0; i < ca.size(cref); i++) {
+            if (value(ca.get(cref, i)) == LBool.TRUE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //////////////////
+    // Inprocessing //
+    //////////////////
+
+    /**
+     * @return the literal which replaces the given one after equivalent literal substitution
+     */
+    protected int repr(int lit) {
+        return reprs[var(lit)] ^ (lit & 1);
+    }
+
+    /**
+     * Simplifies the clause database between two restarts.  The effort is bounded by a fraction of the propagations
+     * the search spent since the last call.  Must be called at level 0.
+     */
+    private void inprocess() {
+        assert decisionLevel() == 0;
+        long budget = Math.max(params.inprocess_min_effort,
+                (long) (params.inprocess_effort * (stats.propagations - inprocessProps)));
+        stats.inprocessings++;
+        simplifyDB();
+        if (ok) {
+            probe(budget / 4);
+        }
+        if (ok && !proofHints && enumState == ENUM_OFF && linWatches == null && xorStarts.size() == 1) {
+            substituteEquivalences();
+        }
+        if (ok) {
+            reduceTransitive(budget);
+        }
+        if (ok) {
+            vivify(budget / 2);
+        }
+        if (ok) {
+            checkGarbage();
+        }
+        inprocessCount++;
+        nextInprocess = stats.conflicts + (long) params.inprocess_interval * (inprocessCount + 1);
+        inprocessProps = stats.propagations;
+    }
+
+    /**
+     * Propagates the new units at level 0.
+     *
+     * @return false if the clauses became unsatisfiable
+     */
+    private boolean propagateRoot() {
+        if (ok) {
+            int confl = propagate();
+            if (confl != CREF_UNDEF) {
+                ok = false;
+                proofRefute(confl);
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Attaches a clause without assigning any literal.  The literals must be unassigned and distinct.
+     *
+     * @param id the proof id of the clause
+     */
+    private void attachClause(IntVec lits, boolean learnt, int lbd, long id) {
+        if (lits.size() == 0) {
+            ok = false;
+        } else if (lits.size() == 1) {
+            unitIds[lits.get(0)] = id;
+            enqueue(lits.get(0), CREF_UNDEF);
+        } else if (lits.size() == 2) {
+            if (!proofHints || registerBinary(lits, id)) {
+                binWatches.get(not(lits.get(0))).push(lits.get(1));
+                binWatches.get(not(lits.get(1))).push(lits.get(0));
+                stats.n_bin_clauses++;
+            }
+        } else {
+            int cref = ca.alloc(lits, learnt);
+            if (proofHints) {
+                ca.setId(cref, id);
+            }
+            if (learnt) {
+                ca.setLbd(cref, Math.min(lbd, lits.size() - 1));
+                int tier = ca.lbd(cref) <= params.core_lbd ? MSJClauseArena.CORE
+                        : ca.lbd(cref) <= params.tier2_lbd ? MSJClauseArena.TIER2 : MSJClauseArena.LOCAL;
+                ca.setTier(cref, tier);
+                learnts(tier).push(cref);
+                stats.learnts_literals += lits.size();
+            } else {
+                clauses.push(cref);
+                stats.clauses_literals += lits.size();
+            }
+            watches.get(not(ca.get(cref, 0))).push(cref).push(ca.get(cref, 1));
+            watches.get(not(ca.get(cref, 1))).push(cref).push(ca.get(cref, 0));
+        }
+    }
+
+    /**
+     * Failed literal probing: assumes the roots of the binary implication graph one by one.  If propagating a root
+     * leads to a conflict, its negation is a unit.
+     */
+    private void probe(long budget) {
+        long limit = stats.propagations + budget;
+        int nLits = 2 * nVars;
+        for (int k = 0; k < nLits && ok && stats.propagations < limit; k++) {
+            int p = probeCursor = (probeCursor + 1) % nLits;
+            if (value(p) != LBool.UNDEF || binWatches.get(p).size() == 0 || binWatches.get(not(p)).size() > 0) {
+                continue;
+            }
+            assume(p);
+            int confl = propagate();
+            if (confl != CREF_UNDEF && proofHints) {
+                proofLits.clear();
+                proofLits.push(not(p));
+                collectHints(confl, -1, proofLits);
+            }
+            cancelUntil(0);
+            if (confl != CREF_UNDEF) {
+                stats.failed_literals++;
+                if (proof != null) {
+                    proofLits.clear();
+                    proofLits.push(not(p));
+                    unitIds[not(p)] = proofAdd(proofLits);
+                }
+                enqueue(not(p), CREF_UNDEF);
+                propagateRoot();
+            }
+        }
+    }
+
+    /**
+     * Finds the strongly connected components of the binary implication graph with Tarjan's algorithm.  All literals
+     * of a component are equivalent and are replaced by the literal of the smallest variable.
+     *
+     * @return true if a new equivalence was found
+     */
+    private boolean findEquivalences() {
+        int nLits = 2 * nVars;
+        int[] index = new int[nLits];
+        int[] lowlink = new int[nLits];
+        boolean[] onStack = new boolean[nLits];
+        IntVec stack = new IntVec();
+        IntVec callStack = new IntVec();
+        int next = 1;
+        boolean found = false;
+        for (int root = 0; root < nLits; root++) {
+            if (index[root] != 0 || value(root) != LBool.UNDEF) {
+                continue;
+            }
+            // call stack entries are pairs (literal, position in its implication list)
+            callStack.push(root).push(0);
+            index[root] = lowlink[root] = next++;
+            stack.push(root);
+            onStack[root] = true;
+            while (callStack.size() > 0) {
+                int p = callStack.get(callStack.size() - 2);
+                int k = callStack.last();
+                IntVec implied = binWatches.get(p);
+                if (k < implied.size()) {
+                    callStack.set(callStack.size() - 1, k + 1);
+                    int q = implied.get(k);
+                    if (value(q) != LBool.UNDEF) {
+                        continue;
+                    }
+                    if (index[q] == 0) {
+                        index[q] = lowlink[q] = next++;
+                        stack.push(q);
+                        onStack[q] = true;
+                        callStack.push(q).push(0);
+                    } else if (onStack[q]) {
+                        lowlink[p] = Math.min(lowlink[p], index[q]);
+                    }
+                    continue;
+                }
+                callStack.shrink(2);
+                if (callStack.size() > 0) {
+                    int parent = callStack.get(callStack.size() - 2);
+                    lowlink[parent] = Math.min(lowlink[parent], lowlink[p]);
+                }
+                if (lowlink[p] != index[p]) {
+                    continue;
+                }
+                // p is the root of a component, take it off the stack
+                int first = stack.size() - 1;
+                while (stack.get(first) != p)
+                    first--;
+                int representative = p;
+                for (int i = first; i < stack.size(); i++)
+                    if (var(stack.get(i)) < var(representative)) {
+                        representative = stack.get(i);
+                    }
+                for (int i = first; i < stack.size(); i++) {
+                    int q = stack.get(i);
+                    onStack[q] = false;
+                    if (var(q) == var(representative) && q != representative) {
+                        // q and its negation are equivalent
+                        if (proof != null) {
+                            proofLits.clear();
+                            proofLits.push(not(q));
+                            proofAdd(proofLits);
+                            proofLits.clear();
+                            proofAdd(proofLits);
+                        }
+                        ok = false;
+                        return false;
+                    }
+                    // the component of the negated literals is handled by the same representative, negated
+                    if (q != representative && repr(q) == q) {
+                        reprs[var(q)] = representative ^ (q & 1);
+                        found = true;
+                    }
+                }
+                stack.shrink(stack.size() - first);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Replaces equivalent literals by their representatives in all clauses.
+     */
+    private void substituteEquivalences() {
+        if (!findEquivalences()) {
+            return;
+        }
+        // representatives may themselves have been replaced in this round
+        for (int v = 0; v < nVars; v++) {
+            int r = reprs[v];
+            while (reprs[var(r)] != mkLit(var(r), false))
+                r = reprs[var(r)] ^ (r & 1);
+            reprs[v] = r;
+        }
+        for (int v = 0; v < nVars; v++)
+            if (reprs[v] != mkLit(v, false)) {
+                stats.substituted++;
+            }
+        IVec<IntVec> rewritten = new Vec<IntVec>();
+        BooleanVec rewrittenLearnt = new BooleanVec();
+        IntVec rewrittenLbd = new IntVec();
+        // binary clauses are rebuilt from scratch
+        for (int p = 0; p < 2 * nVars; p++) {
+            IntVec implied = binWatches.get(p);
+            for (int k = 0; k < implied.size(); k++)
+                if (not(p) < implied.get(k)) {
+                    rewritten.push(new IntVec(new int[]{not(p), implied.get(k)}));
+                    rewrittenLearnt.push(false);
+                    rewrittenLbd.push(1);
+                }
+            implied.clear();
+        }
+        stats.n_bin_clauses = 0;
+        sortLearntsByTier();
+        for (int type = 0; type < 4; type++) {
+            IntVec cs = type == 0 ? clauses : learnts(type - 1);
+            int i, j;
+            for (i = j = 0; i < cs.size(); i++) {
+                int cr = cs.get(i);
+                boolean changed = false;
+                for (int k = 0; k < ca.size(cr) && !changed; k++)
+                    changed = repr(ca.get(cr, k)) != ca.get(cr, k);
+                if (changed) {
+                    IntVec lits = new IntVec(ca.size(cr));
+                    for (int k = 0; k < ca.size(cr); k++)
+                        lits.push(ca.get(cr, k));
+                    rewritten.push(lits);
+                    rewrittenLearnt.push(ca.learnt(cr));
+                    rewrittenLbd.push(ca.learnt(cr) ? ca.lbd(cr) : 0);
+                    // the deletion is recorded after the rewritten clause was added
+                    detach(cr);
+                } else {
+                    cs.set(j++, cr);
+                }
+            }
+            cs.shrink(i - j);
+        }
+        cleanWatches();
+        for (int i = 0; i < rewritten.size() && ok; i++) {
+            IntVec lits = simplifyProblemClause(rewritten.get(i));
+            if (proof != null) {
+                // binary clauses stay in the proof, they justify the substitution of later clauses
+                proofReplace(0, rewritten.get(i), lits, rewritten.get(i).size() == 2);
+            }
+            if (lits != null) {
+                attachClause(lits, rewrittenLearnt.get(i), rewrittenLbd.get(i), 0);
+            }
+        }
+        propagateRoot();
+    }
+
+    /**
+     * Removes binary clauses (-p, q) whose implication p -> q also follows from other binary clauses.
+     */
+    private void reduceTransitive(long budget) {
+        int nLits = 2 * nVars;
+        int[] stamps = new int[nLits];
+        int stamp = 0;
+        IntVec todo = new IntVec();
+        long steps = 0;
+        for (int n = 0; n < nLits && steps < budget; n++) {
+            int p = reduceCursor = (reduceCursor + 1) % nLits;
+            if (value(p) != LBool.UNDEF) {
+                continue;
+            }
+            IntVec implied = binWatches.get(p);
+            for (int k = 0; k < implied.size() && steps < budget; ) {
+                int q = implied.get(k);
+                // search q from the other successors of p
+                stamp++;
+                stamps[p] = stamp;
+                todo.clear();
+                for (int l = 0; l < implied.size(); l++)
+                    if (l != k && stamps[implied.get(l)] != stamp) {
+                        stamps[implied.get(l)] = stamp;
+                        todo.push(implied.get(l));
+                    }
+                boolean reached = false;
+                while (todo.size() > 0 && !reached && steps < budget) {
+                    int r = todo.last();
+                    todo.pop();
+                    reached = r == q;
+                    IntVec next = binWatches.get(r);
+                    for (int l = 0; l < next.size() && !reached; l++, steps++) {
+                        int s = next.get(l);
+                        if (stamps[s] != stamp) {
+                            stamps[s] = stamp;
+                            reached = s == q;
+                            todo.push(s);
+                        }
+                    }
+                }
+                if (reached) {
+                    if (proof != null) {
+                        proofDeleteBinary(not(p), q);
+                    }
+                    implied.delete(k);
+                    binWatches.get(not(q)).remove(not(p));
+                    stats.n_bin_clauses--;
+                    stats.transitive_reduced++;
+                } else {
+                    k++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Clause vivification: the literals of a clause are assumed false one after the other.  If this propagates a
+     * literal of the clause to true, or leads to a conflict, the clause can be shortened to the literals assumed so
+     * far; literals propagated to false are dropped.
+     */
+    private void vivify(long budget) {
+        long limit = stats.propagations + budget;
+        sortLearntsByTier();
+        IVec<IntVec> shortened = new Vec<IntVec>();
+        BooleanVec shortenedLearnt = new BooleanVec();
+        IntVec shortenedLbd = new IntVec();
+        long[] shortenedIds = new long[8];
+        IntVec lits = new IntVec();
+        for (int type = 0; type < 3 && ok; type++) {
+            IntVec cs = type == 0 ? learntsCore : type == 1 ? learntsTier2 : clauses;
+            int n = cs.size();
+            int removed = 0;
+            // continue where the last round stopped
+            for (int c = 0; c < n && stats.propagations < limit && ok; c++) {
+                int pos = (vivifyCursors[type] + c) % n;
+                int cr = cs.get(pos);
+                if (cr == CREF_UNDEF || locked(cr)) {
+                    continue;
+                }
+                int result = vivifyClause(cr, lits);
+                if (result != 0) {
+                    if (result == 1) {
+                        IntVec copy = new IntVec(lits.size());
+                        lits.copyTo(copy);
+                        if (shortened.size() == shortenedIds.length) {
+                            shortenedIds = Arrays.copyOf(shortenedIds, 2 * shortened.size());
+                        }
+                        shortenedIds[shortened.size()] = proof != null ? proofAdd(copy) : 0;
+                        shortened.push(copy);
+                        shortenedLearnt.push(ca.learnt(cr));
+                        shortenedLbd.push(ca.learnt(cr) ? ca.lbd(cr) : 0);
+                        stats.vivified++;
+                    }
+                    remove(cr);
+                    cleanWatches();
+                    cs.set(pos, CREF_UNDEF);
+                    removed++;
+                }
+                vivifyCursors[type] = pos + 1;
+            }
+            if (removed > 0) {
+                int i, j;
+                for (i = j = 0; i < cs.size(); i++)
+                    if (cs.get(i) != CREF_UNDEF) {
+                        cs.set(j++, cs.get(i));
+                    }
+                cs.shrink(i - j);
+            }
+        }
+        for (int i = 0; i < shortened.size() && ok; i++) {
+            IntVec clause = simplifyProblemClause(shortened.get(i));
+            long id = shortenedIds[i];
+            if (proof != null) {
+                id = proofReplace(id, shortened.get(i), clause, false);
+            }
+            if (clause != null) {
+                attachClause(clause, shortenedLearnt.get(i), shortenedLbd.get(i), id);
+                propagateRoot();
+            }
+        }
+    }
+
+    /**
+     * Vivifies a single clause at level 0.
+     *
+     * @param lits receives the shortened clause
+     * @return 0 if the clause stays, 1 if it is to be replaced by lits, 2 if it is satisfied and can be removed
+     */
+    private int vivifyClause(int cr, IntVec lits) {
+        lits.clear();
+        int size = ca.size(cr);
+        for (int k = 0; k < size; k++)
+            if (value(ca.get(cr, k)) == LBool.TRUE) {
+                return 2;
+            }
+        ignoredClause = cr;
+        // the clause the shortened clause follows from: a conflict, the reason of a true literal or the clause itself
+        int confl = cr;
+        int impliedVar = -1;
+        for (int k = 0; k < size; k++) {
+            int lit = ca.get(cr, k);
+            byte value = value(lit);
+            if (value == LBool.TRUE) {
+                lits.push(lit);
+                confl = CREF_UNDEF;
+                impliedVar = var(lit);
+                break;
+            } else if (value == LBool.UNDEF) {
+                lits.push(lit);
+                assume(not(lit));
+                int c = propagate();
+                if (c != CREF_UNDEF) {
+                    confl = c;
+                    break;
+                }
+            }
+        }
+        if (proofHints && lits.size() < size) {
+            collectHints(confl, impliedVar, lits);
+        }
+        cancelUntil(0);
+        ignoredClause = CREF_UNDEF;
+        return lits.size() < size ? 1 : 0;
+    }
+
+    ////////////////////////
+    // Linear constraints //
+    ////////////////////////
+
+    /**
+     * Adds the constraint that at most {@code bound} of the given literals are true.
+     *
+     * @param lits  the literals
+     * @param bound the bound
+     */
+    public void addAtMost(IntVec lits, int bound) {
+        addAtMost(lits, bound, litUndef);
+    }
+
+    /**
+     * Adds the constraint that at most {@code bound} of the given literals are true if the guard is true.
+     *
+     * @see #addAtMost(IntVec, long[], long, int)
+     */
+    public void addAtMost(IntVec lits, int bound, int guard) {
+        addAtMost(lits, unitCoefficients(lits.size()), bound, guard);
+    }
+
+    /**
+     * Adds the constraint that at least {@code bound} of the given literals are true.
+     *
+     * @param lits  the literals
+     * @param bound the bound
+     */
+    public void addAtLeast(IntVec lits, int bound) {
+        addAtLeast(lits, bound, litUndef);
+    }
+
+    /**
+     * Adds the constraint that at least {@code bound} of the given literals are true if the guard is true.
+     *
+     * @see #addAtMost(IntVec, long[], long, int)
+     */
+    public void addAtLeast(IntVec lits, int bound, int guard) {
+        addAtLeast(lits, unitCoefficients(lits.size()), bound, guard);
+    }
+
+    private static long[] unitCoefficients(int size) {
+        long[] coefs = new long[size];
+        Arrays.fill(coefs, 1);
+        return coefs;
+    }
+
+    /**
+     * Adds the linear constraint {@code coefs[0] * lits[0] + ... + coefs[n - 1] * lits[n - 1] <= bound}.
+     *
+     * @see #addAtMost(IntVec, long[], long, int)
+     */
+    public void addAtMost(IntVec lits, long[] coefs, long bound) {
+        addAtMost(lits, coefs, bound, litUndef);
+    }
+
+    /**
+     * Adds the linear constraint {@code coefs[0] * lits[0] + ... + coefs[n - 1] * lits[n - 1] >= bound}.
+     *
+     * @see #addAtMost(IntVec, long[], long, int)
+     */
+    public void addAtLeast(IntVec lits, long[] coefs, long bound) {
+        addAtLeast(lits, coefs, bound, litUndef);
+    }
+
+    /**
+     * Adds the linear constraint {@code coefs[0] * lits[0] + ... + coefs[n - 1] * lits[n - 1] >= bound} if the guard
+     * is true, as the constraint that the negated literals weigh at most the sum of the coefficients minus the bound.
+     *
+     * @see #addAtMost(IntVec, long[], long, int)
+     */
+    public void addAtLeast(IntVec lits, long[] coefs, long bound, int guard) {
+        IntVec negated = new IntVec(lits.size());
+        long sum = 0;
+        for (int i = 0; i < lits.size(); i++) {
+            negated.push(not(lits.get(i)));
+            sum = addExactly(sum, coefs[i]);
+        }
+        addAtMost(negated, coefs, sum - bound, guard);
+    }
+
+    /**
+     * Adds the linear constraint {@code coefs[0] * lits[0] + ... + coefs[n - 1] * lits[n - 1] <= bound} if the guard
+     * is true, a true literal counting as 1.  The constraint is normalized to positive coefficients over distinct
+     * variables, literals heavier than the bound become negated unit clauses and constraints which amount to a clause
+     * are added as clauses.  The others are kept natively: the coefficients of their true literals are summed up and
+     * once the slack left by the bound is smaller than the coefficient of an open literal, its negation is implied.
+     * The implications are explained by clauses only when conflict analysis needs them.
+     *
+     * @param lits  the literals, a variable may occur several times
+     * @param coefs the coefficients of the literals, negative ones are allowed
+     * @param bound the bound
+     * @param guard the literal which activates the constraint, -1 for an unconditional constraint
+     * @throws IllegalArgumentException if the guard occurs among the literals or the coefficients overflow
+     * @throws IllegalStateException    if a proof is written or clauses are shared
+     */
+    public void addAtMost(IntVec lits, long[] coefs, long bound, int guard) {
+        if (proof != null || exchange != null) {
+            throw new IllegalStateException("Linear constraints cannot be justified in a proof or shared");
+        }
+        for (int i = 0; guard != litUndef && i < lits.size(); i++)
+            if (var(lits.get(i)) == var(guard)) {
+                throw new IllegalArgumentException("The guard occurs in the linear constraint");
+            }
+        stopEnumeration();
+        if (!ok) {
+            return;
+        }
+        // sum up the coefficients per literal and remove the literals fixed at the root
+        shrinkStamp++;
+        IntVec reduced = new IntVec(lits.size());
+        for (int i = 0; i < lits.size(); i++) {
+            int p = repr(lits.get(i));
+            long coef = coefs[i];
+            if (coef < 0) {
+                p = not(p);
+                coef = addExactly(0, -coef);
+                bound = addExactly(bound, coef);
+            }
+            if (value(p) == LBool.TRUE) {
+                bound = addExactly(bound, -coef);
+            } else if (value(p) == LBool.UNDEF && coef > 0) {
+                if (shrinkStamps[var(p)] != shrinkStamp) {
+                    shrinkStamps[var(p)] = shrinkStamp;
+                    cpCoefs[p] = 0;
+                    cpCoefs[not(p)] = 0;
+                    reduced.push(mkLit(var(p), false));
+                }
+                cpCoefs[p] = addExactly(cpCoefs[p], coef);
+            }
+        }
+        // a literal and its negation count exactly their smaller coefficient together
+        int n = 0;
+        for (int i = 0; i < reduced.size(); i++) {
+            int p = reduced.get(i);
+            long both = Math.min(cpCoefs[p], cpCoefs[not(p)]);
+            bound -= both;
+            p = cpCoefs[p] > cpCoefs[not(p)] ? p : not(p);
+            cpCoefs[p] -= both;
+            if (cpCoefs[p] > 0) {
+                reduced.set(n++, p);
+            }
+        }
+        reduced.shrink(reduced.size() - n);
+        int g = guard == litUndef ? litUndef : repr(guard);
+        if (g != litUndef && value(g) == LBool.FALSE) {
+            return;
+        }
+        if (g != litUndef && value(g) == LBool.TRUE) {
+            g = litUndef;
+        }
+        IntVec clause = new IntVec();
+        if (bound < 0) {
+            if (g != litUndef) {
+                clause.push(not(g));
+            }
+            newClause(clause, false);
+            return;
+        }
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        n = 0;
+        for (int i = 0; i < reduced.size(); i++) {
+            int p = reduced.get(i);
+            if (cpCoefs[p] > bound) {
+                clause.clear();
+                clause.push(not(p));
+                if (g != litUndef) {
+                    clause.push(not(g));
+                }
+                newClause(clause, false);
+            } else {
+                reduced.set(n++, p);
+                sum = addExactly(sum, cpCoefs[p]);
+                min = Math.min(min, cpCoefs[p]);
+            }
+        }
+        reduced.shrink(reduced.size() - n);
+        if (sum <= bound) {
+            return;
+        }
+        if (sum - min <= bound) {
+            // only all literals together exceed the bound
+            clause.clear();
+            for (int i = 0; i < reduced.size(); i++)
+                clause.push(not(reduced.get(i)));
+            if (g != litUndef) {
+                clause.push(not(g));
+            }
+            newClause(clause, false);
+            return;
+        }
+        long[] weights = new long[reduced.size()];
+        for (int i = 0; i < reduced.size(); i++)
+            weights[i] = cpCoefs[reduced.get(i)];
+        insertLinear(reduced, weights, bound, g, 0);
+    }
+
+    private static long addExactly(long a, long b) {
+        if (b == Long.MIN_VALUE || (b > 0 ? a > Long.MAX_VALUE - b : a < Long.MIN_VALUE - b)) {
+            throw new IllegalArgumentException("The coefficients of the linear constraint are too large");
+        }
+        return a + b;
+    }
+
+    /**
+     * Stores a normalized linear constraint with its literals ordered by descending coefficient, so propagation can
+     * stop at the first literal which fits into the slack.  The sum of its true literals is taken from the current
+     * assignment.
+     *
+     * @param lbd 0 for a constraint of the problem, the LBD of a learnt constraint otherwise
+     * @return the number of the constraint
+     */
+    private int insertLinear(IntVec lits, long[] coefs, long bound, int guard, int lbd) {
+        if (linWatches == null) {
+            linWatches = new Vec<IntVec>();
+            for (int p = 0; p < 2 * nVars; p++)
+                linWatches.push(new IntVec());
+        }
+        int size = lits.size();
+        int c = linGuards.size();
+        if (linCoefs.length < linLits.size() + size) {
+            linCoefs = Arrays.copyOf(linCoefs, Math.max(2 * linCoefs.length, linLits.size() + size));
+        }
+        if (linBounds.length == c) {
+            linBounds = Arrays.copyOf(linBounds, Math.max(16, 2 * c));
+            linSums = Arrays.copyOf(linSums, linBounds.length);
+        }
+        // insertion sort into place, stable and without allocation; the coefficients are mostly equal
+        int start = linLits.size();
+        for (int i = 0; i < size; i++) {
+            int p = lits.get(i);
+            long coef = coefs[i];
+            int k = start + i;
+            linLits.push(p);
+            for (; k > start && linCoefs[k - 1] < coef; k--) {
+                linLits.set(k, linLits.get(k - 1));
+                linCoefs[k] = linCoefs[k - 1];
+            }
+            linLits.set(k, p);
+            linCoefs[k] = coef;
+        }
+        long sum = 0;
+        for (int k = start; k < start + size; k++) {
+            int p = linLits.get(k);
+            linOwners.push(c);
+            linWatches.get(p).push(2 * k);
+            if (value(p) == LBool.TRUE) {
+                sum += linCoefs[k];
+            }
+        }
+        linStarts.push(linLits.size());
+        linBounds[c] = bound;
+        linSums[c] = sum;
+        linGuards.push(guard);
+        linLbds.push(lbd);
+        linUsed.push(false);
+        if (guard != litUndef) {
+            linWatches.get(guard).push(2 * c + 1);
+        }
+        return c;
+    }
+
+    /**
+     * Updates the sums of the true literals of the linear constraints of a literal which was assigned or unassigned.
+     */
+    private void sumLinear(int lit, int sign) {
+        IntVec ws = linWatches.get(lit);
+        for (int i = 0; i < ws.size(); i++) {
+            int w = ws.get(i);
+            if ((w & 1) == 0) {
+                linSums[linOwners.get(w >> 1)] += sign * linCoefs[w >> 1];
+            }
+        }
+    }
+
+    /**
+     * Propagates the linear constraints of a literal which became true.
+     *
+     * @return the conflicting clause or {@code CREF_UNDEF}
+     */
+    private int propagateLinear(int propLit) {
+        IntVec ws = linWatches.get(propLit);
+        for (int i = 0; i < ws.size(); i++) {
+            int w = ws.get(i);
+            int confl = checkLinear((w & 1) == 0 ? linOwners.get(w >> 1) : w >> 1, propLit);
+            if (confl != CREF_UNDEF) {
+                return confl;
+            }
+        }
+        return CREF_UNDEF;
+    }
+
+    /**
+     * Checks a linear constraint after a literal became true, {@code litUndef} for none.  An active constraint implies
+     * the negations of its open literals which are heavier than its slack, one with a negative slack is conflicting
+     * or implies the negation of its guard.  The implications are explained later by {@link #reason(int)}.
+     *
+     * @return the conflicting clause or {@code CREF_UNDEF}
+     */
+    private int checkLinear(int c, int propLit) {
+        int guard = linGuards.get(c);
+        byte active = guard == litUndef ? LBool.TRUE : value(guard);
+        long slack = linBounds[c] - linSums[c];
+        int start = linStarts.get(c);
+        if (active == LBool.FALSE || slack >= linCoefs[start]) {
+            return CREF_UNDEF;
+        }
+        if (slack < 0) {
+            if (active == LBool.TRUE) {
+                conflictLinear = c;
+                return explainLinearConflict(c, propLit);
+            }
+            enqueue(not(guard), LINEAR_REASON + c, chronoBacktrack ? linearLevel(c) : decisionLevel());
+        } else if (active == LBool.TRUE) {
+            int level = chronoBacktrack ? linearLevel(c) : decisionLevel();
+            for (int k = start; k < linStarts.get(c + 1) && linCoefs[k] > slack; k++)
+                if (value(linLits.get(k)) == LBool.UNDEF) {
+                    enqueue(not(linLits.get(k)), LINEAR_REASON + c, level);
+                }
+        }
+        return CREF_UNDEF;
+    }
+
+    /**
+     * @return the highest level of the guard and the true literals of a linear constraint
+     */
+    private int linearLevel(int c) {
+        int guard = linGuards.get(c);
+        int level = guard == litUndef || value(guard) != LBool.TRUE ? 0 : levels[var(guard)];
+        for (int k = linStarts.get(c); k < linStarts.get(c + 1); k++)
+            if (value(linLits.get(k)) == LBool.TRUE) {
+                level = Math.max(level, levels[var(linLits.get(k))]);
+            }
+        return level;
+    }
+
+    private long linearCoefficient(int c, int lit) {
+        for (int k = linStarts.get(c); k < linStarts.get(c + 1); k++)
+            if (linLits.get(k) == lit) {
+                return linCoefs[k];
+            }
+        return 0;
+    }
+
+    /**
+     * Returns the reason of an assigned variable.  If it was implied by a linear constraint, the reason is built
+     * first: a clause of the implied literal and the negations of the guard and of the heaviest true literals of the
+     * constraint assigned before it which leave less slack than the coefficient of the implied literal.  The reason of
+     * a variable implied by an XOR constraint is built from the row which implied it, see {@link #explainXor(int)}.
+     */
+    private int reason(int x) {
+        int r = reasons[x];
+        if (isLinearReason(r)) {
+            int c = r - LINEAR_REASON;
+            int implied = mkLit(x, value(mkLit(x, false)) != LBool.TRUE);
+            int guard = linGuards.get(c);
+            long rest = linBounds[c];
+            IntVec lits = linClause;
+            lits.clear();
+            lits.push(implied);
+            if (guard != not(implied)) {
+                if (guard != litUndef) {
+                    lits.push(not(guard));
+                }
+                rest -= linearCoefficient(c, not(implied));
+            }
+            for (int k = linStarts.get(c); k < linStarts.get(c + 1) && rest >= 0; k++) {
+                int q = linLits.get(k);
+                if (value(q) == LBool.TRUE && trailPos[var(q)] < trailPos[x]) {
+                    lits.push(not(q));
+                    rest -= linCoefs[k];
+                }
+            }
+            linUsed.set(c, true);
+            r = ca.alloc(lits, false);
+            explanations.push(r);
+            reasons[x] = r;
+        } else if (r == XOR_REASON) {
+            r = explainXor(x);
+            explanations.push(r);
+            reasons[x] = r;
+        }
+        return r;
+    }
+
+    /**
+     * Builds the clause of a conflicting linear constraint from the negations of its guard and of the heaviest true
+     * literals exceeding the bound, the literal which became true among them.  The literal of the highest level comes
+     * first.
+     */
+    private int explainLinearConflict(int c, int propLit) {
+        IntVec lits = linClause;
+        lits.clear();
+        int guard = linGuards.get(c);
+        if (guard != litUndef) {
+            lits.push(not(guard));
+        }
+        long rest = linBounds[c];
+        if (propLit != guard && propLit != litUndef) {
+            lits.push(not(propLit));
+            rest -= linearCoefficient(c, propLit);
+        }
+        for (int k = linStarts.get(c); k < linStarts.get(c + 1) && rest >= 0; k++) {
+            int q = linLits.get(k);
+            if (q != propLit && value(q) == LBool.TRUE) {
+                lits.push(not(q));
+                rest -= linCoefs[k];
+            }
+        }
+        int max = 0;
+        for (int i = 1; i < lits.size(); i++)
+            if (levels[var(lits.get(i))] > levels[var(lits.get(max))]) {
+                max = i;
+            }
+        int first = lits.get(max);
+        lits.set(max, lits.get(0));
+        lits.set(0, first);
+        linUsed.set(c, true);
+        int cref = ca.alloc(lits, false);
+        explanations.push(cref);
+        return cref;
+    }
+
+    /**
+     * Frees the explanations of linear constraints which are no reasons any more.
+     */
+    private void purgeExplanations() {
+        int j = 0;
+        for (int i = 0; i < explanations.size(); i++) {
+            int cref = explanations.get(i);
+            if (locked(cref)) {
+                explanations.set(j++, cref);
+            } else {
+                ca.free(cref);
+            }
+        }
+        explanations.shrink(explanations.size() - j);
+    }
+
+    /**
+     * Removes the linear constraints which are satisfied at the root level, because their guard is false or because
+     * their literals which are not false weigh no more than the bound.
+     */
+    private void removeSatisfiedLinear() {
+        boolean[] removed = new boolean[linGuards.size()];
+        for (int c = 0; c < removed.length; c++)
+            removed[c] = satisfiedAtRoot(c);
+        removeLinear(removed);
+    }
+
+    private boolean satisfiedAtRoot(int c) {
+        int guard = linGuards.get(c);
+        if (guard != litUndef && value(guard) == LBool.FALSE && levels[var(guard)] == 0) {
+            return true;
+        }
+        long open = 0;
+        for (int k = linStarts.get(c); k < linStarts.get(c + 1); k++) {
+            int q = linLits.get(k);
+            if (value(q) != LBool.FALSE || levels[var(q)] != 0) {
+                open += linCoefs[k];
+            }
+        }
+        return open <= linBounds[c];
+    }
+
+    /**
+     * Removes the learnt linear constraints of an LBD above {@code core_lbd} which were not used in conflict analysis
+     * since the last reduction and are no reasons.
+     */
+    private void reduceLinearLearnts() {
+        boolean[] removed = new boolean[linGuards.size()];
+        for (int c = 0; c < removed.length; c++) {
+            removed[c] = linLbds.get(c) > params.core_lbd && !linUsed.get(c) && !linearLocked(c);
+            linUsed.set(c, false);
+        }
+        removeLinear(removed);
+    }
+
+    private boolean linearLocked(int c) {
+        int guard = linGuards.get(c);
+        if (guard != litUndef && value(guard) != LBool.UNDEF && reasons[var(guard)] == LINEAR_REASON + c) {
+            return true;
+        }
+        for (int k = linStarts.get(c); k < linStarts.get(c + 1); k++) {
+            int x = var(linLits.get(k));
+            if (value(linLits.get(k)) != LBool.UNDEF && reasons[x] == LINEAR_REASON + c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the given linear constraints and renumbers the others.  Implications of removed constraints on the
+     * trail are explained by clauses first.
+     */
+    private void removeLinear(boolean[] removed) {
+        int[] renumbered = new int[removed.length];
+        int n = 0;
+        for (int c = 0; c < removed.length; c++)
+            renumbered[c] = removed[c] ? -1 : n++;
+        if (n == removed.length) {
+            return;
+        }
+        for (int i = 0; i < trail.size(); i++) {
+            int x = var(trail.get(i));
+            if (isLinearReason(reasons[x])) {
+                int c = reasons[x] - LINEAR_REASON;
+                if (removed[c]) {
+                    reason(x);
+                } else {
+                    reasons[x] = LINEAR_REASON + renumbered[c];
+                }
+            }
+        }
+        for (int p = 0; p < linWatches.size(); p++)
+            linWatches.get(p).clear();
+        int pos = 0;
+        for (int c = 0; c < removed.length; c++) {
+            int start = linStarts.get(c);
+            int end = linStarts.get(c + 1);
+            if (removed[c]) {
+                continue;
+            }
+            int m = renumbered[c];
+            long sum = 0;
+            for (int k = start; k < end; k++) {
+                int q = linLits.get(k);
+                linLits.set(pos, q);
+                linCoefs[pos] = linCoefs[k];
+                linOwners.set(pos, m);
+                linWatches.get(q).push(2 * pos);
+                if (value(q) == LBool.TRUE) {
+                    sum += linCoefs[k];
+                }
+                pos++;
+            }
+            linStarts.set(m + 1, pos);
+            linBounds[m] = linBounds[c];
+            linSums[m] = sum;
+            linGuards.set(m, linGuards.get(c));
+            linLbds.set(m, linLbds.get(c));
+            linUsed.set(m, linUsed.get(c));
+            if (linGuards.get(m) != litUndef) {
+                linWatches.get(linGuards.get(m)).push(2 * m + 1);
+            }
+        }
+        linLits.shrink(linLits.size() - pos);
+        linOwners.shrink(linOwners.size() - pos);
+        linStarts.shrink(linStarts.size() - n - 1);
+        linGuards.shrink(linGuards.size() - n);
+        linLbds.shrink(linLbds.size() - n);
+        linUsed.shrink(linUsed.size() - n);
+    }
+
+    /**
+     * Learns a linear constraint from the conflicting linear constraint {@code c} by cutting planes, as in RoundingSAT.
+     * The constraints are read as {@code sum of coefficient * literal >= degree}.  The literals of the conflict level
+     * are resolved in reverse trail order until the derived constraint propagates on a lower level: the reason of
+     * each literal is weakened on its literals which were not false before and whose coefficients the coefficient of
+     * the literal does not divide, divided by that coefficient with rounding up, multiplied by the coefficient of the
+     * negated literal in the derived constraint and added to it.  The derived constraint is saturated after each step
+     * and ends up in {@code cpCoefs}, {@code cpDegree} and {@code cpVars}.
+     *
+     * @return the assertion level, or -1 if clause learning is cheaper because the derived constraint is a clause,
+     *         its coefficients overflow or it does not propagate
+     */
+    private int analyzeCuttingPlanes(int c) {
+        shrinkStamp++;
+        cpVars.clear();
+        cpDegree = 0;
+        int level = decisionLevel();
+        int index = trail.size() - 1;
+        boolean resolved = false;
+        try {
+            addLinearReason(c, litUndef, 1);
+            while (true) {
+                saturate();
+                int assertion = cpDegree > 0 ? assertionLevel(level) : -2;
+                if (assertion == -2) {
+                    return -1;
+                }
+                if (assertion >= 0) {
+                    // a constraint which was conflicting by itself only repeats the conflicting constraint
+                    for (int i = 0; i < cpVars.size(); i++) {
+                        int x = cpVars.get(i);
+                        if (cpCoefs[2 * x] > 0 && cpCoefs[2 * x] < cpDegree
+                                || cpCoefs[2 * x + 1] > 0 && cpCoefs[2 * x + 1] < cpDegree) {
+                            return resolved ? assertion : -1;
+                        }
+                    }
+                    return -1;
+                }
+                while (index >= 0 && (levels[var(trail.get(index))] != level
+                        || shrinkStamps[var(trail.get(index))] != shrinkStamp || cpCoefs[not(trail.get(index))] == 0))
+                    index--;
+                if (index < 0 || reasons[var(trail.get(index))] == CREF_UNDEF) {
+                    return -1;
+                }
+                int lit = trail.get(index--);
+                resolved = true;
+                long mult = cpCoefs[not(lit)];
+                int r = reasons[var(lit)];
+                if (!isLinearReason(r)) {
+                    r = reason(var(lit));
+                }
+                if (isLinearReason(r)) {
+                    addLinearReason(r - LINEAR_REASON, lit, mult);
+                } else if (isBinaryReason(r)) {
+                    cpDegree = Math.addExact(cpDegree, mult);
+                    addTerm(lit, mult);
+                    addTerm(binaryReasonLit(r), mult);
+                } else {
+                    if (ca.learnt(r)) {
+                        updateLearnt(r);
+                    }
+                    cpDegree = Math.addExact(cpDegree, mult);
+                    for (int i = 0; i < ca.size(r); i++)
+                        addTerm(ca.get(r, i), mult);
+                }
+            }
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Adds linear constraint {@code c}, read as {@code sum of coefficient * negated literal + degree * negated guard
+     * >= degree} with the sum of its coefficients minus its bound as degree, multiplied by {@code mult} to the derived
+     * constraint.  If {@code lit} is given, the constraint is its reason and is first weakened and divided such that
+     * {@code lit} gets the coefficient 1.
+     */
+    private void addLinearReason(int c, int lit, long mult) {
+        linUsed.set(c, true);
+        int start = linStarts.get(c);
+        int end = linStarts.get(c + 1);
+        int guard = linGuards.get(c);
+        long degree = -linBounds[c];
+        for (int k = start; k < end; k++)
+            degree += linCoefs[k];
+        long guardCoef = degree;
+        long div = lit == litUndef ? 1 : lit == not(guard) ? guardCoef : linearCoefficient(c, not(lit));
+        if (div > 1) {
+            for (int k = start; k < end; k++)
+                if (not(linLits.get(k)) != lit && !falseBefore(not(linLits.get(k)), lit) && linCoefs[k] % div != 0) {
+                    degree -= linCoefs[k];
+                }
+            if (guard != litUndef && not(guard) != lit && !falseBefore(not(guard), lit) && guardCoef % div != 0) {
+                degree -= guardCoef;
+            }
+        }
+        cpDegree = Math.addExact(cpDegree, Math.multiplyExact(mult, ceilDiv(degree, div)));
+        for (int k = start; k < end; k++)
+            if (div == 1 || not(linLits.get(k)) == lit || falseBefore(not(linLits.get(k)), lit)
+                    || linCoefs[k] % div == 0) {
+                addTerm(not(linLits.get(k)), Math.multiplyExact(mult, ceilDiv(linCoefs[k], div)));
+            }
+        if (guard != litUndef && (div == 1 || not(guard) == lit || falseBefore(not(guard), lit)
+                || guardCoef % div == 0)) {
+            addTerm(not(guard), Math.multiplyExact(mult, ceilDiv(guardCoef, div)));
+        }
+    }
+
+    /**
+     * @return true if {@code q} was false before {@code lit} was assigned
+     */
+    private boolean falseBefore(int q, int lit) {
+        return value(q) == LBool.FALSE && trailPos[var(q)] < trailPos[var(lit)];
+    }
+
+    private static long ceilDiv(long a, long div) {
+        return a / div + (a % div > 0 ? 1 : 0);
+    }
+
+    /**
+     * Adds {@code coef * lit} to the derived constraint, cancelling it against the negated literal.
+     */
+    private void addTerm(int lit, long coef) {
+        int x = var(lit);
+        if (shrinkStamps[x] != shrinkStamp) {
+            shrinkStamps[x] = shrinkStamp;
+            cpCoefs[lit] = 0;
+            cpCoefs[not(lit)] = 0;
+            cpVars.push(x);
+        }
+        long cancelled = Math.min(cpCoefs[not(lit)], coef);
+        cpCoefs[not(lit)] -= cancelled;
+        cpDegree -= cancelled;
+        cpCoefs[lit] = Math.addExact(cpCoefs[lit], coef - cancelled);
+    }
+
+    private void saturate() {
+        for (int i = 0; i < cpVars.size(); i++) {
+            int x = cpVars.get(i);
+            cpCoefs[2 * x] = Math.min(cpCoefs[2 * x], cpDegree);
+            cpCoefs[2 * x + 1] = Math.min(cpCoefs[2 * x + 1], cpDegree);
+        }
+    }
+
+    /**
+     * Computes the lowest level on which the derived constraint propagates, i.e. on which the coefficient of a literal
+     * not assigned up to that level exceeds the slack: the coefficients of the literals not false up to that level
+     * minus the degree.
+     *
+     * @return the level, -1 if the constraint does not propagate below the conflict level and -2 if it is already
+     *         conflicting below it
+     */
+    private int assertionLevel(int level) {
+        long slack = -cpDegree;
+        long free = 0;
+        int n = 0;
+        if (cpKeys.length < 2 * cpVars.size()) {
+            cpKeys = new long[4 * cpVars.size()];
+        }
+        for (int i = 0; i < cpVars.size(); i++) {
+            int x = cpVars.get(i);
+            for (int lit = 2 * x; lit <= 2 * x + 1; lit++) {
+                long coef = cpCoefs[lit];
+                if (coef == 0) {
+                    continue;
+                }
+                if (value(lit) != LBool.UNDEF && levels[x] < level) {
+                    cpKeys[n++] = ((long) levels[x] << 32) | lit;
+                    if (value(lit) == LBool.TRUE) {
+                        slack = Math.addExact(slack, coef);
+                    }
+                } else {
+                    slack = Math.addExact(slack, coef);
+                    free = Math.max(free, coef);
+                }
+            }
+        }
+        if (slack < 0) {
+            return -2;
+        }
+        if (free <= slack) {
+            return -1;
+        }
+        // undo the assignments level by level, the last level on which the constraint still propagates is the lowest
+        Arrays.sort(cpKeys, 0, n);
+        int assertion = level - 1;
+        for (int i = n - 1; i >= 0; ) {
+            int l = (int) (cpKeys[i] >>> 32);
+            if (free > slack) {
+                assertion = l;
+            }
+            for (; i >= 0 && (int) (cpKeys[i] >>> 32) == l; i--) {
+                int lit = (int) cpKeys[i];
+                if (value(lit) == LBool.FALSE) {
+                    slack += cpCoefs[lit];
+                }
+                free = Math.max(free, cpCoefs[lit]);
+            }
+            if (i < 0 && l > 0 && free > slack) {
+                assertion = 0;
+            }
+        }
+        return assertion;
+    }
+
+    /**
+     * Adds the constraint derived by {@link #analyzeCuttingPlanes(int)} as a learnt linear constraint and propagates
+     * it.
+     */
+    private void addLearntLinear(int lbd) {
+        IntVec lits = new IntVec();
+        for (int i = 0; i < cpVars.size(); i++) {
+            int x = cpVars.get(i);
+            for (int lit = 2 * x; lit <= 2 * x + 1; lit++)
+                if (cpCoefs[lit] > 0) {
+                    lits.push(lit);
+                }
+        }
+        long[] coefs = new long[lits.size()];
+        long sum = 0;
+        for (int i = 0; i < lits.size(); i++) {
+            coefs[i] = cpCoefs[lits.get(i)];
+            sum += coefs[i];
+            lits.set(i, not(lits.get(i)));
+        }
+        int c = insertLinear(lits, coefs, sum - cpDegree, litUndef, lbd);
+        stats.linear_learnts++;
+        int confl = checkLinear(c, litUndef);
+        if (confl != CREF_UNDEF) {
+            pendingConflict = confl;
+        }
+    }
+
+    /**
+     * @return the number of distinct levels among the false literals of the derived constraint
+     */
+    private int linearLBD() {
+        lbdStamp++;
+        int lbd = 0;
+        for (int i = 0; i < cpVars.size(); i++) {
+            int x = cpVars.get(i);
+            int lit = cpCoefs[2 * x] > 0 ? 2 * x : 2 * x + 1;
+            if (cpCoefs[lit] > 0 && value(lit) == LBool.FALSE && lbdStamps.get(levels[x]) != lbdStamp) {
+                lbdStamps.set(levels[x], lbdStamp);
+                lbd++;
+            }
+        }
+        return Math.max(lbd, 1);
+    }
+
+    /////////////////////
+    // XOR constraints //
+    /////////////////////
+
+    /**
+     * Adds the constraint that an odd number of the given literals is true, negating a literal makes the number even.
+     * The constraints are kept in a matrix over GF(2) which the next solve call brings into reduced row echelon form
+     * by Gauss-Jordan elimination.  Each row watches its basic variable, which occurs in no other row, and one other
+     * unassigned variable.  If the basic variable is assigned, another unassigned variable of the row becomes basic and
+     * is eliminated from the other rows, so a row with a single unassigned variable implies it and a row without one
+     * may conflict.  The implications are explained by clauses only when conflict analysis needs them.
+     *
+     * @param lits the literals, a variable may occur several times
+     * @throws IllegalStateException if a proof is written or clauses are shared
+     */
+    public void addXor(IntVec lits) {
+        if (proof != null || exchange != null) {
+            throw new IllegalStateException("XOR constraints cannot be justified in a proof or shared");
+        }
+        stopEnumeration();
+        if (!ok) {
+            return;
+        }
+        for (int i = 0; i < lits.size(); i++)
+            xorLits.push(repr(lits.get(i)));
+        xorStarts.push(xorLits.size());
+        xorDirty = true;
+    }
+
+    /**
+     * Adds the constraint that an odd number of the given literals is true if the guard is true.  The guarded
+     * constraint is the XOR constraint of the literals and a fresh variable which the guard forces to be false.
+     *
+     * @param lits  the literals
+     * @param guard the literal which activates the constraint, -1 for an unconditional constraint
+     * @throws IllegalArgumentException if the guard occurs among the literals
+     * @see #addXor(IntVec)
+     */
+    public void addXor(IntVec lits, int guard) {
+        if (guard == litUndef) {
+            addXor(lits);
+            return;
+        }
+        for (int i = 0; i < lits.size(); i++)
+            if (var(lits.get(i)) == var(guard)) {
+                throw new IllegalArgumentException("The guard occurs in the XOR constraint");
+            }
+        stopEnumeration();
+        int slack = mkLit(newVar(), false);
+        IntVec clause = new IntVec();
+        clause.push(not(guard));
+        clause.push(not(slack));
+        newClause(clause, false);
+        IntVec guarded = new IntVec(lits.size() + 1);
+        lits.copyTo(guarded);
+        guarded.push(slack);
+        addXor(guarded);
+    }
+
+    /**
+     * Builds the matrix of the XOR constraints at level 0.  Variables fixed at level 0 are moved to the right-hand
+     * sides, which are kept as an extra column that counts as assigned and true, so the true columns of a satisfied
+     * row have even parity.  Implications of the previous matrix are explained by clauses first.
+     */
+    private void buildXorMatrix() {
+        assert decisionLevel() == 0;
+        xorDirty = false;
+        for (int i = 0; i < trail.size(); i++)
+            if (reasons[var(trail.get(i))] == XOR_REASON) {
+                reason(var(trail.get(i)));
+            }
+        for (int col = 0; col < xorColumns; col++)
+            xorColumnOf[xorColumnVars.get(col)] = -1;
+        xorColumnVars.clear();
+        for (int i = 0; i < xorLits.size(); i++) {
+            int x = var(xorLits.get(i));
+            if (value(xorLits.get(i)) == LBool.UNDEF && xorColumnOf[x] == -1) {
+                xorColumnOf[x] = xorColumnVars.size();
+                xorColumnVars.push(x);
+            }
+        }
+        xorColumns = xorColumnVars.size();
+        xorWords = (xorColumns >> 6) + 1;
+        int constraints = xorStarts.size() - 1;
+        long[] m = new long[constraints * xorWords];
+        for (int r = 0; r < constraints; r++) {
+            boolean parity = true;
+            for (int k = xorStarts.get(r); k < xorStarts.get(r + 1); k++) {
+                int lit = xorLits.get(k);
+                if (value(lit) == LBool.UNDEF) {
+                    int col = xorColumnOf[var(lit)];
+                    m[r * xorWords + (col >> 6)] ^= 1L << col;
+                    parity ^= sign(lit);
+                } else {
+                    parity ^= value(lit) == LBool.TRUE;
+                }
+            }
+            if (parity) {
+                m[r * xorWords + (xorColumns >> 6)] ^= 1L << xorColumns;
+            }
+        }
+        int rank = 0;
+        xorBasics = new int[constraints];
+        for (int col = 0; col < xorColumns && rank < constraints; col++) {
+            int w = col >> 6;
+            long bit = 1L << col;
+            int pivot = rank;
+            while (pivot < constraints && (m[pivot * xorWords + w] & bit) == 0)
+                pivot++;
+            if (pivot == constraints) {
+                continue;
+            }
+            for (int k = 0; k < xorWords; k++) {
+                long t = m[pivot * xorWords + k];
+                m[pivot * xorWords + k] = m[rank * xorWords + k];
+                m[rank * xorWords + k] = t;
+            }
+            for (int r = 0; r < constraints; r++)
+                if (r != rank && (m[r * xorWords + w] & bit) != 0) {
+                    for (int k = 0; k < xorWords; k++)
+                        m[r * xorWords + k] ^= m[rank * xorWords + k];
+                }
+            xorBasics[rank++] = col;
+        }
+        // the remaining rows are empty, a right-hand side of 1 is a contradiction
+        for (int r = rank; r < constraints; r++)
+            if ((m[r * xorWords + (xorColumns >> 6)] & (1L << xorColumns)) != 0) {
+                ok = false;
+            }
+        xorRows = rank;
+        xorMatrix = m;
+        xorWatched = new int[rank];
+        xorAssigned = new long[xorWords];
+        xorTrue = new long[xorWords];
+        xorAssigned[xorColumns >> 6] |= 1L << xorColumns;
+        xorTrue[xorColumns >> 6] |= 1L << xorColumns;
+        xorWatches = new Vec<IntVec>();
+        for (int x = 0; x < nVars; x++)
+            xorWatches.push(new IntVec());
+        for (int r = 0; r < rank && ok; r++) {
+            xorWatches.get(xorColumnVars.get(xorBasics[r])).push(r);
+            xorWatched[r] = unassignedXorColumn(r, xorBasics[r], -1);
+            if (xorWatched[r] != -1) {
+                xorWatches.get(xorColumnVars.get(xorWatched[r])).push(r);
+            } else if (checkXorRow(r) != CREF_UNDEF) {
+                ok = false;
+            }
+        }
+    }
+
+    private boolean hasXorColumn(int r, int col) {
+        return (xorMatrix[r * xorWords + (col >> 6)] & (1L << col)) != 0;
+    }
+
+    /**
+     * @return the first unassigned column of a row except the two given ones, -1 if there is none
+     */
+    private int unassignedXorColumn(int r, int except1, int except2) {
+        int base = r * xorWords;
+        for (int w = 0; w < xorWords; w++) {
+            long bits = xorMatrix[base + w] & ~xorAssigned[w];
+            while (bits != 0) {
+                int col = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (col != except1 && col != except2) {
+                    return col;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Updates the assigned and true columns of the matrix after a literal was assigned or unassigned.
+     */
+    private void assignXor(int lit, boolean assigned) {
+        int col = xorColumnOf[var(lit)];
+        if (col >= 0) {
+            long bit = 1L << col;
+            if (assigned) {
+                xorAssigned[col >> 6] |= bit;
+                if (!sign(lit)) {
+                    xorTrue[col >> 6] |= bit;
+                }
+            } else {
+                xorAssigned[col >> 6] &= ~bit;
+                xorTrue[col >> 6] &= ~bit;
+            }
+        }
+    }
+
+    /**
+     * Propagates the rows watching the variable of a literal which became true, see {@link #addXor(IntVec)}.
+     *
+     * @return the conflicting clause or {@code CREF_UNDEF}
+     */
+    private int propagateXor(int propLit) {
+        int x = var(propLit);
+        int col = xorColumnOf[x];
+        if (col < 0) {
+            return CREF_UNDEF;
+        }
+        IntVec ws = xorWatches.get(x);
+        int confl = CREF_UNDEF;
+        int i = 0;
+        int j = 0;
+        while (i < ws.size()) {
+            int r = ws.get(i++);
+            if (confl != CREF_UNDEF) {
+                ws.set(j++, r);
+            } else if (col == xorWatched[r]) {
+                int other = unassignedXorColumn(r, xorBasics[r], col);
+                if (other != -1) {
+                    xorWatched[r] = other;
+                    xorWatches.get(xorColumnVars.get(other)).push(r);
+                } else {
+                    ws.set(j++, r);
+                    confl = checkXorRow(r);
+                }
+            } else {
+                int other = unassignedXorColumn(r, col, xorWatched[r]);
+                if (other != -1) {
+                    confl = pivotXor(r, other);
+                } else {
+                    ws.set(j++, r);
+                    confl = checkXorRow(r);
+                }
+            }
+        }
+        ws.shrink(i - j);
+        return confl;
+    }
+
+    /**
+     * Makes an unassigned column the basic column of a row whose basic variable was assigned and eliminates it from
+     * the other rows.  The rows whose watched column cancels out watch another column or are checked.
+     *
+     * @return the first conflicting clause or {@code CREF_UNDEF}
+     */
+    private int pivotXor(int r, int col) {
+        stats.xor_pivots++;
+        xorBasics[r] = col;
+        xorWatches.get(xorColumnVars.get(col)).push(r);
+        int confl = CREF_UNDEF;
+        int w = col >> 6;
+        long bit = 1L << col;
+        int base = r * xorWords;
+        for (int r2 = 0; r2 < xorRows; r2++) {
+            int base2 = r2 * xorWords;
+            if (r2 == r || (xorMatrix[base2 + w] & bit) == 0) {
+                continue;
+            }
+            for (int k = 0; k < xorWords; k++)
+                xorMatrix[base2 + k] ^= xorMatrix[base + k];
+            int watched = xorWatched[r2];
+            if (watched != -1 && hasXorColumn(r2, watched)) {
+                continue;
+            }
+            if (watched != -1) {
+                xorWatches.get(xorColumnVars.get(watched)).remove(r2);
+            }
+            watched = unassignedXorColumn(r2, xorBasics[r2], -1);
+            if (watched == -1) {
+                // watch the non-basic column assigned last, which is unassigned first on backtracking
+                for (int k = 0; k < xorWords; k++) {
+                    long bits = xorMatrix[base2 + k];
+                    while (bits != 0) {
+                        int c = (k << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        if (c < xorColumns && c != xorBasics[r2] && (watched == -1
+                                || trailPos[xorColumnVars.get(c)] > trailPos[xorColumnVars.get(watched)])) {
+                            watched = c;
+                        }
+                    }
+                }
+            }
+            xorWatched[r2] = watched;
+            if (watched != -1) {
+                xorWatches.get(xorColumnVars.get(watched)).push(r2);
+                if ((xorAssigned[watched >> 6] & (1L << watched)) == 0
+                        && (xorAssigned[xorBasics[r2] >> 6] & (1L << xorBasics[r2])) == 0) {
+                    continue;
+                }
+            }
+            int rowConfl = checkXorRow(r2);
+            if (confl == CREF_UNDEF) {
+                confl = rowConfl;
+            }
+        }
+        return confl;
+    }
+
+    /**
+     * Implies the only unassigned variable of a row or checks the parity of a completely assigned row.
+     *
+     * @return the conflicting clause or {@code CREF_UNDEF}
+     */
+    private int checkXorRow(int r) {
+        int base = r * xorWords;
+        int open = -1;
+        int parity = 0;
+        for (int w = 0; w < xorWords; w++) {
+            long row = xorMatrix[base + w];
+            long unassigned = row & ~xorAssigned[w];
+            if (unassigned != 0) {
+                if (open != -1 || (unassigned & (unassigned - 1)) != 0) {
+                    return CREF_UNDEF;
+                }
+                open = (w << 6) + Long.numberOfTrailingZeros(unassigned);
+            }
+            parity ^= Long.bitCount(row & xorTrue[w]);
+        }
+        if (open == -1) {
+            return (parity & 1) == 0 ? CREF_UNDEF : explainXorConflict(r);
+        }
+        int x = xorColumnVars.get(open);
+        if (xorReasons[x] == null || xorReasons[x].length != xorWords) {
+            xorReasons[x] = new long[xorWords];
+        }
+        System.arraycopy(xorMatrix, base, xorReasons[x], 0, xorWords);
+        stats.xor_propagations++;
+        int level = chronoBacktrack ? xorLevel(xorReasons[x], x) : decisionLevel();
+        enqueue(mkLit(x, (parity & 1) == 0), XOR_REASON, level);
+        return CREF_UNDEF;
+    }
+
+    /**
+     * @return the highest level of the assigned variables of a row other than {@code x}
+     */
+    private int xorLevel(long[] row, int x) {
+        int level = 0;
+        for (int w = 0; w < xorWords; w++) {
+            long bits = row[w];
+            while (bits != 0) {
+                int col = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (col < xorColumns && xorColumnVars.get(col) != x) {
+                    level = Math.max(level, levels[xorColumnVars.get(col)]);
+                }
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Collects the false literals of the variables of a row other than {@code x}, i.e. the negations of their current
+     * values.
+     */
+    private void falseXorLits(long[] row, int base, int x, IntVec lits) {
+        for (int w = 0; w < xorWords; w++) {
+            long bits = row[base + w];
+            while (bits != 0) {
+                int col = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (col < xorColumns && xorColumnVars.get(col) != x) {
+                    int y = xorColumnVars.get(col);
+                    lits.push(mkLit(y, value(mkLit(y, false)) == LBool.TRUE));
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the reason of a variable implied by a row from the copy of the row taken on implication: the implied
+     * literal and the false literals of the other variables.
+     */
+    private int explainXor(int x) {
+        IntVec lits = xorClause;
+        lits.clear();
+        lits.push(mkLit(x, value(mkLit(x, false)) != LBool.TRUE));
+        falseXorLits(xorReasons[x], 0, x, lits);
+        return ca.alloc(lits, false);
+    }
+
+    /**
+     * Builds the clause of a conflicting row from the false literals of its variables, the literal of the highest
+     * level first.
+     */
+    private int explainXorConflict(int r) {
+        IntVec lits = xorClause;
+        lits.clear();
+        falseXorLits(xorMatrix, r * xorWords, -1, lits);
+        int max = 0;
+        for (int i = 1; i < lits.size(); i++)
+            if (levels[var(lits.get(i))] > levels[var(lits.get(max))]) {
+                max = i;
+            }
+        int first = lits.get(max);
+        lits.set(max, lits.get(0));
+        lits.set(0, first);
+        int cref = ca.alloc(lits, false);
+        explanations.push(cref);
+        return cref;
+    }
+
+    ///////////////
+    // Lookahead //
+    ///////////////
+    public final static int LOOKAHEAD_REFUTED = -2;
+
+    /**
+     * Picks a variable to split the given cube on, e.g. for cube-and-conquer.  The cube is assumed and both literals
+     * of the candidate variables with the most occurrences are propagated.  If one literal fails, its negation is
+     * implied by the cube and added to it.  The variable whose literals together propagate most is chosen.
+     *
+     * @param cube          the cube, receives the implied literals
+     * @param maxCandidates the number of variables to test
+     * @return the variable, -1 if there is no variable to split on, or {@link #LOOKAHEAD_REFUTED} if the cube is
+     * refuted by propagation
+     */
+    public int lookahead(IntVec cube, int maxCandidates) {
+        stopEnumeration();
+        if (!ok) {
+            return LOOKAHEAD_REFUTED;
+        }
+        cancelUntil(0);
+        int result = lookaheadAssumed(cube, maxCandidates);
+        cancelUntil(0);
+        return result;
+    }
+
+    private int lookaheadAssumed(IntVec cube, int maxCandidates) {
+        for (int i = 0; i < cube.size(); i++) {
+            int p = repr(cube.get(i));
+            if (value(p) == LBool.FALSE) {
+                return LOOKAHEAD_REFUTED;
+            }
+            if (value(p) == LBool.UNDEF) {
+                assume(p);
+                if (propagate() != CREF_UNDEF) {
+                    return LOOKAHEAD_REFUTED;
+                }
+            }
+        }
+        IntVec candidates = lookaheadCandidates(maxCandidates);
+        long[] scores = new long[candidates.size()];
+        for (int i = 0; i < candidates.size(); i++) {
+            int x = candidates.get(i);
+            if (value(mkLit(x, false)) != LBool.UNDEF) {
+                continue;
+            }
+            int pos = probeLiteral(mkLit(x, false));
+            int neg = probeLiteral(mkLit(x, true));
+            if (pos < 0 && neg < 0) {
+                return LOOKAHEAD_REFUTED;
+            } else if (pos < 0 || neg < 0) {
+                int implied = mkLit(x, pos < 0);
+                cube.push(implied);
+                assume(implied);
+                if (propagate() != CREF_UNDEF) {
+                    return LOOKAHEAD_REFUTED;
+                }
+            } else {
+                scores[i] = (long) (pos + 1) * (neg + 1);
+            }
+        }
+        int best = -1;
+        long bestScore = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            int x = candidates.get(i);
+            if (scores[i] > bestScore && value(mkLit(x, false)) == LBool.UNDEF) {
+                best = x;
+                bestScore = scores[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the unassigned variables whose literals occur most often in both polarities
+     */
+    private IntVec lookaheadCandidates(int maxCandidates) {
+        long[] keys = new long[nVars];
+        int n = 0;
+        for (int x = 0; x < nVars; x++) {
+            int p = mkLit(x, false);
+            if (value(p) == LBool.UNDEF && repr(p) == p) {
+                long occurrences = (long) (occurrences(p) + 1) * (occurrences(not(p)) + 1);
+                keys[n++] = (Math.min(occurrences, Integer.MAX_VALUE) << 32) | x;
+            }
+        }
+        Arrays.sort(keys, 0, n);
+        IntVec candidates = new IntVec();
+        for (int i = n - 1; i >= 0 && candidates.size() < maxCandidates; i--)
+            candidates.push((int) keys[i]);
+        return candidates;
+    }
+
+    private int occurrences(int lit) {
+        return binWatches.get(not(lit)).size() + watches.get(not(lit)).size() / 2;
+    }
+
+    /**
+     * @return the number of literals assigned by propagating lit on a new decision level, or -1 on a conflict
+     */
+    private int probeLiteral(int lit) {
+        int before = trail.size();
+        assume(lit);
+        boolean failed = propagate() != CREF_UNDEF;
+        int propagated = trail.size() - before;
+        cancelUntil(decisionLevel() - 1);
+        return failed ? -1 : propagated;
+    }
+
+    ///////////////////////
+    // Model enumeration //
+    ///////////////////////
+
+    /**
+     * Starts enumerating the models of the clauses under the given assumptions, projected onto the given variables.
+     * The models are found one at a time by {@link #nextModel()}.  Adding a problem clause or solving stops the
+     * enumeration, as does {@link #stopEnumeration()}.
+     * <p/>
+     * By default each model is excluded by a blocking clause over its projected literals, which is guarded by an
+     * assumed activation variable and removed when the enumeration stops.  With {@code shrink} the model is first
+     * reduced to a partial model, a cube of projected literals which satisfies the problem clauses for all values of
+     * the remaining projected variables, so that one blocking clause excludes many models.  With {@code chronological}
+     * the prover branches on the projected variables first and enumerates their assignments by flipping the latest
+     * unflipped decision after each model, which needs no blocking clauses.  The models are then total on the
+     * projection and {@code shrink} is ignored.
+     *
+     * @param assumps       the assumptions
+     * @param projection    the variables to project onto, null for all variables
+     * @param shrink        true to find partial models
+     * @param chronological true to enumerate by chronological backtracking instead of blocking clauses
+     */
+    public void startEnumeration(IntVec assumps, IntVec projection, boolean shrink, boolean chronological) {
+        if (proof != null || exchange != null) {
+            throw new IllegalStateException("Blocking clauses cannot be justified in a proof or shared");
+        }
+        stopEnumeration();
+        enumProjection.clear();
+        if (projection == null) {
+            for (int i = 0; i < nVars; i++)
+                enumProjection.push(i);
+        } else {
+            projection.copyTo(enumProjection);
+            enumProjection.sortUnique();
+        }
+        enumActivation = mkLit(newVar(), false);
+        enumAssumptions.clear();
+        assumps.copyTo(enumAssumptions);
+        enumAssumptions.push(enumActivation);
+        enumProjected = new boolean[nVars];
+        enumForced = new boolean[nVars];
+        enumChosen = new int[nVars];
+        enumStamp = 0;
+        enumVars.clear();
+        for (int i = 0; i < enumProjection.size(); i++) {
+            int x = enumProjection.get(i);
+            int v = var(repr(mkLit(x, false)));
+            if (v != x) {
+                // variables with the same representative must be reported together
+                enumForced[v] = true;
+            }
+            if (!enumProjected[v]) {
+                enumProjected[v] = true;
+                enumVars.push(v);
+            }
+        }
+        enumShrink = shrink && !chronological;
+        enumChrono = chronological;
+        enumLevels.clear();
+        enumFlipLevel = 0;
+        enumState = ENUM_STARTED;
+        enumGeneration++;
+    }
+
+    /**
+     * Identifies the running enumeration.  Each call of {@link #startEnumeration(IntVec, IntVec, boolean, boolean)}
+     * starts a new enumeration with a new number, so a caller can tell whether its enumeration was stopped or
+     * replaced by another one.
+     *
+     * @return the number of the running enumeration, -1 if there is none
+     */
+    public int enumeration() {
+        return enumState == ENUM_OFF ? -1 : enumGeneration;
+    }
+
+    /**
+     * Searches the next model of the enumeration started by
+     * {@link #startEnumeration(IntVec, IntVec, boolean, boolean)}.
+     *
+     * @return {@link LBool#TRUE} if a model was found, see {@link #enumeratedModel()}, {@link LBool#FALSE} if there
+     * are no more models and {@link LBool#UNDEF} if the prover was interrupted or ran out of budget, in which case the
+     * enumeration can be continued
+     */
+    public byte nextModel() {
+        if (enumState == ENUM_OFF) {
+            throw new IllegalStateException("No enumeration started");
+        }
+        if (enumState == ENUM_DONE) {
+            return LBool.FALSE;
+        }
+        if (enumState == ENUM_MODEL && !(enumChrono ? flipDecision(decisionLevel()) : blockModel())) {
+            cancelUntil(0);
+            enumState = ENUM_DONE;
+            return LBool.FALSE;
+        }
+        byte status = solveLimited(enumAssumptions, enumState != ENUM_STARTED);
+        if (status == LBool.TRUE) {
+            stats.models++;
+            enumState = ENUM_MODEL;
+        } else {
+            enumState = status == LBool.FALSE ? ENUM_DONE : ENUM_PAUSED;
+        }
+        return status;
+    }
+
+    /**
+     * Returns the last model found by {@link #nextModel()} as a cube of literals over the projection.  Projected
+     * variables missing from a partial model may take either value.  {@link #getModel()} holds a total model
+     * extending it.
+     *
+     * @return the cube, which is overwritten by the next model
+     */
+    public IntVec enumeratedModel() {
+        return enumCube;
+    }
+
+    /**
+     * Stops the enumeration and removes its blocking clauses.  Does nothing if there is no enumeration.
+     */
+    public void stopEnumeration() {
+        if (enumState != ENUM_OFF) {
+            enumState = ENUM_OFF;
+            enumShrink = false;
+            enumChrono = false;
+            pendingConflict = CREF_UNDEF;
+            cancelUntil(0);
+            IntVec unit = new IntVec();
+            unit.push(not(enumActivation));
+            newClause(unit, false);
+        }
+    }
+
+    /**
+     * Enumerates the models like {@link #nextModel()} and passes them to a handler, see
+     * {@link #startEnumeration(IntVec, IntVec, boolean, boolean)} for the parameters.
+     *
+     * @return {@link LBool#TRUE} if the handler stopped the enumeration, {@link LBool#FALSE} if all models were
+     * enumerated and {@link LBool#UNDEF} if the prover was interrupted or ran out of budget
+     */
+    public byte enumerate(IntVec assumps, IntVec projection, boolean shrink, boolean chronological,
+                          ModelHandler handler) {
+        startEnumeration(assumps, projection, shrink, chronological);
+        byte status;
+        while ((status = nextModel()) == LBool.TRUE)
+            if (!handler.model(enumCube)) {
+                break;
+            }
+        stopEnumeration();
+        return status;
+    }
+
+    /**
+     * Builds the cube of the current total model and, in blocking enumeration, the literals of its blocking clause.
+     * Variables fixed at level 0 are left out of the blocking clause.
+     */
+    private void recordModel() {
+        enumStamp++;
+        if (enumShrink) {
+            shrinkModel();
+        }
+        enumCube.clear();
+        for (int i = 0; i < enumProjection.size(); i++) {
+            int x = enumProjection.get(i);
+            int v = var(repr(mkLit(x, false)));
+            if (!enumShrink || enumForced[v] || enumChosen[v] == enumStamp) {
+                enumCube.push(mkLit(x, value(repr(mkLit(x, false))) == LBool.FALSE));
+            }
+        }
+        enumBlocking.clear();
+        if (!enumChrono) {
+            for (int i = 0; i < enumVars.size(); i++) {
+                int v = enumVars.get(i);
+                if (levels[v] > 0 && (!enumShrink || enumForced[v] || enumChosen[v] == enumStamp)) {
+                    enumBlocking.push(mkLit(v, value(mkLit(v, false)) == LBool.TRUE));
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the variables of a partial model, i.e. true literals which satisfy the assumptions and all problem clauses
+     * including the blocking clauses: the assumptions and literals fixed at level 0, the guards and false literals of
+     * the added linear constraints, the variables of the XOR constraints, the only true literal of each clause having
+     * one, and then a true literal of each remaining clause, preferably outside the projection.
+     */
+    private void shrinkModel() {
+        for (int i = 0; i < trail.size(); i++)
+            if (levels[var(trail.get(i))] == 0) {
+                enumChosen[var(trail.get(i))] = enumStamp;
+            }
+        for (int level = 1; level <= rootLevel; level++)
+            enumChosen[var(trail.get(trailLimits.get(level - 1)))] = enumStamp;
+        // a linear constraint stays satisfied if its guard and its false literals keep their values, learnt ones are
+        // implied by the others
+        for (int k = 0; k < linLits.size(); k++)
+            if (linLbds.get(linOwners.get(k)) == 0 && value(linLits.get(k)) == LBool.FALSE) {
+                enumChosen[var(linLits.get(k))] = enumStamp;
+            }
+        for (int c = 0; c < linGuards.size(); c++)
+            if (linLbds.get(c) == 0 && linGuards.get(c) != litUndef) {
+                enumChosen[var(linGuards.get(c))] = enumStamp;
+            }
+        // an XOR constraint needs all its variables
+        for (int k = 0; k < xorLits.size(); k++)
+            enumChosen[var(xorLits.get(k))] = enumStamp;
+        IntVec lits = enumClause;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < clauses.size(); i++) {
+                int cref = clauses.get(i);
+                if (!ca.deleted(cref)) {
+                    lits.clear();
+                    for (int k = 0; k < ca.size(cref); k++)
+                        lits.push(ca.get(cref, k));
+                    cover(lits, pass == 0);
+                }
+            }
+            for (int p = 0; p < 2 * nVars; p++) {
+                IntVec bs = binWatches.get(p);
+                for (int i = 0; i < bs.size(); i++)
+                    if (not(p) < bs.get(i)) {
+                        lits.clear();
+                        lits.push(not(p));
+                        lits.push(bs.get(i));
+                        cover(lits, pass == 0);
+                    }
+            }
+        }
+    }
+
+    /**
+     * Chooses a true literal of a clause for the partial model unless the clause has a chosen one already.
+     *
+     * @param onlyUnits true to choose only if the clause has a single true literal
+     */
+    private void cover(IntVec lits, boolean onlyUnits) {
+        int chosen = -1;
+        int count = 0;
+        for (int i = 0; i < lits.size(); i++) {
+            int v = var(lits.get(i));
+            if (value(lits.get(i)) == LBool.TRUE) {
+                if (enumChosen[v] == enumStamp) {
+                    return;
+                }
+                if (count++ == 0 || !enumProjected[v]) {
+                    chosen = v;
+                }
+            }
+        }
+        if (count == 1 || count > 1 && !onlyUnits) {
+            enumChosen[chosen] = enumStamp;
+        }
+    }
+
+    /**
+     * Adds the blocking clause of the last model and backjumps to the highest level of its literals, where the clause
+     * is either asserting or conflicting.  A conflict is left to search() as {@link #pendingConflict}.
+     *
+     * @return false if the clause is falsified by the assumptions, i.e. there are no more models
+     */
+    private boolean blockModel() {
+        IntVec lits = enumBlocking;
+        lits.push(not(enumActivation));
+        for (int i = 0; i < 2 && i < lits.size(); i++) {
+            int max = i;
+            for (int j = i + 1; j < lits.size(); j++)
+                if (levels[var(lits.get(j))] > levels[var(lits.get(max))]) {
+                    max = j;
+                }
+            int tmp = lits.get(i);
+            lits.set(i, lits.get(max));
+            lits.set(max, tmp);
+        }
+        int level = levels[var(lits.get(0))];
+        if (level <= rootLevel) {
+            return false;
+        }
+        stats.blocking_clauses++;
+        int sndLevel = levels[var(lits.get(1))];
+        if (sndLevel < level) {
+            cancelUntil(sndLevel);
+            attachClause(lits, false, 0, 0);
+            enqueue(lits.get(0), lits.size() == 2 ? binaryReason(lits.get(1)) : clauses.last());
+        } else {
+            cancelUntil(level);
+            attachClause(lits, false, 0, 0);
+            pendingConflict = clauses.last();
+        }
+        return true;
+    }
+
+    /**
+     * Flips the decision of the highest level up to the given one which decided a projected variable and was not
+     * flipped yet, after backtracking to the level below.
+     *
+     * @return false if there is no such level, i.e. all assignments of the projection were enumerated
+     */
+    private boolean flipDecision(int maxLevel) {
+        for (int level = maxLevel; level > rootLevel; level--)
+            if (enumLevels.get(level) == LEVEL_UNFLIPPED) {
+                int decision = trail.get(trailLimits.get(level - 1));
+                cancelUntil(level - 1);
+                assume(not(decision));
+                enumLevels.set(level, LEVEL_FLIPPED);
+                enumFlipLevel = level;
+                return true;
+            }
+        return false;
+    }
+
+    private int pickProjectedLit() {
+        for (int i = 0; i < enumVars.size(); i++) {
+            int v = enumVars.get(i);
+            if (assigns[mkLit(v, false)] == LBool.UNDEF) {
+                return mkLit(v, polarity[v]);
+            }
+        }
+        return -1;
+    }
+
+    ///////////
+    // Proof //
+    ///////////
+
+    /**
+     * Streams the clauses the prover derives and deletes to the given proof writer.  With an LRAT writer every added
+     * clause carries the ids of the clauses it follows from by unit propagation; equivalent literal substitution is
+     * turned off then, as its steps would need a search through the binary implication graph.  Must be called before
+     * the first variable is created, and cannot be combined with a clause exchange.
+     *
+     * @param proof the proof writer, or null to record no proof
+     */
+    public void setProof(ProofWriter proof) {
+        if (nVars > 0 || lastClauseId > 0) {
+            throw new IllegalStateException("The proof must be set before the first variable is created");
+        }
+        if (proof != null && exchange != null) {
+            throw new IllegalStateException("Imported clauses cannot be justified in a proof");
+        }
+        this.proof = proof;
+        proofHints = proof != null && proof.needsHints();
+        ca = new MSJClauseArena(1024, proofHints);
+        binConflict = ca.alloc(new IntVec(2, 0), false);
+    }
+
+    private byte flushProof(byte status) {
+        if (proof != null) {
+            proof.flush();
+        }
+        return status;
+    }
+
+    private long proofAdd(IntVec lits) {
+        long id = ++lastClauseId;
+        proof.add(id, lits, hints, nHints);
+        nHints = 0;
+        return id;
+    }
+
+    private void pushHint(long id) {
+        if (nHints == hints.length) {
+            hints = Arrays.copyOf(hints, 2 * nHints);
+        }
+        hints[nHints++] = id;
+    }
+
+    /**
+     * Records that a clause is replaced by the result of {@link #simplifyProblemClause(IntVec)}, which drops the
+     * literals false at level 0 and substitutes equivalent literals.
+     *
+     * @param id     the id of the clause
+     * @param before the clause
+     * @param after  the simplified clause, null if it is satisfied
+     * @param keep   whether the clause stays in the proof
+     * @return the id of the simplified clause
+     */
+    private long proofReplace(long id, IntVec before, IntVec after, boolean keep) {
+        if (after != null) {
+            if (!changed(before, after)) {
+                return id;
+            }
+            if (proofHints) {
+                deriveUnits();
+                collectDroppedHints(id, before, after);
+            }
+            long replacement = proofAdd(after);
+            if (!keep) {
+                proof.delete(id, before);
+            }
+            return replacement;
+        }
+        if (!keep) {
+            proof.delete(id, before);
+        }
+        return 0;
+    }
+
+    private boolean changed(IntVec before, IntVec after) {
+        boolean changed = after.size() == 0 || after.size() != before.size();
+        for (int i = 0; i < before.size() && !changed; i++)
+            changed = repr(before.get(i)) != before.get(i);
+        return changed;
+    }
+
+    /**
+     * Collects the hints of a clause obtained by dropping literals false at level 0: their unit clauses and the
+     * clause itself.
+     */
+    private void collectDroppedHints(long id, IntVec before, IntVec after) {
+        nHints = 0;
+        hintStamp++;
+        for (int i = 0; i < after.size(); i++)
+            hintStamps[var(after.get(i))] = hintStamp;
+        for (int i = 0; i < before.size(); i++) {
+            int lit = before.get(i);
+            if (hintStamps[var(lit)] != hintStamp) {
+                hintStamps[var(lit)] = hintStamp;
+                pushHint(unitIds[not(lit)]);
+            }
+        }
+        pushHint(id);
+    }
+
+    /**
+     * Remembers a simplified problem clause.  LRAT requires the ids of derived clauses to follow the ids of all
+     * problem clauses, so the replacement can only be recorded once all of them are added.
+     */
+    private void deferReplace(long id, IntVec before, IntVec after) {
+        if (after == null || !changed(before, after)) {
+            return;
+        }
+        int n = deferred.size() / 2;
+        if (n == deferredIds.length) {
+            deferredIds = Arrays.copyOf(deferredIds, Math.max(8, 2 * n));
+        }
+        deferredIds[n] = id;
+        IntVec copy = new IntVec(before.size());
+        before.copyTo(copy);
+        deferred.push(copy);
+        deferred.push(after);
+    }
+
+    /**
+     * Records the problem clauses simplified before the first solve call and moves the ids of the simplified
+     * clauses in use to their replacements.
+     */
+    private void recordDeferred() {
+        solveCalled = true;
+        LongLongMap replaced = new LongLongMap();
+        for (int k = 0; k < deferred.size() / 2; k++) {
+            long id = deferredIds[k];
+            IntVec before = deferred.get(2 * k);
+            IntVec after = deferred.get(2 * k + 1);
+            collectDroppedHints(id, before, after);
+            long replacement = proofAdd(after);
+            proof.delete(id, before);
+            if (after.size() == 1) {
+                unitIds[after.get(0)] = replacement;
+            } else if (after.size() == 2) {
+                long key = binaryKey(after.get(0), after.get(1));
+                if (binaryIds.get(key, 0) == id) {
+                    binaryIds.put(key, replacement);
+                }
+            } else if (after.size() > 2) {
+                replaced.put(id, replacement);
+            }
+        }
+        if (replaced.size() > 0) {
+            for (int i = 0; i < clauses.size(); i++) {
+                long replacement = replaced.get(ca.id(clauses.get(i)), 0);
+                if (replacement != 0) {
+                    ca.setId(clauses.get(i), replacement);
+                }
+            }
+        }
+        deferred.clear();
+        deferredIds = new long[0];
+    }
+
+    /**
+     * Records the deletion of a clause.  The clause may be the reason of a level 0 literal, so the level 0 literals
+     * are recorded as unit clauses first, in DRAT proofs as well since strict checkers do not ignore the deletion of
+     * reasons.
+     */
+    private void proofDelete(int cref) {
+        deriveUnits();
+        proofLits.clear();
+        for (int i = 0; i < ca.size(cref); i++)
+            proofLits.push(ca.get(cref, i));
+        proof.delete(proofHints ? ca.id(cref) : 0, proofLits);
+    }
+
+    private void proofDeleteBinary(int lit1, int lit2) {
+        long id = 0;
+        deriveUnits();
+        if (proofHints) {
+            id = binaryIds.remove(binaryKey(lit1, lit2), 0);
+        }
+        proofLits.clear();
+        proofLits.push(lit1).push(lit2);
+        proof.delete(id, proofLits);
+    }
+
+    /**
+     * Records the deletion of a satisfied binary clause.  Both of its watchers are removed, only the one with the
+     * smaller first literal records the deletion.
+     */
+    private void proofDeleteSatisfiedBinary(int lit1, int lit2) {
+        if (lit1 < lit2) {
+            proofDeleteBinary(lit1, lit2);
+        }
+    }
+
+    /**
+     * Records the empty clause, which follows from the conflict at level 0.
+     */
+    private void proofRefute(int confl) {
+        if (proof != null) {
+            proofLits.clear();
+            if (proofHints) {
+                collectHints(confl, -1, proofLits);
+            }
+            proofAdd(proofLits);
+        }
+    }
+
+    private static long binaryKey(int lit1, int lit2) {
+        return lit1 < lit2 ? (long) lit1 << 32 | lit2 : (long) lit2 << 32 | lit1;
+    }
+
+    /**
+     * Stores the id of a binary clause.  A duplicate of a binary clause is not attached, but stays in the proof.
+     *
+     * @return false if the clause is a duplicate and must not be attached
+     */
+    private boolean registerBinary(IntVec lits, long id) {
+        long key = binaryKey(lits.get(0), lits.get(1));
+        if (binaryIds.containsKey(key)) {
+            return false;
+        }
+        binaryIds.put(key, id);
+        return true;
+    }
+
+    private long clauseId(int cref) {
+        if (cref == binConflict) {
+            return binaryIds.get(binaryKey(ca.get(cref, 0), ca.get(cref, 1)), 0);
+        }
+        return ca.id(cref);
+    }
+
+    private long reasonId(int var) {
+        int r = reasons[var];
+        if (isBinaryReason(r)) {
+            int lit = value(mkLit(var, false)) == LBool.TRUE ? mkLit(var, false) : mkLit(var, true);
+            return binaryIds.get(binaryKey(lit, binaryReasonLit(r)), 0);
+        }
+        return ca.id(r);
+    }
+
+    /**
+     * Records the literals propagated at level 0 as unit clauses, so their reasons may be deleted and their ids
+     * can be used as hints.
+     */
+    private void deriveUnits() {
+        int end = decisionLevel() == 0 ? trail.size() : trailLimits.get(0);
+        for (; unitsWithIds < end; unitsWithIds++) {
+            int lit = trail.get(unitsWithIds);
+            if (unitIds[lit] != 0) {
+                continue;
+            }
+            int r = reasons[var(lit)];
+            assert r != CREF_UNDEF;
+            nHints = 0;
+            if (isBinaryReason(r)) {
+                pushHint(unitIds[not(binaryReasonLit(r))]);
+            } else {
+                for (int k = 1; k < ca.size(r); k++)
+                    pushHint(unitIds[not(ca.get(r, k))]);
+            }
+            pushHint(reasonId(var(lit)));
+            unitLits.clear();
+            unitLits.push(lit);
+            unitIds[lit] = proofAdd(unitLits);
+        }
+    }
+
+    /**
+     * Collects the hints of a clause whose literals are all false and follow, by unit propagation, from a conflict or
+     * from the assignment of a variable: the unit clauses of the level 0 literals involved, the reasons of the other
+     * literals involved in trail order and finally the conflicting clause, respectively the reason of the variable.
+     *
+     * @param confl      the conflicting clause, or CREF_UNDEF
+     * @param impliedVar if there is no conflict, the variable of the clause whose reason is the final hint
+     * @param lits       the clause
+     */
+    private void collectHints(int confl, int impliedVar, IntVec lits) {
+        deriveUnits();
+        nHints = 0;
+        nHintPositions = 0;
+        hintStamp++;
+        for (int i = 0; i < lits.size(); i++)
+            hintStamps[var(lits.get(i))] = hintStamp;
+        hintStack.clear();
+        if (confl != CREF_UNDEF) {
+            for (int k = 0; k < ca.size(confl); k++)
+                visitHint(ca.get(confl, k));
+        } else {
+            hintStack.push(impliedVar);
+        }
+        while (hintStack.size() > 0) {
+            int x = hintStack.last();
+            hintStack.pop();
+            int r = reasons[x];
+            if (isBinaryReason(r)) {
+                visitHint(binaryReasonLit(r));
+            } else {
+                for (int k = 1; k < ca.size(r); k++)
+                    visitHint(ca.get(r, k));
+            }
+        }
+        Arrays.sort(hintPositions, 0, nHintPositions);
+        for (int i = 0; i < nHintPositions; i++)
+            pushHint(reasonId(var(trail.get(hintPositions[i]))));
+        pushHint(confl != CREF_UNDEF ? clauseId(confl) : reasonId(impliedVar));
+    }
+
+    private void visitHint(int lit) {
+        int x = var(lit);
+        if (hintStamps[x] == hintStamp) {
+            return;
+        }
+        hintStamps[x] = hintStamp;
+        if (levels[x] == 0) {
+            pushHint(unitIds[not(lit)]);
+            return;
+        }
+        assert reasons[x] != CREF_UNDEF;
+        hintStack.push(x);
+        if (nHintPositions == hintPositions.length) {
+            hintPositions = Arrays.copyOf(hintPositions, 2 * nHintPositions);
+        }
+        hintPositions[nHintPositions++] = trailPos[x];
+    }
+
+    ////////////////////////
+    // Garbage collection //
+    ////////////////////////
+    private void checkGarbage() {
+        if (ca.wasted() > ca.size() * params.garbage_frac) {
+            garbageCollect();
         }
-        varHeap.restoreHeapProperty();
     }
 
-    private void claBumpActivity(MSJClause clause) {
-        clause.bumpActivity(params.cla_inc);
-        if (clause.activity() > 1e20) {
+    /**
+     * Compacts the clause arena by copying all live clauses into a new arena and relocating all references to them.
+     */
+    private void garbageCollect() {
+        purgeExplanations();
+        MSJClauseArena to = new MSJClauseArena(ca.size() - ca.wasted(), ca.hasIds());
+        for (int i = 0; i < watches.size(); i++) {
+            IntVec ws = watches.get(i);
+            for (int j = 0; j < ws.size(); j += 2)
+                ws.set(j, ca.reloc(ws.get(j), to));
+        }
+        for (int i = 0; i < trail.size(); i++) {
+            int x = var(trail.get(i));
+            if (reasons[x] >= 0) {
+                reasons[x] = ca.reloc(reasons[x], to);
+            }
+        }
+        for (int tier = MSJClauseArena.CORE; tier <= MSJClauseArena.LOCAL; tier++) {
+            IntVec cs = learnts(tier);
+            for (int i = 0; i < cs.size(); i++)
+                cs.set(i, ca.reloc(cs.get(i), to));
+        }
+        for (int i = 0; i < clauses.size(); i++)
+            clauses.set(i, ca.reloc(clauses.get(i), to));
+        for (int i = 0; i < explanations.size(); i++)
+            explanations.set(i, ca.reloc(explanations.get(i), to));
+        binConflict = ca.reloc(binConflict, to);
+        ca = to;
+    }
+
+    ////////////////
+    // Activities //
+    ////////////////
+    private void claBumpActivity(int cref) {
+        ca.setActivity(cref, (float) (ca.activity(cref) + params.cla_inc));
+        if (ca.activity(cref) > 1e20) {
             claRescaleActivity();
         }
     }
@@ -656,8 +4109,8 @@ public class MSJCoreProver {
     }
 
     private void claRescaleActivity() {
-        for (int i = 0; i < learnts.size(); i++)
-            learnts.get(i).rescaleActivity();
+        for (int i = 0; i < learntsLocal.size(); i++)
+            ca.setActivity(learntsLocal.get(i), (float) (ca.activity(learntsLocal.get(i)) * 1e-20));
         params.cla_inc *= 1e-20;
     }
 
@@ -672,78 +4125,251 @@ public class MSJCoreProver {
         return clauses.size() + stats.n_bin_clauses;
     }
 
-    private static double luby(double y, int x) {
-        int size, seq;
-        for (size = 1, seq = 0; size < x + 1; seq++, size = 2 * size + 1) ;
-        while (size - 1 != x) {
-            size = (size - 1) >> 1;
-            seq--;
-            x = x % size;
+    private int nLearnts() {
+        return learntsCore.size() + learntsTier2.size() + learntsLocal.size();
+    }
+
+    /**
+     * Adds the time since the last call to the statistics of the current restart mode.
+     */
+    private void accountModeTime() {
+        long now = System.nanoTime();
+        if (stableMode) {
+            stats.stable_time += now - modeStart;
+        } else {
+            stats.focused_time += now - modeStart;
         }
-        return Math.pow(y, seq);
+        modeStart = now;
+    }
+
+    private void switchMode() {
+        accountModeTime();
+        stats.mode_switches++;
+        stableMode = !stableMode;
     }
 
     //////////////////////////////////
     // Main entry point for solving //
     //////////////////////////////////
     public boolean solve(IntVec assumps) {
-        simplifyDB();
-        if (!ok) {
-            return false;
+        return solveLimited(assumps) == LBool.TRUE;
+    }
+
+    /**
+     * Solves the clauses under the given assumptions like {@link #solve(IntVec)}, but stops early if the prover is
+     * interrupted or a budget runs out.  The prover returns to level 0 and can be used further in either case.
+     *
+     * @return {@link LBool#TRUE} if satisfiable, {@link LBool#FALSE} if unsatisfiable and {@link LBool#UNDEF} if the
+     * prover was interrupted or ran out of budget
+     */
+    public byte solveLimited(IntVec assumps) {
+        stopEnumeration();
+        return solveLimited(assumps, false);
+    }
+
+    /**
+     * Solves like {@link #solveLimited(IntVec)}.  When resuming, the search continues from the current trail of an
+     * enumeration, which is also kept if a model is found or the budget runs out.
+     */
+    private byte solveLimited(IntVec assumps, boolean resume) {
+        byte status = LBool.UNDEF;
+        if (!resume) {
+            conflict.clear();
+            assumptions.clear();
+            assumps.copyTo(assumptions);
+            if (proofHints && !solveCalled) {
+                recordDeferred();
+            }
+            if (xorDirty && ok) {
+                buildXorMatrix();
+            }
+            simplifyDB();
+            if (!ok) {
+                return flushProof(LBool.FALSE);
+            }
+            nextTier2Reduce = stats.conflicts + params.tier2_reduce_interval;
+            nextLocalReduce = stats.conflicts + params.local_reduce_interval;
+            learntsize_adjust_confl = learntsize_adjust_start_confl;
+            learntsize_adjust_cnt = (int) learntsize_adjust_confl;
+            if (!assumeAll(assumps)) {
+                return flushProof(LBool.FALSE);
+            }
+            if (params.log) {
+                System.out.print("===============================[MiniSAT Java]======================\n");
+                System.out.print("| Conflicts |     ORIGINAL     |                 LEARNT                   |\n");
+                System.out.print("|           | Clauses Literals |    Core   Tier2   Local Literals  Lit/Cl |\n");
+                System.out.print("===================================================================\n");
+            }
+            chronoBacktrack = params.chrono_backtrack && !proofHints;
+            restarts.reset();
+            nextRephase = stats.conflicts + params.rephase_interval;
+            stableMode = restarts.stable();
+        }
+        modeStart = System.nanoTime();
+        if (nextInprocess == 0) {
+            nextInprocess = params.inprocess_interval;
+        }
+        while (status == LBool.UNDEF && withinBudget()) {
+            status = search();
+            boolean importing = exchange != null && exchange.pending();
+            if (status == LBool.UNDEF && !enumChrono && (importing || stats.conflicts >= nextInprocess)) {
+                cancelUntil(0);
+                if (importing) {
+                    importClauses();
+                }
+                if (ok && stats.conflicts >= nextInprocess) {
+                    inprocess();
+                }
+                if (!ok || !assumeAll(assumps)) {
+                    status = LBool.FALSE;
+                }
+            }
+        }
+        accountModeTime();
+        if (params.log && !resume) {
+            System.out.print("===================================================================\n");
+        }
+        if (enumState == ENUM_OFF || status == LBool.FALSE) {
+            cancelUntil(0);
+        }
+        return flushProof(status);
+    }
+
+    /**
+     * Requests the prover to stop searching.  May be called from any thread, solve calls return as soon as possible
+     * until {@link #clearInterrupt()} is called.
+     */
+    public void interrupt() {
+        interruptRequested = true;
+    }
+
+    public void clearInterrupt() {
+        interruptRequested = false;
+    }
+
+    /**
+     * Limits the following solve calls to the given number of conflicts, after which they return
+     * {@link LBool#UNDEF}.
+     *
+     * @param conflicts the number of conflicts from now on
+     */
+    public void setConfBudget(long conflicts) {
+        conflictBudget = stats.conflicts + conflicts;
+    }
+
+    /**
+     * Limits the following solve calls to the given number of propagations.
+     *
+     * @param propagations the number of propagations from now on
+     */
+    public void setPropBudget(long propagations) {
+        propagationBudget = stats.propagations + propagations;
+    }
+
+    /**
+     * Limits the following solve calls to the given wall clock time.
+     *
+     * @param millis the time from now on in milliseconds
+     */
+    public void setTimeBudget(long millis) {
+        deadline = System.nanoTime() + millis * 1000000;
+    }
+
+    /**
+     * Limits the memory of the learnt clauses.  Solve calls stop when the learnt clauses outgrow the limit, which
+     * holds until enough learnt clauses are deleted.
+     *
+     * @param bytes the memory of the clause arena taken by learnt clauses
+     */
+    public void setLearntMemoryBudget(long bytes) {
+        learntMemoryBudget = bytes;
+    }
+
+    public void budgetOff() {
+        conflictBudget = -1;
+        propagationBudget = -1;
+        learntMemoryBudget = -1;
+        deadline = -1;
+    }
+
+    private boolean withinBudget() {
+        return !interruptRequested
+                && (conflictBudget < 0 || stats.conflicts < conflictBudget)
+                && (propagationBudget < 0 || stats.propagations < propagationBudget)
+                && (learntMemoryBudget < 0 || learntMemory() < learntMemoryBudget)
+                && (deadline < 0 || System.nanoTime() < deadline);
+    }
+
+    private long learntMemory() {
+        return 4 * (stats.learnts_literals + (long) MSJClauseArena.HEADER_SIZE * nLearnts());
+    }
+
+    /**
+     * Sets the exchange through which the prover shares its learnt clauses with other provers on the same clauses.
+     *
+     * @param exchange the exchange, or null to stop sharing
+     */
+    public void setClauseExchange(ClauseExchange exchange) {
+        if (exchange != null && proof != null) {
+            throw new IllegalStateException("Imported clauses cannot be justified in a proof");
+        }
+        if (exchange != null && (linWatches != null || xorStarts.size() > 1)) {
+            throw new IllegalStateException("Clauses learnt from linear or XOR constraints cannot be shared");
+        }
+        this.exchange = exchange;
+    }
+
+    /**
+     * Adds the clauses learnt by other provers at level 0.
+     */
+    private void importClauses() {
+        int lbd;
+        while (ok && (lbd = exchange.poll(imported)) >= 0) {
+            IntVec clause = simplifyProblemClause(imported);
+            if (clause != null) {
+                stats.imported++;
+                attachClause(clause, true, lbd, 0);
+                propagateRoot();
+            }
         }
-        max_learnts = nClauses() * learntsize_factor;
-        learntsize_adjust_confl = learntsize_adjust_start_confl;
-        learntsize_adjust_cnt = (int) learntsize_adjust_confl;
-        LBool status = LBool.UNDEF;
+    }
+
+    /**
+     * Assumes the representatives of the given literals on decision levels 1 to n.  If an assumption fails, the
+     * conflict is analyzed and the prover returns to level 0.
+     *
+     * @return false if the assumptions are inconsistent with the clauses
+     */
+    private boolean assumeAll(IntVec assumps) {
         rootLevel = assumps.size();
         for (int i = 0; i < assumps.size(); i++) {
-            int p = assumps.get(i);
-            assert (var(p) < vars.size());
+            assert (var(assumps.get(i)) < nVars);
+            int p = repr(assumps.get(i));
             if (!assume(p)) {
-                MSJClause r = v(p).reason();
-                if (r != null) {
-                    MSJClause confl = null;
-                    if (r.isLit()) {
-                        confl = new MSJClause(2);
-                        confl.set(1, not(p));
-                        confl.set(0, r.lit());
-                    } else {
-                        confl = r;
-                    }
-                    analyzeFinal(confl, true);
+                int r = reason(var(p));
+                if (r != CREF_UNDEF) {
+                    analyzeFinal(r, true);
                     conflict.push(not(p));
                 } else {
                     conflict.clear();
                     conflict.push(not(p));
+                    if (levels[var(p)] > 0) {
+                        // the negation of p was assumed before
+                        conflict.push(p);
+                    }
                 }
                 cancelUntil(0);
                 return false;
             }
-            MSJClause confl = propagate();
-            if (confl != null) {
+            int confl = propagate();
+            if (confl != CREF_UNDEF) {
                 analyzeFinal(confl, false);
                 assert (conflict.size() > 0);
                 cancelUntil(0);
                 return false;
             }
         }
-        if (params.log) {
-            System.out.print("===============================[MiniSAT Java]======================\n");
-            System.out.print("| Conflicts |     ORIGINAL     |              LEARNT              |\n");
-            System.out.print("|           | Clauses Literals |   Limit Clauses Literals  Lit/Cl |\n");
-            System.out.print("===================================================================\n");
-        }
-        int curr_restarts = 0;
-        while (status == LBool.UNDEF) {
-            double rest_base = luby(restart_inc, curr_restarts);
-            status = search((int) (rest_base * restart_first));
-            curr_restarts++;
-        }
-        if (params.log) {
-            System.out.print("===================================================================\n");
-        }
-        cancelUntil(0);
-        return status == LBool.TRUE;
+        return true;
     }
 
     public boolean solve() {
@@ -751,6 +4377,23 @@ public class MSJCoreProver {
         return solve(tmp);
     }
 
+    /**
+     * Returns the assumptions of the last call of {@link #solve(IntVec)} which take part in the final conflict, i.e.
+     * a subset of the assumptions which is already inconsistent with the clauses.
+     *
+     * @return the failed assumptions, empty if the last call was satisfiable or the clauses are unsatisfiable
+     */
+    public IntVec failedAssumptions() {
+        IntVec failed = new IntVec();
+        for (int i = 0; i < assumptions.size(); i++) {
+            int p = assumptions.get(i);
+            if (conflict.contains(not(repr(p))) && !failed.contains(p)) {
+                failed.push(p);
+            }
+        }
+        return failed;
+    }
+
     //////////////////////////////////
     // Additional Stats             //
     //////////////////////////////////
@@ -764,7 +4407,7 @@ public class MSJCoreProver {
      */
     public List<Integer> getModel() {
         List<Integer> set = new LinkedList<Integer>();
-        for (int i = 0; i < vars.size(); i++)
+        for (int i = 0; i < nVars; i++)
             set.add(MSJCoreProver.mkLit(i, !model.get(i)));
         return set;
     }
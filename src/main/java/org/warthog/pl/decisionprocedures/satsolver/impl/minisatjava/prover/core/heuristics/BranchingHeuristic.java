@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics;
+
+/**
+ * Branching heuristic of the CDCL core.  The prover reports assignments, conflicts and backtracking and asks the
+ * heuristic for the next decision variable.  Saved polarities are handled by the prover.
+ */
+public interface BranchingHeuristic {
+  /**
+   * Registers a new variable.  Variables are numbered consecutively from 0.
+   *
+   * @param var the new variable
+   */
+  void newVar(int var);
+
+  /**
+   * Called whenever a variable is assigned, by a decision or by propagation.
+   *
+   * @param var the assigned variable
+   */
+  void assigned(int var);
+
+  /**
+   * Called whenever a variable becomes unassigned during backtracking.
+   *
+   * @param var the unassigned variable
+   */
+  void unassigned(int var);
+
+  /**
+   * Called once for every variable taking part in the analysis of a conflict.
+   *
+   * @param var the variable
+   */
+  void bump(int var);
+
+  /**
+   * Called after the analysis of a conflict, before backtracking.
+   */
+  void conflict();
+
+  /**
+   * Returns the next decision variable.
+   *
+   * @param assigns the prover's assignment, indexed by literal
+   * @return an unassigned variable, or -1 if all variables are assigned
+   */
+  int nextVar(byte[] assigns);
+
+  /**
+   * Returns the variable {@link #nextVar(byte[])} would return, without taking it.
+   *
+   * @param assigns the prover's assignment, indexed by literal
+   * @return an unassigned variable, or -1 if all variables are assigned
+   */
+  int peekVar(byte[] assigns);
+
+  /**
+   * @return true if variable {@code a} is picked before variable {@code b} when both are unassigned
+   */
+  boolean prefers(int a, int b);
+}
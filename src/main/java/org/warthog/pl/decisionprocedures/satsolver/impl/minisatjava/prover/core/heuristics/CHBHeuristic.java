@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+/**
+ * Conflict history based branching (Liang et al., AAAI 2016).  After each propagation phase, the scores of the
+ * variables assigned in it move towards a reward which is the higher the more recently the variable took part in a
+ * conflict.  A propagation phase ends either with a conflict or with the next decision.
+ */
+public class CHBHeuristic extends ScoreHeuristic {
+  private final static double ALPHA_MIN = 0.06;
+  private final static double ALPHA_STEP = 1e-6;
+  private double alpha = 0.4;
+  private int conflicts = 0;
+  private IntVec lastConflict = new IntVec();
+  private IntVec propagated = new IntVec();
+
+  @Override
+  public void newVar(int var) {
+    lastConflict.push(0);
+    super.newVar(var);
+  }
+
+  @Override
+  public void assigned(int var) {
+    propagated.push(var);
+  }
+
+  @Override
+  public void bump(int var) {
+    lastConflict.set(var, conflicts + 1);
+  }
+
+  @Override
+  public void conflict() {
+    conflicts++;
+    reward(1.0);
+    if (alpha > ALPHA_MIN) {
+      alpha -= ALPHA_STEP;
+    }
+  }
+
+  @Override
+  public int nextVar(byte[] assigns) {
+    reward(0.9);
+    return super.nextVar(assigns);
+  }
+
+  private void reward(double multiplier) {
+    for (int i = 0; i < propagated.size(); i++) {
+      int var = propagated.get(i);
+      double reward = multiplier / (conflicts - lastConflict.get(var) + 1);
+      setScore(var, (1 - alpha) * score(var) + alpha * reward);
+    }
+    propagated.clear();
+  }
+}
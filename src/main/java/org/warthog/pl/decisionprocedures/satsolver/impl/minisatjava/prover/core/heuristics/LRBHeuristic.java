@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+/**
+ * Learning rate branching (Liang et al., SAT 2016).  The score of a variable is an exponential moving average of the
+ * share of conflicts it took part in while it was assigned.  The average is updated when the variable is unassigned.
+ */
+public class LRBHeuristic extends ScoreHeuristic {
+  private final static double ALPHA_MIN = 0.06;
+  private final static double ALPHA_STEP = 1e-6;
+  private double alpha = 0.4;
+  private int learntCounter = 0;
+  private IntVec assignedAt = new IntVec();
+  private IntVec participated = new IntVec();
+
+  @Override
+  public void newVar(int var) {
+    assignedAt.push(0);
+    participated.push(0);
+    super.newVar(var);
+  }
+
+  @Override
+  public void assigned(int var) {
+    assignedAt.set(var, learntCounter);
+    participated.set(var, 0);
+  }
+
+  @Override
+  public void unassigned(int var) {
+    int interval = learntCounter - assignedAt.get(var);
+    if (interval > 0) {
+      double reward = (double) participated.get(var) / interval;
+      setScore(var, (1 - alpha) * score(var) + alpha * reward);
+    }
+    super.unassigned(var);
+  }
+
+  @Override
+  public void bump(int var) {
+    participated.set(var, participated.get(var) + 1);
+  }
+
+  @Override
+  public void conflict() {
+    learntCounter++;
+    if (alpha > ALPHA_MIN) {
+      alpha -= ALPHA_STEP;
+    }
+  }
+}
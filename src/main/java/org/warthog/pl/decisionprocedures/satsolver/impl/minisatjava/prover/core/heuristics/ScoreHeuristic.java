@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntHeap;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.LBool;
+
+import java.util.Arrays;
+
+/**
+ * Base class for heuristics which pick the unassigned variable with the highest score.  Variables stay in the heap
+ * when they are assigned and are only dropped lazily in {@link #nextVar(byte[])}.
+ */
+public abstract class ScoreHeuristic implements BranchingHeuristic {
+  protected int nVars = 0;
+  protected double[] scores = new double[16];
+  private IntHeap heap = new IntHeap(scores);
+
+  @Override
+  public void newVar(int var) {
+    if (var == scores.length) {
+      scores = Arrays.copyOf(scores, 2 * scores.length);
+      heap.setKeys(scores);
+    }
+    nVars++;
+    scores[var] = 0;
+    heap.insert(var);
+  }
+
+  @Override
+  public void unassigned(int var) {
+    if (!heap.inHeap(var)) {
+      heap.insert(var);
+    }
+  }
+
+  @Override
+  public int nextVar(byte[] assigns) {
+    while (!heap.isEmpty()) {
+      int next = heap.removeMax();
+      if (assigns[next + next] == LBool.UNDEF) {
+        return next;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int peekVar(byte[] assigns) {
+    while (!heap.isEmpty() && assigns[heap.max() + heap.max()] != LBool.UNDEF)
+      heap.removeMax();
+    return heap.isEmpty() ? -1 : heap.max();
+  }
+
+  @Override
+  public boolean prefers(int a, int b) {
+    return scores[a] > scores[b];
+  }
+
+  protected double score(int var) {
+    return scores[var];
+  }
+
+  /**
+   * Sets the score of a variable and restores its position in the heap.
+   */
+  protected void setScore(int var, double score) {
+    double old = scores[var];
+    scores[var] = score;
+    if (score > old) {
+      heap.increase(var);
+    } else {
+      heap.decrease(var);
+    }
+  }
+
+  /**
+   * Multiplies all scores by a positive factor.  This preserves the order, so the heap is left untouched.
+   */
+  protected void rescaleScores(double factor) {
+    for (int i = 0; i < nVars; i++)
+      scores[i] *= factor;
+  }
+}
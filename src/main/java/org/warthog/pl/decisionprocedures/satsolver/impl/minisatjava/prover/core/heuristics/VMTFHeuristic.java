@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.LBool;
+
+import java.util.Arrays;
+
+/**
+ * Variable move-to-front (Ryan 2004, Biere and Froehlich 2015).  Variables form a doubly linked queue ordered by the
+ * time they were last bumped.  Variables of a conflict are moved to the end of the queue in the order of their old
+ * position, and decisions are taken from the end.  A search pointer caches the position behind which all variables
+ * are assigned.
+ */
+public class VMTFHeuristic implements BranchingHeuristic {
+  private final static int NONE = -1;
+  private IntVec prev = new IntVec();
+  private IntVec next = new IntVec();
+  private IntVec stamp = new IntVec();
+  private int first = NONE;
+  private int last = NONE;
+  private int search = NONE;
+  private int stampCounter = 0;
+  private IntVec bumped = new IntVec();
+  private long[] sortKeys = new long[0];
+
+  @Override
+  public void newVar(int var) {
+    prev.push(NONE);
+    next.push(NONE);
+    stamp.push(0);
+    enqueueLast(var);
+    search = var;
+  }
+
+  @Override
+  public void assigned(int var) {
+  }
+
+  @Override
+  public void unassigned(int var) {
+    if (search == NONE || stamp.get(var) > stamp.get(search)) {
+      search = var;
+    }
+  }
+
+  @Override
+  public void bump(int var) {
+    bumped.push(var);
+  }
+
+  @Override
+  public void conflict() {
+    if (bumped.size() > sortKeys.length) {
+      sortKeys = new long[Math.max(bumped.size(), 2 * sortKeys.length)];
+    }
+    for (int i = 0; i < bumped.size(); i++)
+      sortKeys[i] = ((long) stamp.get(bumped.get(i)) << 32) | bumped.get(i);
+    Arrays.sort(sortKeys, 0, bumped.size());
+    if (stampCounter > Integer.MAX_VALUE - bumped.size()) {
+      restamp();
+    }
+    for (int i = 0; i < bumped.size(); i++) {
+      int var = (int) sortKeys[i];
+      if (var != last) {
+        dequeue(var);
+        enqueueLast(var);
+      } else {
+        stamp.set(var, ++stampCounter);
+      }
+    }
+    bumped.clear();
+  }
+
+  @Override
+  public int nextVar(byte[] assigns) {
+    int var = search;
+    while (var != NONE && assigns[var + var] != LBool.UNDEF)
+      var = prev.get(var);
+    search = var;
+    return var;
+  }
+
+  @Override
+  public int peekVar(byte[] assigns) {
+    return nextVar(assigns);
+  }
+
+  @Override
+  public boolean prefers(int a, int b) {
+    return stamp.get(a) > stamp.get(b);
+  }
+
+  private void enqueueLast(int var) {
+    prev.set(var, last);
+    next.set(var, NONE);
+    if (last == NONE) {
+      first = var;
+    } else {
+      next.set(last, var);
+    }
+    last = var;
+    stamp.set(var, ++stampCounter);
+  }
+
+  private void dequeue(int var) {
+    int p = prev.get(var);
+    int n = next.get(var);
+    if (p == NONE) {
+      first = n;
+    } else {
+      next.set(p, n);
+    }
+    if (n == NONE) {
+      last = p;
+    } else {
+      prev.set(n, p);
+    }
+  }
+
+  /**
+   * Renumbers the stamps in queue order when the counter is about to overflow.
+   */
+  private void restamp() {
+    stampCounter = 0;
+    for (int var = first; var != NONE; var = next.get(var))
+      stamp.set(var, ++stampCounter);
+  }
+}
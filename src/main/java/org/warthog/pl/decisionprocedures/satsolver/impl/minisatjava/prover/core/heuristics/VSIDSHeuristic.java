@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics;
+
+/**
+ * Exponential VSIDS: bumped variables gain the current increment, which grows by 1/decay after every conflict.  All
+ * scores are rescaled once the increment gets too large, so no decay pass over all variables is needed.
+ */
+public class VSIDSHeuristic extends ScoreHeuristic {
+  private final static double RESCALE_LIMIT = 1e100;
+  private final double decay;
+  private double inc = 1;
+
+  public VSIDSHeuristic() {
+    this(0.95);
+  }
+
+  public VSIDSHeuristic(double decay) {
+    this.decay = decay;
+  }
+
+  @Override
+  public void assigned(int var) {
+  }
+
+  @Override
+  public void bump(int var) {
+    double score = score(var) + inc;
+    if (score > RESCALE_LIMIT) {
+      rescaleScores(1 / RESCALE_LIMIT);
+      inc /= RESCALE_LIMIT;
+      score = score(var) + inc;
+    }
+    setScore(var, score);
+  }
+
+  @Override
+  public void conflict() {
+    inc /= decay;
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.phases;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A ProbSAT local search over flat clause arrays.  The prover runs it to compute phases for rephasing, it also serves
+ * as a standalone incomplete solver.  Literals are encoded as in the prover, a phase assignment maps each variable to
+ * the sign of its true literal.
+ * <p>
+ * Each flip picks a random falsified clause and flips one of its variables with a probability decreasing in the
+ * break count of the variable, the number of clauses which become false by the flip.  Break counts are cached per
+ * variable: each clause keeps the number of its true literals and the XOR of their variables, which is the critical
+ * variable of a clause with a single true literal.  The search runs in slices of bounded flips, see
+ * {@link #walk(long)}, and remembers the best assignment seen.
+ */
+public class PhaseWalker {
+  /* break count probabilities are tabulated up to this break count */
+  private final static int MAX_BREAK = 64;
+
+  private final int nVars;
+  private final Random random;
+  private int[] lits = new int[64];
+  private int nLits;
+  private int[] starts = new int[16];
+  private int nClauses;
+  private int maxLength;
+  private int empty;
+  private int[] occStarts;
+  private int[] occs;
+  private double[] probs;
+  private double[] scores;
+
+  private boolean[] phases;
+  private int[] trueCount;
+  private int[] critical;
+  private int[] breaks;
+  private int[] unsat;
+  private int[] unsatPos;
+  private int nUnsat;
+  private long flips;
+
+  /* the best assignment is the saved one followed by the first bestFlips flipped variables, at most nVars flips are
+     kept and overflow is set once further flips were dropped */
+  private boolean[] saved;
+  private final IntVec flipped = new IntVec();
+  private int bestFlips;
+  private boolean overflow;
+  private int bestUnsat;
+
+  public PhaseWalker(int nVars, Random random) {
+    this.nVars = nVars;
+    this.random = random;
+  }
+
+  /**
+   * Adds a clause.  Duplicate literals are removed, tautologies are ignored.  Clauses must not be added once the
+   * walker started.
+   *
+   * @param clause the literals of the clause
+   */
+  public void addClause(IntVec clause) {
+    int start = nLits;
+    for (int i = 0; i < clause.size(); i++) {
+      int lit = clause.get(i);
+      boolean duplicate = false;
+      for (int j = start; j < nLits; j++)
+        if (lits[j] == lit) {
+          duplicate = true;
+        } else if (lits[j] == (lit ^ 1)) {
+          nLits = start;
+          return;
+        }
+      if (!duplicate) {
+        if (nLits == lits.length) {
+          lits = Arrays.copyOf(lits, 2 * nLits);
+        }
+        lits[nLits++] = lit;
+      }
+    }
+    if (nLits == start) {
+      empty++;
+      return;
+    }
+    if (nClauses + 2 > starts.length) {
+      starts = Arrays.copyOf(starts, 2 * starts.length);
+    }
+    maxLength = Math.max(maxLength, nLits - start);
+    starts[++nClauses] = nLits;
+  }
+
+  public int nClauses() {
+    return nClauses + empty;
+  }
+
+  /**
+   * @return the number of flips since the walker started
+   */
+  public long flips() {
+    return flips;
+  }
+
+  /**
+   * Starts the search from the given assignment.
+   *
+   * @param start the start assignment, indexed by variable
+   */
+  public void start(boolean[] start) {
+    if (occs == null) {
+      buildOccurrences();
+      probs = probabilities(maxLength);
+      scores = new double[maxLength];
+    }
+    phases = Arrays.copyOf(start, nVars);
+    trueCount = new int[nClauses];
+    critical = new int[nClauses];
+    breaks = new int[nVars];
+    unsat = new int[nClauses];
+    unsatPos = new int[nClauses];
+    nUnsat = 0;
+    flips = 0;
+    for (int c = 0; c < nClauses; c++) {
+      for (int i = starts[c]; i < starts[c + 1]; i++)
+        if (isTrue(lits[i])) {
+          trueCount[c]++;
+          critical[c] ^= lits[i] >> 1;
+        }
+      if (trueCount[c] == 0) {
+        addUnsat(c);
+      } else if (trueCount[c] == 1) {
+        breaks[critical[c]]++;
+      }
+    }
+    saved = Arrays.copyOf(phases, nVars);
+    flipped.clear();
+    bestFlips = 0;
+    overflow = false;
+    bestUnsat = nUnsat;
+  }
+
+  /**
+   * Continues the search for at most the given number of flips or until all clauses are satisfied.
+   *
+   * @param maxFlips the number of flips of this slice
+   * @return the number of clauses falsified by the best assignment found since the start
+   */
+  public int walk(long maxFlips) {
+    for (long i = 0; i < maxFlips && nUnsat > 0; i++) {
+      int var = pickVar(unsat[random.nextInt(nUnsat)]);
+      flip(var);
+      if (flipped.size() <= nVars) {
+        flipped.push(var);
+      } else {
+        overflow = true;
+      }
+      if (nUnsat < bestUnsat) {
+        bestUnsat = nUnsat;
+        if (overflow) {
+          // saving the assignment costs as much as the flips which were dropped
+          System.arraycopy(phases, 0, saved, 0, nVars);
+          flipped.clear();
+          overflow = false;
+        }
+        bestFlips = flipped.size();
+      }
+    }
+    return bestUnsat + empty;
+  }
+
+  /**
+   * Copies the best assignment found since the start into the given array.
+   *
+   * @param best the array, indexed by variable
+   */
+  public void best(boolean[] best) {
+    System.arraycopy(saved, 0, best, 0, nVars);
+    for (int i = 0; i < bestFlips; i++) {
+      int var = flipped.get(i);
+      best[var] = !best[var];
+    }
+  }
+
+  /**
+   * The ProbSAT probabilities by break count: polynomial for clauses of up to three literals, exponential with a
+   * base growing with the clause length otherwise.
+   */
+  private static double[] probabilities(int maxLength) {
+    double[] probs = new double[MAX_BREAK + 1];
+    for (int b = 0; b <= MAX_BREAK; b++)
+      if (maxLength <= 3) {
+        probs[b] = Math.pow(1 + b, -2.38);
+      } else {
+        double base = maxLength == 4 ? 3.0 : maxLength == 5 ? 3.7 : maxLength == 6 ? 5.1 : 5.4;
+        probs[b] = Math.pow(base, -b);
+      }
+    return probs;
+  }
+
+  private boolean isTrue(int lit) {
+    return ((lit & 1) == 1) == phases[lit >> 1];
+  }
+
+  private void buildOccurrences() {
+    occStarts = new int[2 * nVars + 1];
+    for (int i = 0; i < nLits; i++)
+      occStarts[lits[i] + 1]++;
+    for (int l = 0; l < 2 * nVars; l++)
+      occStarts[l + 1] += occStarts[l];
+    occs = new int[nLits];
+    int[] fill = Arrays.copyOf(occStarts, 2 * nVars);
+    for (int c = 0; c < nClauses; c++)
+      for (int i = starts[c]; i < starts[c + 1]; i++)
+        occs[fill[lits[i]]++] = c;
+  }
+
+  private int pickVar(int clause) {
+    int from = starts[clause];
+    int to = starts[clause + 1];
+    double sum = 0;
+    for (int i = from; i < to; i++) {
+      sum += probs[Math.min(breaks[lits[i] >> 1], MAX_BREAK)];
+      scores[i - from] = sum;
+    }
+    double r = random.nextDouble() * sum;
+    int i = from;
+    while (i < to - 1 && scores[i - from] <= r)
+      i++;
+    return lits[i] >> 1;
+  }
+
+  private void flip(int var) {
+    flips++;
+    phases[var] = !phases[var];
+    int trueLit = 2 * var + (phases[var] ? 1 : 0);
+    int falseLit = trueLit ^ 1;
+    for (int i = occStarts[trueLit]; i < occStarts[trueLit + 1]; i++) {
+      int c = occs[i];
+      int count = trueCount[c]++;
+      if (count == 0) {
+        removeUnsat(c);
+        breaks[var]++;
+      } else if (count == 1) {
+        breaks[critical[c]]--;
+      }
+      critical[c] ^= var;
+    }
+    for (int i = occStarts[falseLit]; i < occStarts[falseLit + 1]; i++) {
+      int c = occs[i];
+      int count = --trueCount[c];
+      critical[c] ^= var;
+      if (count == 0) {
+        addUnsat(c);
+        breaks[var]--;
+      } else if (count == 1) {
+        breaks[critical[c]]++;
+      }
+    }
+  }
+
+  private void addUnsat(int c) {
+    unsatPos[c] = nUnsat;
+    unsat[nUnsat++] = c;
+  }
+
+  private void removeUnsat(int c) {
+    int last = unsat[--nUnsat];
+    unsat[unsatPos[c]] = last;
+    unsatPos[last] = unsatPos[c];
+  }
+}
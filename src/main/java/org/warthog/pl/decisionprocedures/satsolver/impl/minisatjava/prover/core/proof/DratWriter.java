@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.proof;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes a DRAT proof.  In binary DRAT a step is {@code 'a'} or {@code 'd'} followed by the variable-length encoded
+ * literals and a zero byte; in text it is a DIMACS clause, prefixed with {@code "d "} for deletions.  Clause ids and
+ * hints are ignored.
+ */
+public class DratWriter extends ProofWriter {
+  public DratWriter(WritableByteChannel channel, boolean binary) {
+    this(channel, binary, DEFAULT_BUFFER_SIZE);
+  }
+
+  public DratWriter(WritableByteChannel channel, boolean binary, int bufferSize) {
+    super(channel, binary, bufferSize);
+  }
+
+  @Override
+  public boolean needsHints() {
+    return false;
+  }
+
+  @Override
+  public void add(long id, IntVec lits, long[] hints, int nHints) {
+    if (binary) {
+      putByte('a');
+    }
+    putClause(lits);
+  }
+
+  @Override
+  public void delete(long id, IntVec lits) {
+    putByte('d');
+    if (!binary) {
+      putByte(' ');
+    }
+    putClause(lits);
+  }
+
+  private void putClause(IntVec lits) {
+    for (int i = 0; i < lits.size(); i++)
+      putLiteral(lits.get(i));
+    putEnd(true);
+  }
+}
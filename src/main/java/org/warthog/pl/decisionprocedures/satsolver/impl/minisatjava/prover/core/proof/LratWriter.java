@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.proof;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes an LRAT proof.  An addition consists of the clause id, the literals and the hints; a deletion of the ids of
+ * the deleted clauses.  In binary LRAT a step starts with {@code 'a'} or {@code 'd'}, ids are encoded as
+ * {@code 2 * id} (negative ids as {@code -2 * id + 1}) and literals as in binary DRAT, every list ends with a zero
+ * byte.  In text an addition is the line {@code id lits 0 hints 0} and a deletion the line {@code last d id 0},
+ * where {@code last} is the id of the latest addition.  Negative hints introduce the clauses of a RAT step.
+ */
+public class LratWriter extends ProofWriter {
+  private long lastId = 0;
+
+  public LratWriter(WritableByteChannel channel, boolean binary) {
+    this(channel, binary, DEFAULT_BUFFER_SIZE);
+  }
+
+  public LratWriter(WritableByteChannel channel, boolean binary, int bufferSize) {
+    super(channel, binary, bufferSize);
+  }
+
+  @Override
+  public boolean needsHints() {
+    return true;
+  }
+
+  @Override
+  public void add(long id, IntVec lits, long[] hints, int nHints) {
+    lastId = id;
+    if (binary) {
+      putByte('a');
+    }
+    putId(id);
+    for (int i = 0; i < lits.size(); i++)
+      putLiteral(lits.get(i));
+    putEnd(false);
+    for (int i = 0; i < nHints; i++)
+      putId(hints[i]);
+    putEnd(true);
+  }
+
+  @Override
+  public void delete(long id, IntVec lits) {
+    if (binary) {
+      putByte('d');
+    } else {
+      putNumber(lastId);
+      putByte('d');
+      putByte(' ');
+    }
+    putId(id);
+    putEnd(true);
+  }
+
+  private void putId(long id) {
+    if (binary) {
+      putVarint(id >= 0 ? 2 * id : -2 * id + 1);
+    } else {
+      putNumber(id);
+    }
+  }
+}
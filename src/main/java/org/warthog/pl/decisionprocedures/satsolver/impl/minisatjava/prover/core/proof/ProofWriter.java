@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.proof;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Sink for the clause additions and deletions of a prover, see {@link DratWriter} and {@link LratWriter}.  The steps
+ * are encoded into a direct buffer which is written to the channel whenever it is full, so recording a step neither
+ * allocates nor blocks in the common case.
+ * <p/>
+ * Literals are the prover's literals {@code 2 * var + sign}.  Variable {@code var} is variable {@code var + 1} of the
+ * DIMACS file the proof refers to.  Clause ids are only meaningful for LRAT: the original clauses are numbered from 1
+ * in the order they were added to the prover, derived clauses get the following ids.
+ */
+public abstract class ProofWriter implements Closeable {
+  public final static int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final byte[] digits = new byte[20];
+  protected final boolean binary;
+
+  protected ProofWriter(WritableByteChannel channel, boolean binary, int bufferSize) {
+    this.channel = channel;
+    this.binary = binary;
+    this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 64));
+  }
+
+  /**
+   * @return true if the prover has to pass the ids of the clauses justifying each added clause
+   */
+  public abstract boolean needsHints();
+
+  /**
+   * Records a clause derived by the prover.
+   *
+   * @param id     the id of the clause
+   * @param lits   its literals
+   * @param hints  the ids of the clauses which become unit, in this order, and finally falsified when the negation of
+   *               the clause is assumed
+   * @param nHints the number of hints
+   */
+  public abstract void add(long id, IntVec lits, long[] hints, int nHints);
+
+  /**
+   * Records the deletion of a clause.
+   *
+   * @param id   the id of the clause
+   * @param lits its literals
+   */
+  public abstract void delete(long id, IntVec lits);
+
+  protected final void putByte(int b) {
+    if (!buffer.hasRemaining()) {
+      drain();
+    }
+    buffer.put((byte) b);
+  }
+
+  /**
+   * Writes a non-negative number in the binary proof format: seven bits per byte, least significant first, the high
+   * bit of a byte tells whether more bytes follow.
+   */
+  protected final void putVarint(long n) {
+    if (buffer.remaining() < 10) {
+      drain();
+    }
+    while ((n & ~0x7fL) != 0) {
+      buffer.put((byte) ((n & 0x7f) | 0x80));
+      n >>>= 7;
+    }
+    buffer.put((byte) n);
+  }
+
+  /**
+   * Writes a number in decimal followed by a space.
+   */
+  protected final void putNumber(long n) {
+    if (buffer.remaining() < 22) {
+      drain();
+    }
+    if (n < 0) {
+      buffer.put((byte) '-');
+      n = -n;
+    }
+    int k = 0;
+    do {
+      digits[k++] = (byte) ('0' + n % 10);
+      n /= 10;
+    } while (n != 0);
+    while (k > 0)
+      buffer.put(digits[--k]);
+    buffer.put((byte) ' ');
+  }
+
+  /**
+   * Writes a literal: {@code 2 * (var + 1) + sign} in binary, the signed DIMACS literal in text.
+   */
+  protected final void putLiteral(int lit) {
+    if (binary) {
+      putVarint(lit + 2);
+    } else {
+      putNumber((lit & 1) == 0 ? (lit >> 1) + 1 : -(lit >> 1) - 1);
+    }
+  }
+
+  /**
+   * Writes the terminating zero of a list: a zero byte in binary, {@code "0"} and a line break in text if
+   * {@code lineEnd} holds, otherwise {@code "0 "}.
+   */
+  protected final void putEnd(boolean lineEnd) {
+    if (binary) {
+      putByte(0);
+    } else {
+      putByte('0');
+      putByte(lineEnd ? '\n' : ' ');
+    }
+  }
+
+  private void drain() {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining())
+        channel.write(buffer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      buffer.clear();
+    }
+  }
+
+  /**
+   * Writes all buffered steps to the channel.
+   */
+  public void flush() {
+    if (buffer.position() > 0) {
+      drain();
+    }
+  }
+
+  /**
+   * Flushes the buffer and closes the channel.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.restarts;
+
+/**
+ * Restarts after a number of conflicts which grows by a constant factor after every restart.  This is a stable mode
+ * policy.
+ */
+public class GeometricRestartPolicy implements RestartPolicy {
+  private final int first;
+  private final double factor;
+  private long conflicts;
+  private double limit;
+
+  public GeometricRestartPolicy() {
+    this(100, 1.5);
+  }
+
+  public GeometricRestartPolicy(int first, double factor) {
+    this.first = first;
+    this.factor = factor;
+    reset();
+  }
+
+  @Override
+  public void reset() {
+    conflicts = 0;
+    limit = first;
+  }
+
+  @Override
+  public void conflict(int lbd, int trailSize) {
+    conflicts++;
+  }
+
+  @Override
+  public boolean shouldRestart() {
+    return conflicts >= limit;
+  }
+
+  @Override
+  public void restarted() {
+    conflicts = 0;
+    limit *= factor;
+  }
+
+  @Override
+  public boolean stable() {
+    return true;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.restarts;
+
+/**
+ * Glucose style dynamic restarts: the prover restarts as soon as the recent learnt clauses are clearly worse than the
+ * average, i.e. the fast moving average of their LBDs exceeds the slow one by a margin.  A restart is postponed if
+ * the trail at a conflict is much longer than usual, since the prover is then probably close to a model.  This is a
+ * focused mode policy.
+ */
+public class GlucoseRestartPolicy implements RestartPolicy {
+  private final static double FAST_ALPHA = 1.0 / 32;
+  private final static double SLOW_ALPHA = 1.0 / 100000;
+  private final static double TRAIL_ALPHA = 1.0 / 5000;
+  private final static int MIN_CONFLICTS = 50;
+  private final static int BLOCKING_START = 10000;
+
+  private final double margin;
+  private final double blockingMargin;
+  private final EMA fastLbd = new EMA(FAST_ALPHA);
+  private final EMA slowLbd = new EMA(SLOW_ALPHA);
+  private final EMA trailSize = new EMA(TRAIL_ALPHA);
+  private long conflicts;
+  private long totalConflicts;
+
+  public GlucoseRestartPolicy() {
+    this(1.25, 1.4);
+  }
+
+  /**
+   * @param margin         restart if the fast LBD average exceeds margin times the slow one
+   * @param blockingMargin postpone restarts if the trail exceeds blockingMargin times its average
+   */
+  public GlucoseRestartPolicy(double margin, double blockingMargin) {
+    this.margin = margin;
+    this.blockingMargin = blockingMargin;
+  }
+
+  @Override
+  public void reset() {
+    conflicts = 0;
+  }
+
+  @Override
+  public void conflict(int lbd, int trailSize) {
+    totalConflicts++;
+    conflicts++;
+    if (totalConflicts > BLOCKING_START && conflicts >= MIN_CONFLICTS
+            && trailSize > blockingMargin * this.trailSize.value()) {
+      conflicts = 0;
+    }
+    this.trailSize.update(trailSize);
+    fastLbd.update(lbd);
+    slowLbd.update(lbd);
+  }
+
+  @Override
+  public boolean shouldRestart() {
+    return conflicts >= MIN_CONFLICTS && fastLbd.value() > margin * slowLbd.value();
+  }
+
+  @Override
+  public void restarted() {
+    conflicts = 0;
+  }
+
+  @Override
+  public boolean stable() {
+    return false;
+  }
+
+  /**
+   * Exponential moving average.  The smoothing factor starts at 1 and halves until it reaches alpha, so the first
+   * values are not dominated by the initial zero.
+   */
+  private static class EMA {
+    private final double alpha;
+    private double beta = 1;
+    private double value;
+
+    EMA(double alpha) {
+      this.alpha = alpha;
+    }
+
+    void update(double x) {
+      value += beta * (x - value);
+      if (beta > alpha) {
+        beta = Math.max(alpha, beta / 2);
+      }
+    }
+
+    double value() {
+      return value;
+    }
+  }
+}
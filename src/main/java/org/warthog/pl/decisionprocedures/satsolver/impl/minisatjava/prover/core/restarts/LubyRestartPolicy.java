@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.restarts;
+
+/**
+ * Restarts after a number of conflicts following the Luby sequence 1, 1, 2, 1, 1, 2, 4, ... (for inc = 2) times a
+ * base interval.  This is a stable mode policy.
+ */
+public class LubyRestartPolicy implements RestartPolicy {
+  private final int first;
+  private final double inc;
+  private int restarts;
+  private long conflicts;
+  private long limit;
+
+  public LubyRestartPolicy() {
+    this(100, 2.0);
+  }
+
+  public LubyRestartPolicy(int first, double inc) {
+    this.first = first;
+    this.inc = inc;
+    reset();
+  }
+
+  /**
+   * @return y to the power of the x-th element of the Luby sequence
+   */
+  public static double luby(double y, int x) {
+    int size, seq;
+    for (size = 1, seq = 0; size < x + 1; seq++, size = 2 * size + 1) ;
+    while (size - 1 != x) {
+      size = (size - 1) >> 1;
+      seq--;
+      x = x % size;
+    }
+    return Math.pow(y, seq);
+  }
+
+  @Override
+  public void reset() {
+    restarts = 0;
+    conflicts = 0;
+    limit = (long) (luby(inc, 0) * first);
+  }
+
+  @Override
+  public void conflict(int lbd, int trailSize) {
+    conflicts++;
+  }
+
+  @Override
+  public boolean shouldRestart() {
+    return conflicts >= limit;
+  }
+
+  @Override
+  public void restarted() {
+    conflicts = 0;
+    limit = (long) (luby(inc, ++restarts) * first);
+  }
+
+  @Override
+  public boolean stable() {
+    return true;
+  }
+}
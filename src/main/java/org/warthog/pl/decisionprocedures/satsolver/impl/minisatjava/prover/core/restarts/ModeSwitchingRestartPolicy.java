@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.restarts;
+
+/**
+ * Alternates between a focused policy with frequent restarts, which is good at refuting, and a stable policy with
+ * few restarts, which is good at finding models.  The search starts focused; the length of each mode in conflicts
+ * grows by a constant factor after every stable phase.  A mode switch forces a restart.
+ */
+public class ModeSwitchingRestartPolicy implements RestartPolicy {
+  private final RestartPolicy focused;
+  private final RestartPolicy stablePolicy;
+  private final double factor;
+  private boolean stable;
+  private boolean switched;
+  private long conflicts;
+  private double interval;
+
+  public ModeSwitchingRestartPolicy() {
+    this(new GlucoseRestartPolicy(), new LubyRestartPolicy(1024, 2.0), 1000, 2.0);
+  }
+
+  /**
+   * @param focused       the policy of the focused mode
+   * @param stable        the policy of the stable mode
+   * @param firstInterval the number of conflicts of the first focused phase
+   * @param factor        the growth of the phase length after every stable phase
+   */
+  public ModeSwitchingRestartPolicy(RestartPolicy focused, RestartPolicy stable, long firstInterval, double factor) {
+    this.focused = focused;
+    this.stablePolicy = stable;
+    this.factor = factor;
+    interval = firstInterval;
+  }
+
+  private RestartPolicy current() {
+    return stable ? stablePolicy : focused;
+  }
+
+  @Override
+  public void reset() {
+    focused.reset();
+    stablePolicy.reset();
+    switched = false;
+  }
+
+  @Override
+  public void conflict(int lbd, int trailSize) {
+    current().conflict(lbd, trailSize);
+    if (++conflicts >= interval) {
+      if (stable) {
+        interval *= factor;
+      }
+      stable = !stable;
+      switched = true;
+      conflicts = 0;
+      current().reset();
+    }
+  }
+
+  @Override
+  public boolean shouldRestart() {
+    return switched || current().shouldRestart();
+  }
+
+  @Override
+  public void restarted() {
+    switched = false;
+    current().restarted();
+  }
+
+  @Override
+  public boolean stable() {
+    return stable;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.restarts;
+
+/**
+ * Decides when the CDCL core restarts.  The prover reports every conflict and asks the policy before each decision
+ * whether to restart.  A policy may alternate between a stable mode with few restarts and a focused mode with
+ * frequent restarts.
+ */
+public interface RestartPolicy {
+  /**
+   * Called at the beginning of every solve call.
+   */
+  void reset();
+
+  /**
+   * Called after the analysis of a conflict, before backtracking.
+   *
+   * @param lbd       the LBD of the learnt clause
+   * @param trailSize the number of assigned literals at the conflict
+   */
+  void conflict(int lbd, int trailSize);
+
+  /**
+   * @return true if the prover should restart before its next decision
+   */
+  boolean shouldRestart();
+
+  /**
+   * Called after the prover restarted.
+   */
+  void restarted();
+
+  /**
+   * @return true if the policy is in stable mode, false if it is in focused mode
+   */
+  boolean stable();
+}
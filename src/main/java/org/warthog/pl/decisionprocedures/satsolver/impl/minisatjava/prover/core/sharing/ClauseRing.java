@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.sharing;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free ring buffer of clauses with a single writer and any number of readers.
+ * <p/>
+ * The writer never waits: when the ring is full it overwrites the oldest clause.  Each reader keeps its own cursor
+ * and skips the clauses it was too slow to read.  A slot holds an immutable entry tagged with its sequence number,
+ * so a reader detects an overwritten slot without locking.
+ */
+public class ClauseRing {
+  private static final class Entry {
+    final long seq;
+    final int lbd;
+    final int[] lits;
+
+    Entry(long seq, int lbd, int[] lits) {
+      this.seq = seq;
+      this.lbd = lbd;
+      this.lits = lits;
+    }
+  }
+
+  private final AtomicReferenceArray<Entry> slots;
+  private final int mask;
+  private final AtomicLong head = new AtomicLong();
+
+  /**
+   * @param capacity the number of clauses kept, rounded up to a power of two
+   */
+  public ClauseRing(int capacity) {
+    int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+    slots = new AtomicReferenceArray<Entry>(size);
+    mask = size - 1;
+  }
+
+  /**
+   * Appends a clause.  Must only be called by the writer.
+   */
+  public void push(IntVec lits, int lbd) {
+    long seq = head.get();
+    int[] copy = new int[lits.size()];
+    for (int i = 0; i < copy.length; i++)
+      copy[i] = lits.get(i);
+    slots.lazySet((int) seq & mask, new Entry(seq, lbd, copy));
+    head.lazySet(seq + 1);
+  }
+
+  /**
+   * @return the sequence number of the next clause to be written
+   */
+  public long head() {
+    return head.get();
+  }
+
+  /**
+   * Reads the clause with the given sequence number.
+   *
+   * @param seq  the sequence number, less than {@link #head()}
+   * @param lits receives the literals
+   * @return the LBD of the clause, or -1 if it was already overwritten
+   */
+  public int read(long seq, IntVec lits) {
+    Entry e = slots.get((int) seq & mask);
+    if (e == null || e.seq != seq) {
+      return -1;
+    }
+    lits.clear();
+    for (int lit : e.lits)
+      lits.push(lit);
+    return e.lbd;
+  }
+
+  /**
+   * @return the number of clauses the ring holds
+   */
+  public int capacity() {
+    return mask + 1;
+  }
+}
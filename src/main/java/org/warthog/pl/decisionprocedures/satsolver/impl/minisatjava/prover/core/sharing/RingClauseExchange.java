@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.sharing;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+/**
+ * The clause exchange of one worker of a portfolio.  The worker writes its short learnt clauses of low LBD into its
+ * own {@link ClauseRing} and reads the rings of all other workers.
+ */
+public class RingClauseExchange implements ClauseExchange {
+  private final ClauseRing[] rings;
+  private final int self;
+  private final long[] cursors;
+  private final int maxLbd;
+  private final int maxSize;
+  private int next;
+  private long exported;
+  private long imported;
+
+  /**
+   * @param rings   the rings of all workers
+   * @param self    the index of the ring of this worker
+   * @param maxLbd  clauses up to this LBD are shared
+   * @param maxSize clauses up to this size are shared
+   */
+  public RingClauseExchange(ClauseRing[] rings, int self, int maxLbd, int maxSize) {
+    this.rings = rings;
+    this.self = self;
+    this.maxLbd = maxLbd;
+    this.maxSize = maxSize;
+    this.cursors = new long[rings.length];
+    skipAll();
+  }
+
+  /**
+   * Skips all clauses written so far, e.g. because they belong to a previous set of clauses.
+   */
+  public void skipAll() {
+    for (int i = 0; i < rings.length; i++)
+      cursors[i] = rings[i].head();
+  }
+
+  public void export(IntVec lits, int lbd) {
+    if (lbd <= maxLbd && lits.size() <= maxSize) {
+      rings[self].push(lits, lbd);
+      exported++;
+    }
+  }
+
+  public boolean pending() {
+    for (int i = 0; i < rings.length; i++)
+      if (i != self && cursors[i] < rings[i].head()) {
+        return true;
+      }
+    return false;
+  }
+
+  public int poll(IntVec lits) {
+    for (int k = 0; k < rings.length; k++) {
+      int i = next;
+      next = (next + 1) % rings.length;
+      if (i == self) {
+        continue;
+      }
+      ClauseRing ring = rings[i];
+      long head = ring.head();
+      // skip the clauses which were overwritten before we could read them
+      if (head - cursors[i] > ring.capacity()) {
+        cursors[i] = head - ring.capacity();
+      }
+      while (cursors[i] < head) {
+        int lbd = ring.read(cursors[i]++, lits);
+        if (lbd >= 0) {
+          imported++;
+          return lbd;
+        }
+      }
+    }
+    return -1;
+  }
+
+  public long exported() {
+    return exported;
+  }
+
+  public long imported() {
+    return imported;
+  }
+}
@@ -29,7 +29,37 @@ public class SearchParams {
   public boolean expensive_ccmin = true;
   public double cla_inc = 1;
   public double cla_decay = 1;
-  public int var_decay = 4;
-  public int var_decay_rate = 256;
+  public double garbage_frac = 0.20;
+  /* learnt clauses up to this LBD are kept forever */
+  public int core_lbd = 2;
+  /* learnt clauses up to this LBD are kept while they are used */
+  public int tier2_lbd = 6;
+  public int tier2_reduce_interval = 10000;
+  public int local_reduce_interval = 15000;
   public boolean log = false;
+  /* conflicts before the first rephasing, the interval grows arithmetically */
+  public int rephase_interval = 1000;
+  /* minimal local search flips per clause when rephasing by walking */
+  public int walk_effort = 10;
+  /* walking may flip this fraction of the propagations of the search since the last walk */
+  public double walk_rel_effort = 0.5;
+  public long random_seed = 91648253;
+  /* initial phase of new variables, true means the negative literal */
+  public boolean initial_phase = false;
+  /* conflicts before the first inprocessing, the interval grows arithmetically */
+  public int inprocess_interval = 2000;
+  /* inprocessing may use this fraction of the propagations of the search since the last inprocessing */
+  public double inprocess_effort = 0.1;
+  public long inprocess_min_effort = 10000;
+  /* backtrack a single level instead of jumping back more than chrono_threshold levels, not with LRAT proofs */
+  public boolean chrono_backtrack = true;
+  public int chrono_threshold = 100;
+  /* learnt clauses of at least this size replace the literals of each lower level by their UIP where possible */
+  public int shrink_min_size = 8;
+  /* learnt clauses up to this LBD are strengthened with the binary clauses of their asserting literal */
+  public int binary_minimize_lbd = 6;
+  /* restarts keep the decisions the heuristic would make again */
+  public boolean reuse_trail = true;
+  /* conflicts of linear constraints are analyzed by cutting planes, learning linear constraints */
+  public boolean cutting_planes = true;
 }
@@ -37,4 +37,26 @@ public class SolverStats {
   public int n_bin_clauses = 0;
   public int simpDBAssigns = 0;
   public long simpDBProps = 0;
+  public long mode_switches = 0;
+  public long rephased = 0;
+  public long walk_flips = 0;
+  public long inprocessings = 0;
+  public long failed_literals = 0;
+  public long substituted = 0;
+  public long transitive_reduced = 0;
+  public long vivified = 0;
+  public long imported = 0;
+  public long models = 0;
+  public long blocking_clauses = 0;
+  public long chrono_backtracks = 0;
+  public long shrunk_literals = 0;
+  public long binary_minimized = 0;
+  public long reused_trails = 0;
+  public long linear_learnts = 0;
+  public long clausal_fallbacks = 0;
+  public long xor_propagations = 0;
+  public long xor_pivots = 0;
+  /* time spent in stable and focused restart mode, in nanoseconds */
+  public long stable_time = 0;
+  public long focused_time = 0;
 }
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.cubes;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.MSJCoreProver;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.LBool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cube-and-conquer on top of the CDCL core.
+ * <p/>
+ * A lookahead splits the formula into cubes, i.e. conjunctions of literals, which together cover all assignments.
+ * The cubes are solved as assumptions by incremental {@link MSJCoreProver}s on the threads of a work-stealing
+ * fork/join pool.  The provers are kept across solve calls together with their learnt clauses, each cube takes an
+ * idle one.  A cube which is not decided within its conflict budget is split again by lookahead, so the work
+ * of hard cubes spreads over idle threads.  The formula is satisfiable as soon as one cube is satisfiable and
+ * unsatisfiable once all cubes are refuted.
+ */
+public class MSJCubeAndConquer {
+  /* number of lookahead splits before the first cubes are conquered, in addition to log2 of the threads */
+  public int split_depth = 4;
+  /* conflicts a cube may take before it is split again */
+  public long cube_conflicts = 5000;
+  /* variables tested by each lookahead */
+  public int lookahead_candidates = 32;
+
+  private final ForkJoinPool pool;
+  private final int threads;
+  private int nVars;
+  private final List<int[]> clauses = new ArrayList<int[]>();
+
+  private volatile boolean stop;
+  private volatile boolean interruptRequested;
+  // true if a cube was given up before it was decided
+  private volatile boolean incomplete;
+  // limits of a solve call over all cubes, -1 if unlimited
+  private long conflictBudget = -1;
+  private long propagationBudget = -1;
+  private long timeBudget = -1;
+  private long deadline;
+  private final AtomicLong conflicts = new AtomicLong();
+  private final AtomicLong propagations = new AtomicLong();
+  // all provers and the ones not used by a cube, they are kept across solve calls
+  private final ConcurrentLinkedQueue<Worker> workers = new ConcurrentLinkedQueue<Worker>();
+  private final ConcurrentLinkedQueue<Worker> idle = new ConcurrentLinkedQueue<Worker>();
+  private List<Integer> model;
+  private boolean[] failedAssumption;
+  private IntVec assumptions = new IntVec();
+
+  /**
+   * @param threads the parallelism of the fork/join pool
+   */
+  public MSJCubeAndConquer(int threads) {
+    this.threads = threads;
+    this.pool = new ForkJoinPool(threads);
+  }
+
+  public int newVar() {
+    return nVars++;
+  }
+
+  public void newClause(IntVec clause) {
+    int[] lits = new int[clause.size()];
+    for (int i = 0; i < lits.length; i++)
+      lits[i] = clause.get(i);
+    clauses.add(lits);
+  }
+
+  /**
+   * Solves the clauses under the given assumptions.
+   *
+   * @return {@link LBool#TRUE} if satisfiable, {@link LBool#FALSE} if unsatisfiable and {@link LBool#UNDEF} if
+   * interrupted
+   */
+  public byte solve(IntVec assumps) {
+    assumptions.clear();
+    assumps.copyTo(assumptions);
+    model = null;
+    failedAssumption = new boolean[2 * nVars];
+    stop = false;
+    incomplete = false;
+    conflicts.set(0);
+    propagations.set(0);
+    deadline = System.nanoTime() + timeBudget * 1000000;
+    for (Worker worker : workers)
+      worker.prover.clearInterrupt();
+    int depth = split_depth + 32 - Integer.numberOfLeadingZeros(threads);
+    pool.invoke(new CubeTask(assumps, depth, cube_conflicts));
+    stop = true;
+    return model != null ? LBool.TRUE : incomplete ? LBool.UNDEF : LBool.FALSE;
+  }
+
+  /**
+   * Stops a running solve call.  May be called from any thread, solve calls return {@link LBool#UNDEF} until
+   * {@link #clearInterrupt()} is called.
+   */
+  public void interrupt() {
+    interruptRequested = true;
+    stopAll();
+  }
+
+  public void clearInterrupt() {
+    interruptRequested = false;
+  }
+
+  /**
+   * Limits the following solve calls.  The conflicts and propagations of all cubes are added up.
+   *
+   * @param conflicts    the number of conflicts, -1 if unlimited
+   * @param propagations the number of propagations, -1 if unlimited
+   * @param millis       the wall clock time in milliseconds, -1 if unlimited
+   */
+  public void setBudget(long conflicts, long propagations, long millis) {
+    conflictBudget = conflicts;
+    propagationBudget = propagations;
+    timeBudget = millis;
+  }
+
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * @return the model of the last satisfiable solve call, see {@link MSJCoreProver#getModel()}
+   */
+  public List<Integer> getModel() {
+    return model;
+  }
+
+  /**
+   * @return the assumptions of the last unsatisfiable solve call which took part in refuting the cubes
+   */
+  public IntVec failedAssumptions() {
+    IntVec failed = new IntVec();
+    for (int i = 0; i < assumptions.size(); i++) {
+      int p = assumptions.get(i);
+      if (failedAssumption[p] && !failed.contains(p)) {
+        failed.push(p);
+      }
+    }
+    return failed;
+  }
+
+  /**
+   * Takes an idle prover or creates one, and adds the variables and clauses created since it was used last.
+   */
+  private Worker acquire() {
+    Worker worker = idle.poll();
+    if (worker == null) {
+      worker = new Worker();
+      workers.add(worker);
+    }
+    for (; worker.vars < nVars; worker.vars++)
+      worker.prover.newVar();
+    for (; worker.clauses < clauses.size(); worker.clauses++)
+      worker.prover.newClause(new IntVec(clauses.get(worker.clauses).clone()), false);
+    if (stopped()) {
+      worker.prover.interrupt();
+    }
+    return worker;
+  }
+
+  private boolean stopped() {
+    return stop || interruptRequested
+        || conflictBudget >= 0 && conflicts.get() >= conflictBudget
+        || propagationBudget >= 0 && propagations.get() >= propagationBudget
+        || timeBudget >= 0 && System.nanoTime() >= deadline;
+  }
+
+  /**
+   * Limits the next solve call of a prover to the given number of conflicts and the remaining budget.
+   */
+  private void applyBudget(MSJCoreProver prover, long cubeConflicts) {
+    long left = conflictBudget >= 0 ? conflictBudget - conflicts.get() : cubeConflicts;
+    prover.setConfBudget(Math.min(cubeConflicts, left));
+    if (propagationBudget >= 0) {
+      prover.setPropBudget(propagationBudget - propagations.get());
+    }
+    if (timeBudget >= 0) {
+      prover.setTimeBudget((deadline - System.nanoTime()) / 1000000);
+    }
+  }
+
+  private void stopAll() {
+    stop = true;
+    for (Worker worker : workers)
+      worker.prover.interrupt();
+  }
+
+  private synchronized void satisfied(MSJCoreProver prover) {
+    if (model == null) {
+      model = prover.getModel();
+    }
+    stopAll();
+  }
+
+  private synchronized void refuted(IntVec failed) {
+    for (int i = 0; i < failed.size(); i++)
+      failedAssumption[failed.get(i)] = true;
+  }
+
+  /**
+   * An incremental prover with the number of variables and clauses it holds.
+   */
+  private static class Worker {
+    final MSJCoreProver prover = new MSJCoreProver();
+    int vars;
+    int clauses;
+  }
+
+  /**
+   * Decides a cube: splits it by lookahead while depth is left, otherwise solves it within the conflict budget and
+   * splits it again if the budget is exceeded.
+   */
+  private class CubeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final IntVec cube;
+    private final int depth;
+    private final long budget;
+
+    CubeTask(IntVec cube, int depth, long budget) {
+      this.cube = cube;
+      this.depth = depth;
+      this.budget = budget;
+    }
+
+    @Override
+    protected void compute() {
+      if (stopped()) {
+        incomplete = true;
+        return;
+      }
+      Worker worker = acquire();
+      MSJCoreProver prover = worker.prover;
+      CubeTask[] next = depth > 0 ? split(prover, depth - 1, budget) : null;
+      if (next == null) {
+        long conflictsBefore = prover.stats.conflicts;
+        long propagationsBefore = prover.stats.propagations;
+        applyBudget(prover, budget);
+        byte result = prover.solveLimited(cube);
+        prover.budgetOff();
+        conflicts.addAndGet(prover.stats.conflicts - conflictsBefore);
+        propagations.addAndGet(prover.stats.propagations - propagationsBefore);
+        if (result == LBool.TRUE) {
+          satisfied(prover);
+        } else if (result == LBool.FALSE) {
+          refuted(prover.failedAssumptions());
+        } else if (stopped()) {
+          incomplete = true;
+        } else {
+          next = split(prover, 0, 2 * budget);
+          if (next == null) {
+            next = new CubeTask[]{new CubeTask(cube, 0, 2 * budget)};
+          }
+        }
+      }
+      // the prover is free for the following cubes, which may run on other threads
+      idle.add(worker);
+      if (next != null) {
+        invokeAll(next);
+      }
+    }
+
+    /**
+     * Splits the cube on the variable chosen by lookahead.  The halves extend the cube only by the split literal: the
+     * literals lookahead derives from the cube would replace the assumptions they follow from in failed assumptions.
+     *
+     * @return the tasks deciding both halves, null if there is no variable to split on
+     */
+    private CubeTask[] split(MSJCoreProver prover, int depth, long budget) {
+      IntVec extended = new IntVec(cube.size() + 1);
+      cube.copyTo(extended);
+      int x = prover.lookahead(extended, lookahead_candidates);
+      if (x < 0) {
+        return null;
+      }
+      IntVec pos = new IntVec(cube.size() + 1);
+      cube.copyTo(pos);
+      pos.push(MSJCoreProver.mkLit(x, false));
+      IntVec neg = new IntVec(cube.size() + 1);
+      cube.copyTo(neg);
+      neg.push(MSJCoreProver.mkLit(x, true));
+      return new CubeTask[]{new CubeTask(pos, depth, budget), new CubeTask(neg, depth, budget)};
+    }
+  }
+}
@@ -23,16 +23,22 @@
 package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures;
 
 /**
- * Lifted booleans
+ * Lifted booleans, encoded as bytes so that assignments can be stored in primitive arrays.  Negation is arithmetic
+ * negation and the default value of a fresh array is UNDEF.
  */
-public enum LBool {
-  TRUE, FALSE, UNDEF;
+public final class LBool {
+  public final static byte TRUE = 1;
+  public final static byte FALSE = -1;
+  public final static byte UNDEF = 0;
 
-  public static LBool negate(LBool l) {
-    return l == FALSE ? TRUE : (l == TRUE ? FALSE : UNDEF);
+  private LBool() {
   }
 
-  public static LBool fromBool(boolean b) {
+  public static byte negate(byte l) {
+    return (byte) -l;
+  }
+
+  public static byte fromBool(boolean b) {
     return b ? TRUE : FALSE;
   }
 }
@@ -0,0 +1,242 @@
+/******************************************************************************************
+ MiniSat -- Copyright (c) 2003-2006, Niklas Een, Niklas Sorensson
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ associated documentation files (the "Software"), to deal in the Software without restriction,
+ including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all copies or
+ substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT
+ OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ **************************************************************************************************
+ Remarks:
+ * The following source code is basically a Java conversion of the C/C++ MiniSAT v1.14
+ **************************************************************************************************/
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+
+/**
+ * Clause arena.
+ * <p/>
+ * All clauses live inline in one growable int array and are addressed by their offset (a clause reference). Each
+ * clause consists of a header followed by its literals:
+ * <pre>
+ *   [size << 6 | tier << 4 | flags] [activity] [lbd] [lit_0] ... [lit_size-1]
+ * </pre>
+ * The activity is stored as the raw bits of a float.  Tier, LBD and the used flag are only meaningful for learnt
+ * clauses.  An arena created with ids stores the proof id of each clause as two more header words.  Removed clauses
+ * are only marked as deleted; the space they
+ * occupy is reclaimed by copying all live clauses into a fresh arena with {@link #reloc(int, MSJClauseArena)}.
+ */
+public class MSJClauseArena {
+  public final static int CREF_UNDEF = -1;
+
+  /* tiers of learnt clauses */
+  public final static int CORE = 0;
+  public final static int TIER2 = 1;
+  public final static int LOCAL = 2;
+
+  public final static int HEADER_SIZE = 3;
+  private final static int LEARNT = 1;
+  private final static int DELETED = 2;
+  private final static int RELOCED = 4;
+  private final static int USED = 8;
+  private final static int TIER_SHIFT = 4;
+  private final static int TIER_MASK = 3 << TIER_SHIFT;
+  private final static int FLAG_BITS = 6;
+
+  private int[] memory;
+  private int size = 0;
+  private int wasted = 0;
+  private final int header;
+
+  public MSJClauseArena() {
+    this(1024);
+  }
+
+  public MSJClauseArena(int capacity) {
+    this(capacity, false);
+  }
+
+  /**
+   * @param capacity the initial capacity in ints
+   * @param ids      whether the clauses carry an id, see {@link #id(int)}
+   */
+  public MSJClauseArena(int capacity, boolean ids) {
+    memory = new int[Math.max(capacity, 16)];
+    header = ids ? HEADER_SIZE + 2 : HEADER_SIZE;
+  }
+
+  public boolean hasIds() {
+    return header > HEADER_SIZE;
+  }
+
+  /**
+   * Allocates a new clause with the given literals.
+   *
+   * @param lits   the literals of the clause
+   * @param learnt whether the clause is a learnt clause
+   * @return the reference of the new clause
+   */
+  public int alloc(IntVec lits, boolean learnt) {
+    int cref = allocRaw(lits.size(), learnt);
+    for (int i = 0; i < lits.size(); i++)
+      memory[cref + header + i] = lits.get(i);
+    return cref;
+  }
+
+  private int allocRaw(int nofLits, boolean learnt) {
+    ensure(size + header + nofLits);
+    int cref = size;
+    memory[cref] = (nofLits << FLAG_BITS) | (learnt ? LEARNT : 0);
+    memory[cref + 1] = 0;
+    memory[cref + 2] = 0;
+    size += header + nofLits;
+    return cref;
+  }
+
+  private void ensure(int nsize) {
+    if (nsize > memory.length) {
+      int ncap = memory.length;
+      while (ncap < nsize) {
+        ncap += (ncap >> 1) + 2;
+        if (ncap < 0) {
+          throw new OutOfMemoryError("Clause arena exceeds the maximum array size");
+        }
+      }
+      int[] nmemory = new int[ncap];
+      System.arraycopy(memory, 0, nmemory, 0, size);
+      memory = nmemory;
+    }
+  }
+
+  /**
+   * Marks the clause as deleted and accounts its memory as wasted.  The clause must not be referenced any more
+   * after the next garbage collection.
+   *
+   * @param cref the clause reference
+   */
+  public void free(int cref) {
+    memory[cref] |= DELETED;
+    wasted += header + size(cref);
+  }
+
+  /**
+   * Copies the clause into the given arena unless it was copied before.  The old arena keeps a forward pointer to
+   * the new location, so every reference to the same clause is relocated to the same copy.  Both arenas must agree
+   * on whether clauses carry ids.
+   *
+   * @param cref the clause reference in this arena
+   * @param to   the arena to copy the clause into
+   * @return the reference of the clause in arena {@code to}
+   */
+  public int reloc(int cref, MSJClauseArena to) {
+    if ((memory[cref] & RELOCED) != 0) {
+      return memory[cref + 1];
+    }
+    int nofLits = size(cref);
+    int ncref = to.allocRaw(nofLits, learnt(cref));
+    System.arraycopy(memory, cref, to.memory, ncref, header + nofLits);
+    memory[cref] |= RELOCED;
+    memory[cref + 1] = ncref;
+    return ncref;
+  }
+
+  public int size(int cref) {
+    return memory[cref] >>> FLAG_BITS;
+  }
+
+  public boolean learnt(int cref) {
+    return (memory[cref] & LEARNT) != 0;
+  }
+
+  public boolean deleted(int cref) {
+    return (memory[cref] & DELETED) != 0;
+  }
+
+  public boolean used(int cref) {
+    return (memory[cref] & USED) != 0;
+  }
+
+  public void setUsed(int cref, boolean used) {
+    memory[cref] = used ? memory[cref] | USED : memory[cref] & ~USED;
+  }
+
+  public int tier(int cref) {
+    return (memory[cref] & TIER_MASK) >>> TIER_SHIFT;
+  }
+
+  public void setTier(int cref, int tier) {
+    memory[cref] = (memory[cref] & ~TIER_MASK) | (tier << TIER_SHIFT);
+  }
+
+  public int lbd(int cref) {
+    return memory[cref + 2];
+  }
+
+  public void setLbd(int cref, int lbd) {
+    memory[cref + 2] = lbd;
+  }
+
+  public int get(int cref, int i) {
+    return memory[cref + header + i];
+  }
+
+  public void set(int cref, int i, int lit) {
+    memory[cref + header + i] = lit;
+  }
+
+  /**
+   * @return the id of the clause, only available if the arena was created with ids
+   */
+  public long id(int cref) {
+    return ((long) memory[cref + HEADER_SIZE] << 32) | (memory[cref + HEADER_SIZE + 1] & 0xffffffffL);
+  }
+
+  public void setId(int cref, long id) {
+    memory[cref + HEADER_SIZE] = (int) (id >>> 32);
+    memory[cref + HEADER_SIZE + 1] = (int) id;
+  }
+
+  public float activity(int cref) {
+    return Float.intBitsToFloat(memory[cref + 1]);
+  }
+
+  public void setActivity(int cref, float activity) {
+    memory[cref + 1] = Float.floatToRawIntBits(activity);
+  }
+
+  /**
+   * @return the number of ints in use, including deleted clauses
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the number of ints occupied by deleted clauses
+   */
+  public int wasted() {
+    return wasted;
+  }
+
+  public String toString(int cref) {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size(cref); i++) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      sb.append(get(cref, i));
+    }
+    return sb.append("]").toString();
+  }
+}
@@ -0,0 +1,634 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.simp;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.IVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.Vec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.BooleanVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.proof.ProofWriter;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.LBool;
+
+import java.util.Arrays;
+
+import static org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.MSJCoreProver.not;
+import static org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.MSJCoreProver.sign;
+import static org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.MSJCoreProver.var;
+
+/**
+ * SatELite style CNF preprocessor: unit propagation, backward subsumption, self-subsuming resolution, bounded
+ * variable elimination and blocked clause elimination.
+ * <p/>
+ * Clauses removed by variable or blocked clause elimination are kept on an elimination stack, with the eliminated
+ * (respectively blocking) literal first.  Models of the simplified formula are extended to models of the original
+ * formula by walking the stack backwards and making the first literal of every falsified clause true.  Frozen
+ * variables are never eliminated nor used as blocking literals.
+ * <p/>
+ * The steps can be recorded in a DRAT proof.  Resolvents, strengthened clauses and units are added, satisfied and
+ * subsumed clauses deleted.  Eliminated clauses stay in the proof, so restoring them needs no justification.
+ */
+public class MSJPreprocessor {
+  /* resolvents longer than this prevent the elimination of a variable */
+  public int clause_lim = 20;
+  /* number of clauses the formula may grow by eliminating a single variable */
+  public int grow = 0;
+  /* clauses and occurrence lists longer than this are not used for subsumption, elimination or blocking */
+  public int occurrence_lim = 1000;
+  /* rough bound on the number of literal visits of a preprocessing run */
+  public long step_lim = 100000000L;
+
+  public int eliminated_vars = 0;
+  public int subsumed_clauses = 0;
+  public int strengthened_clauses = 0;
+  public int blocked_clauses = 0;
+
+  private int nVars;
+  private boolean ok = true;
+  // clauses are sorted literal vectors, removed clauses are null
+  private IVec<IntVec> clauses = new Vec<IntVec>();
+  private long[] signatures = new long[0];
+  // clause indices by variable
+  private IVec<IntVec> occs = new Vec<IntVec>();
+  private int[] litOccs = new int[0];
+  private byte[] values = new byte[0];
+  private boolean[] frozen = new boolean[0];
+  private boolean[] eliminated = new boolean[0];
+  private boolean[] touched = new boolean[0];
+  private IntVec units = new IntVec();
+  private int unitsHead = 0;
+  private IntVec subsumptionQueue = new IntVec();
+  private BooleanVec queued = new BooleanVec();
+  // clauses with their pivot literal first, each followed by its size
+  private IntVec elimStack = new IntVec();
+  private boolean[] onStack = new boolean[0];
+  private long steps;
+  private ProofWriter proof;
+  private IntVec proofLits = new IntVec();
+
+  public int newVar() {
+    int index = nVars++;
+    if (index == frozen.length) {
+      int capacity = Math.max(16, index * 2);
+      litOccs = Arrays.copyOf(litOccs, 2 * capacity);
+      values = Arrays.copyOf(values, 2 * capacity);
+      frozen = Arrays.copyOf(frozen, capacity);
+      eliminated = Arrays.copyOf(eliminated, capacity);
+      touched = Arrays.copyOf(touched, capacity);
+      onStack = Arrays.copyOf(onStack, capacity);
+    }
+    occs.push(new IntVec());
+    return index;
+  }
+
+  /**
+   * Records the following steps in the given DRAT proof.  Clause ids and hints are not supported.
+   *
+   * @param proof the proof writer, or null
+   */
+  public void setProof(ProofWriter proof) {
+    this.proof = proof;
+  }
+
+  public void setFrozen(int var, boolean frozen) {
+    this.frozen[var] = frozen;
+  }
+
+  public boolean isFrozen(int var) {
+    return frozen[var];
+  }
+
+  public boolean isEliminated(int var) {
+    return eliminated[var];
+  }
+
+  /**
+   * @return true if a clause with the variable was moved to the elimination stack, i.e. new clauses with the variable
+   * require {@link #restore(int, IVec)}
+   */
+  public boolean isOnStack(int var) {
+    return onStack[var];
+  }
+
+  /**
+   * @return false if the clauses added so far are unsatisfiable
+   */
+  public boolean okay() {
+    return ok;
+  }
+
+  /**
+   * Adds a clause.
+   *
+   * @param clauseVec the literals of the clause
+   * @return false if the clauses added so far are unsatisfiable
+   */
+  public boolean addClause(IntVec clauseVec) {
+    return addClause(clauseVec, false);
+  }
+
+  /**
+   * @param derived whether the clause is a resolvent, which is added to the proof
+   */
+  private boolean addClause(IntVec clauseVec, boolean derived) {
+    if (!ok) {
+      return false;
+    }
+    IntVec clause = new IntVec(clauseVec.size());
+    clauseVec.copyTo(clause);
+    clause.sortUnique();
+    int i, j;
+    for (i = j = 0; i < clause.size(); i++) {
+      int lit = clause.get(i);
+      if (values[lit] == LBool.TRUE || i + 1 < clause.size() && clause.get(i + 1) == not(lit)) {
+        return true;
+      } else if (values[lit] == LBool.UNDEF) {
+        clause.set(j++, lit);
+      }
+    }
+    clause.shrink(i - j);
+    if (proof != null && (derived || clause.size() < clauseVec.size() || clause.size() == 0)) {
+      proof.add(0, clause, null, 0);
+    }
+    if (clause.size() == 0) {
+      ok = false;
+    } else if (clause.size() == 1) {
+      assign(clause.get(0));
+    } else {
+      attach(clause);
+    }
+    return ok;
+  }
+
+  private void attach(IntVec clause) {
+    int c = clauses.size();
+    clauses.push(clause);
+    queued.push(false);
+    if (c == signatures.length) {
+      signatures = Arrays.copyOf(signatures, Math.max(16, 2 * c));
+    }
+    long signature = 0;
+    for (int i = 0; i < clause.size(); i++) {
+      int lit = clause.get(i);
+      signature |= 1L << (var(lit) & 63);
+      occs.get(var(lit)).push(c);
+      litOccs[lit]++;
+      touched[var(lit)] = true;
+    }
+    signatures[c] = signature;
+    enqueue(c);
+  }
+
+  private void enqueue(int c) {
+    if (!queued.get(c)) {
+      queued.set(c, true);
+      subsumptionQueue.push(c);
+    }
+  }
+
+  /**
+   * Removes a clause and records its deletion in the proof.
+   */
+  private void deleteClause(int c) {
+    if (proof != null) {
+      proof.delete(0, clauses.get(c));
+    }
+    removeClause(c);
+  }
+
+  private void removeClause(int c) {
+    IntVec clause = clauses.get(c);
+    for (int i = 0; i < clause.size(); i++) {
+      int lit = clause.get(i);
+      occs.get(var(lit)).remove(c);
+      litOccs[lit]--;
+      touched[var(lit)] = true;
+    }
+    clauses.set(c, null);
+  }
+
+  /**
+   * Moves a clause to the elimination stack with the given literal first.
+   */
+  private void eliminateClause(int c, int pivot) {
+    IntVec clause = clauses.get(c);
+    elimStack.push(pivot);
+    for (int i = 0; i < clause.size(); i++)
+      if (clause.get(i) != pivot) {
+        elimStack.push(clause.get(i));
+      }
+    elimStack.push(clause.size());
+    onStack[var(pivot)] = true;
+    removeClause(c);
+  }
+
+  private void assign(int lit) {
+    if (values[lit] == LBool.FALSE) {
+      if (proof != null) {
+        proofLits.clear();
+        proof.add(0, proofLits, null, 0);
+      }
+      ok = false;
+    } else if (values[lit] == LBool.UNDEF) {
+      values[lit] = LBool.TRUE;
+      values[not(lit)] = LBool.FALSE;
+      units.push(lit);
+    }
+  }
+
+  /**
+   * Removes the literal from the clause.  A clause which becomes unit is removed and its literal assigned.
+   */
+  private void strengthen(int c, int lit) {
+    IntVec clause = clauses.get(c);
+    clause.remove(lit);
+    if (proof != null) {
+      proof.add(0, clause, null, 0);
+      proofLits.clear();
+      clause.copyTo(proofLits);
+      proofLits.push(lit);
+      proof.delete(0, proofLits);
+    }
+    occs.get(var(lit)).remove(c);
+    litOccs[lit]--;
+    touched[var(lit)] = true;
+    strengthened_clauses++;
+    if (clause.size() == 1) {
+      int unit = clause.get(0);
+      removeClause(c);
+      assign(unit);
+    } else {
+      long signature = 0;
+      for (int i = 0; i < clause.size(); i++)
+        signature |= 1L << (var(clause.get(i)) & 63);
+      signatures[c] = signature;
+      enqueue(c);
+    }
+  }
+
+  private boolean propagateUnits() {
+    while (ok && unitsHead < units.size()) {
+      int lit = units.get(unitsHead++);
+      IntVec cs = occs.get(var(lit));
+      while (ok && cs.size() > 0) {
+        int c = cs.get(cs.size() - 1);
+        if (clauses.get(c).contains(lit)) {
+          deleteClause(c);
+        } else {
+          strengthen(c, not(lit));
+        }
+      }
+    }
+    return ok;
+  }
+
+  /**
+   * Checks whether the first clause subsumes the second or, if it does after flipping one of its literals, which
+   * literal can be removed from the second.  Both clauses are sorted.
+   *
+   * @return -1 if the first clause subsumes the second, -2 if neither applies, otherwise the literal to remove
+   */
+  private int subsumes(IntVec c, IntVec d) {
+    int result = -1;
+    int j = 0;
+    for (int i = 0; i < c.size(); i++) {
+      int lit = c.get(i);
+      while (j < d.size() && var(d.get(j)) < var(lit))
+        j++;
+      steps++;
+      if (j == d.size() || var(d.get(j)) != var(lit)) {
+        return -2;
+      }
+      if (d.get(j) != lit) {
+        if (result != -1) {
+          return -2;
+        }
+        result = d.get(j);
+      }
+    }
+    return result;
+  }
+
+  private boolean backwardSubsumption() {
+    while (ok && subsumptionQueue.size() > 0 && steps < step_lim) {
+      int c = subsumptionQueue.last();
+      subsumptionQueue.pop();
+      queued.set(c, false);
+      IntVec clause = clauses.get(c);
+      if (clause == null || clause.size() > occurrence_lim) {
+        continue;
+      }
+      int best = var(clause.get(0));
+      for (int i = 1; i < clause.size(); i++)
+        if (occs.get(var(clause.get(i))).size() < occs.get(best).size()) {
+          best = var(clause.get(i));
+        }
+      if (occs.get(best).size() > occurrence_lim) {
+        continue;
+      }
+      IntVec cs = new IntVec();
+      occs.get(best).copyTo(cs);
+      for (int k = 0; k < cs.size() && clauses.get(c) != null; k++) {
+        int d = cs.get(k);
+        IntVec other = clauses.get(d);
+        if (d == c || other == null || clause.size() > other.size() || (signatures[c] & ~signatures[d]) != 0) {
+          continue;
+        }
+        int result = subsumes(clause, other);
+        if (result == -1) {
+          subsumed_clauses++;
+          deleteClause(d);
+        } else if (result >= 0) {
+          strengthen(d, result);
+          if (!propagateUnits()) {
+            return false;
+          }
+        }
+      }
+    }
+    return ok;
+  }
+
+  /**
+   * Resolves two clauses on the variable.
+   *
+   * @return false if the resolvent is a tautology
+   */
+  private boolean resolve(IntVec c, IntVec d, int var, IntVec resolvent) {
+    resolvent.clear();
+    int i = 0;
+    int j = 0;
+    while (i < c.size() || j < d.size()) {
+      steps++;
+      int lit;
+      if (j == d.size() || i < c.size() && c.get(i) < d.get(j)) {
+        lit = c.get(i++);
+      } else if (i == c.size() || d.get(j) < c.get(i)) {
+        lit = d.get(j++);
+      } else {
+        lit = c.get(i++);
+        j++;
+      }
+      if (var(lit) == var) {
+        continue;
+      }
+      if (resolvent.size() > 0 && resolvent.last() == not(lit)) {
+        return false;
+      }
+      resolvent.push(lit);
+    }
+    return true;
+  }
+
+  /**
+   * Eliminates the variable by clause distribution if this does not increase the number of clauses.
+   */
+  private boolean eliminateVar(int var) {
+    if (frozen[var] || eliminated[var] || values[2 * var] != LBool.UNDEF) {
+      return false;
+    }
+    IntVec cs = occs.get(var);
+    if (cs.size() == 0 || cs.size() > occurrence_lim) {
+      return false;
+    }
+    int pos = litOccs[2 * var];
+    int neg = litOccs[2 * var + 1];
+    IntVec resolvent = new IntVec();
+    IVec<IntVec> resolvents = new Vec<IntVec>();
+    for (int i = 0; i < cs.size(); i++) {
+      IntVec c = clauses.get(cs.get(i));
+      if (!c.contains(2 * var)) {
+        continue;
+      }
+      for (int j = 0; j < cs.size(); j++) {
+        IntVec d = clauses.get(cs.get(j));
+        if (!d.contains(2 * var + 1) || !resolve(c, d, var, resolvent)) {
+          continue;
+        }
+        if (resolvents.size() >= pos + neg + grow || resolvent.size() > clause_lim) {
+          return false;
+        }
+        IntVec copy = new IntVec(resolvent.size());
+        resolvent.copyTo(copy);
+        resolvents.push(copy);
+      }
+    }
+    while (cs.size() > 0) {
+      int c = cs.get(cs.size() - 1);
+      eliminateClause(c, clauses.get(c).contains(2 * var) ? 2 * var : 2 * var + 1);
+    }
+    eliminated[var] = true;
+    eliminated_vars++;
+    for (int i = 0; i < resolvents.size() && ok; i++)
+      addClause(resolvents.get(i), true);
+    return propagateUnits();
+  }
+
+  private boolean eliminateVars() {
+    IntVec candidates = new IntVec();
+    for (int v = 0; v < nVars; v++)
+      if (touched[v]) {
+        touched[v] = false;
+        candidates.push(v);
+      }
+    // cheapest variables first
+    long[] keys = new long[candidates.size()];
+    for (int i = 0; i < keys.length; i++) {
+      int v = candidates.get(i);
+      long cost = Math.min((long) litOccs[2 * v] * litOccs[2 * v + 1], Integer.MAX_VALUE);
+      keys[i] = cost << 32 | v;
+    }
+    Arrays.sort(keys);
+    boolean progress = false;
+    for (int i = 0; i < keys.length && ok && steps < step_lim; i++) {
+      if (eliminateVar((int) keys[i])) {
+        progress = true;
+        if (!backwardSubsumption()) {
+          return false;
+        }
+      }
+    }
+    return progress;
+  }
+
+  /**
+   * @return true if every resolvent of the clause on the literal is a tautology
+   */
+  private boolean blocked(IntVec clause, int lit, boolean[] marks) {
+    IntVec cs = occs.get(var(lit));
+    if (cs.size() > occurrence_lim) {
+      return false;
+    }
+    for (int k = 0; k < cs.size(); k++) {
+      IntVec d = clauses.get(cs.get(k));
+      if (!d.contains(not(lit))) {
+        continue;
+      }
+      boolean tautology = false;
+      for (int i = 0; i < d.size() && !tautology; i++) {
+        steps++;
+        int other = d.get(i);
+        tautology = other != not(lit) && marks[not(other)];
+      }
+      if (!tautology) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void eliminateBlocked() {
+    boolean[] marks = new boolean[2 * nVars];
+    for (int c = 0; c < clauses.size() && steps < step_lim; c++) {
+      IntVec clause = clauses.get(c);
+      if (clause == null || clause.size() > occurrence_lim) {
+        continue;
+      }
+      for (int i = 0; i < clause.size(); i++)
+        marks[clause.get(i)] = true;
+      int blocking = -1;
+      for (int i = 0; i < clause.size() && blocking == -1; i++) {
+        int lit = clause.get(i);
+        if (!frozen[var(lit)] && blocked(clause, lit, marks)) {
+          blocking = lit;
+        }
+      }
+      for (int i = 0; i < clause.size(); i++)
+        marks[clause.get(i)] = false;
+      if (blocking != -1) {
+        blocked_clauses++;
+        eliminateClause(c, blocking);
+      }
+    }
+  }
+
+  /**
+   * Simplifies the clauses added so far.
+   *
+   * @return false if the clauses are unsatisfiable
+   */
+  public boolean preprocess() {
+    steps = 0;
+    if (!propagateUnits() || !backwardSubsumption()) {
+      return false;
+    }
+    for (int round = 0; round < 3 && eliminateVars(); round++) ;
+    if (ok) {
+      eliminateBlocked();
+    }
+    return ok;
+  }
+
+  /**
+   * Removes the remaining clauses and assigned units from the preprocessor.
+   *
+   * @param out receives the clauses
+   */
+  public void moveClausesTo(IVec<IntVec> out) {
+    for (int i = 0; i < units.size(); i++)
+      out.push(new IntVec(new int[]{units.get(i)}));
+    for (int c = 0; c < clauses.size(); c++)
+      if (clauses.get(c) != null) {
+        out.push(clauses.get(c));
+      }
+    clauses.clear();
+    queued.clear();
+    subsumptionQueue.clear();
+    for (int v = 0; v < nVars; v++) {
+      occs.get(v).clear();
+      touched[v] = false;
+    }
+    Arrays.fill(litOccs, 0);
+  }
+
+  /**
+   * Takes the clauses of the variable, and transitively of all variables occurring in them, off the elimination
+   * stack.  The variables are no longer eliminated afterwards.
+   *
+   * @param var the variable
+   * @param out receives the restored clauses
+   */
+  public void restore(int var, IVec<IntVec> out) {
+    IntVec todo = new IntVec();
+    todo.push(var);
+    while (todo.size() > 0) {
+      int v = todo.last();
+      todo.pop();
+      if (!onStack[v]) {
+        continue;
+      }
+      onStack[v] = false;
+      eliminated[v] = false;
+      int i = elimStack.size() - 1;
+      IntVec kept = new IntVec();
+      // walk the stack from the top, keep the order of the entries which stay
+      while (i >= 0) {
+        int size = elimStack.get(i);
+        int first = i - size;
+        if (var(elimStack.get(first)) == v) {
+          IntVec clause = new IntVec(size);
+          for (int k = first; k < i; k++) {
+            int lit = elimStack.get(k);
+            clause.push(lit);
+            if (onStack[var(lit)]) {
+              todo.push(var(lit));
+            }
+          }
+          out.push(clause);
+        } else {
+          for (int k = i; k >= first; k--)
+            kept.push(elimStack.get(k));
+        }
+        i = first - 1;
+      }
+      elimStack.clear();
+      for (int k = kept.size() - 1; k >= 0; k--)
+        elimStack.push(kept.get(k));
+    }
+  }
+
+  /**
+   * Extends a model of the simplified formula to the eliminated variables.
+   *
+   * @param model the model, indexed by variable, true for a positive literal
+   */
+  public void extendModel(BooleanVec model) {
+    int i = elimStack.size() - 1;
+    while (i >= 0) {
+      int size = elimStack.get(i);
+      int first = i - size;
+      boolean satisfied = false;
+      for (int k = first; k < i && !satisfied; k++) {
+        int lit = elimStack.get(k);
+        satisfied = model.get(var(lit)) != sign(lit);
+      }
+      if (!satisfied) {
+        int pivot = elimStack.get(first);
+        model.set(var(pivot), !sign(pivot));
+      }
+      i = first - 1;
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.simp;
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.IVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.Vec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.MSJCoreProver;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics.BranchingHeuristic;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.proof.ProofWriter;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.restarts.RestartPolicy;
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.LBool;
+
+/**
+ * MiniSAT Java with a preprocessing stage: the problem clauses added before the first call of {@link #solve(IntVec)}
+ * are simplified by a {@link MSJPreprocessor} and only the result is handed to the CDCL core.  Models are extended to
+ * the eliminated variables.
+ * <p/>
+ * Clauses added later go directly to the core.  If such a clause, or an assumption, contains an eliminated variable,
+ * the clauses removed with it are restored first, so incremental use stays correct.  Variables which are known to
+ * appear in later clauses or assumptions should be frozen to avoid this.
+ */
+public class MSJSimpProver extends MSJCoreProver {
+  private final MSJPreprocessor preprocessor = new MSJPreprocessor();
+  private boolean preprocessed = false;
+
+  public MSJSimpProver() {
+    super();
+  }
+
+  public MSJSimpProver(BranchingHeuristic heuristic) {
+    super(heuristic);
+  }
+
+  public MSJSimpProver(BranchingHeuristic heuristic, RestartPolicy restarts) {
+    super(heuristic, restarts);
+  }
+
+  public MSJPreprocessor preprocessor() {
+    return preprocessor;
+  }
+
+  /**
+   * Protects a variable from elimination.  Only effective before the first call of {@link #solve(IntVec)}.
+   *
+   * @param var    the variable
+   * @param frozen true to freeze, false to thaw the variable
+   */
+  public void setFrozen(int var, boolean frozen) {
+    preprocessor.setFrozen(var, frozen);
+  }
+
+  /**
+   * Records a proof like {@link MSJCoreProver#setProof(ProofWriter)}, including the preprocessing steps in case of a
+   * DRAT proof.  The preprocessor cannot provide LRAT hints, so with an LRAT writer the clauses go to the core
+   * without preprocessing.
+   */
+  @Override
+  public void setProof(ProofWriter proof) {
+    super.setProof(proof);
+    if (proof != null && proof.needsHints()) {
+      preprocessed = true;
+    } else {
+      preprocessor.setProof(proof);
+    }
+  }
+
+  public boolean isEliminated(int var) {
+    return preprocessor.isEliminated(var);
+  }
+
+  @Override
+  public int newVar() {
+    int var = super.newVar();
+    preprocessor.newVar();
+    return var;
+  }
+
+  @Override
+  public void newClause(IntVec clauseVec, boolean learnt) {
+    if (learnt) {
+      super.newClause(clauseVec, true);
+    } else if (!preprocessed) {
+      preprocessor.addClause(clauseVec);
+    } else {
+      for (int i = 0; i < clauseVec.size(); i++)
+        restore(var(clauseVec.get(i)));
+      super.newClause(clauseVec, false);
+    }
+  }
+
+  /**
+   * Adds a linear constraint like {@link MSJCoreProver#addAtMost(IntVec, long[], long, int)}.  The preprocessor
+   * only sees clauses, so the variables of the constraint are frozen, or restored if they were eliminated by an
+   * earlier solve call.
+   */
+  @Override
+  public void addAtMost(IntVec lits, long[] coefs, long bound, int guard) {
+    protect(lits, guard);
+    super.addAtMost(lits, coefs, bound, guard);
+  }
+
+  /**
+   * Adds an XOR constraint like {@link MSJCoreProver#addXor(IntVec)}, its variables are protected from the
+   * preprocessor the same way.
+   */
+  @Override
+  public void addXor(IntVec lits) {
+    protect(lits, -1);
+    super.addXor(lits);
+  }
+
+  private void protect(IntVec lits, int guard) {
+    for (int i = 0; i <= lits.size(); i++) {
+      int lit = i < lits.size() ? lits.get(i) : guard;
+      if (lit == -1) {
+        continue;
+      }
+      if (preprocessed) {
+        restore(var(lit));
+      } else {
+        preprocessor.setFrozen(var(lit), true);
+      }
+    }
+  }
+
+  private void restore(int var) {
+    if (preprocessor.isOnStack(var)) {
+      IVec<IntVec> restored = new Vec<IntVec>();
+      preprocessor.restore(var, restored);
+      for (int i = 0; i < restored.size(); i++)
+        super.newClause(restored.get(i), false);
+    }
+  }
+
+  private void preprocess(IntVec assumps) {
+    preprocessed = true;
+    IntVec thawed = new IntVec();
+    for (int i = 0; i < assumps.size(); i++) {
+      int var = var(assumps.get(i));
+      if (!preprocessor.isFrozen(var)) {
+        preprocessor.setFrozen(var, true);
+        thawed.push(var);
+      }
+    }
+    boolean consistent = preprocessor.preprocess();
+    for (int i = 0; i < thawed.size(); i++)
+      preprocessor.setFrozen(thawed.get(i), false);
+    IVec<IntVec> simplified = new Vec<IntVec>();
+    preprocessor.moveClausesTo(simplified);
+    if (!consistent) {
+      super.newClause(new IntVec(), false);
+    }
+    for (int i = 0; i < simplified.size(); i++)
+      super.newClause(simplified.get(i), false);
+  }
+
+  @Override
+  public byte solveLimited(IntVec assumps) {
+    if (!preprocessed) {
+      preprocess(assumps);
+    } else {
+      for (int i = 0; i < assumps.size(); i++)
+        restore(var(assumps.get(i)));
+    }
+    byte result = super.solveLimited(assumps);
+    if (result == LBool.TRUE) {
+      preprocessor.extendModel(model);
+    }
+    return result;
+  }
+
+  /**
+   * Starts an enumeration like {@link MSJCoreProver#startEnumeration(IntVec, IntVec, boolean, boolean)}.  The
+   * projected variables are kept from elimination, or restored if they were eliminated by an earlier solve call.
+   */
+  @Override
+  public void startEnumeration(IntVec assumps, IntVec projection, boolean shrink, boolean chronological) {
+    stopEnumeration();
+    IntVec kept = new IntVec();
+    assumps.copyTo(kept);
+    for (int i = 0; i < (projection == null ? nVars : projection.size()); i++)
+      kept.push(mkLit(projection == null ? i : projection.get(i), false));
+    if (!preprocessed) {
+      preprocess(kept);
+    } else {
+      for (int i = 0; i < kept.size(); i++)
+        restore(var(kept.get(i)));
+    }
+    super.startEnumeration(assumps, projection, shrink, chronological);
+  }
+
+  @Override
+  public byte nextModel() {
+    byte result = super.nextModel();
+    if (result == LBool.TRUE) {
+      preprocessor.extendModel(model);
+    }
+    return result;
+  }
+}
@@ -25,6 +25,7 @@
 
 package org.warthog.pl.decisionprocedures.satsolver.impl.picosat;
 
+import com.sun.jna.Callback;
 import com.sun.jna.Library;
 import com.sun.jna.Native;
 import com.sun.jna.Platform;
@@ -41,6 +42,15 @@ public class JPicosat {
 
     private CPicosat INSTANCE;
     private Pointer currentPicosatObject;
+    // kept here so that the callback is not garbage collected while picosat holds it
+    private InterruptCallback interruptCallback;
+
+    /**
+     *  Called by picosat during the search, a non-zero result stops the search.
+     */
+    public interface InterruptCallback extends Callback {
+        int invoke(Pointer externalState);
+    }
 
     /**
      *  Interface for Picosat-959.
@@ -60,6 +70,16 @@ public class JPicosat {
 
         int picosat_add(Pointer object, int lit);
 
+        void picosat_assume(Pointer object, int lit);
+
+        int picosat_failed_assumption(Pointer object, int lit);
+
+        void picosat_set_propagation_limit(Pointer object, long limit);
+
+        long picosat_propagations(Pointer object);
+
+        void picosat_set_interrupt(Pointer object, Pointer externalState, InterruptCallback interrupted);
+
         String picosat_version();
     }
 
@@ -123,6 +143,30 @@ public class JPicosat {
         return INSTANCE.picosat_add(currentPicosatObject, lit);
     }
 
+    public void picosat_assume(int lit) {
+        INSTANCE.picosat_assume(currentPicosatObject, lit);
+    }
+
+    public int picosat_failed_assumption(int lit) {
+        return INSTANCE.picosat_failed_assumption(currentPicosatObject, lit);
+    }
+
+    /**
+     * @param limit the number of propagations after which picosat_sat returns UNKNOWN, counted over all calls
+     */
+    public void picosat_set_propagation_limit(long limit) {
+        INSTANCE.picosat_set_propagation_limit(currentPicosatObject, limit);
+    }
+
+    public long picosat_propagations() {
+        return INSTANCE.picosat_propagations(currentPicosatObject);
+    }
+
+    public void picosat_set_interrupt(InterruptCallback interrupted) {
+        interruptCallback = interrupted;
+        INSTANCE.picosat_set_interrupt(currentPicosatObject, null, interrupted);
+    }
+
     private void checkLibraryVersion(String path) {
       int version = 0;
       try {
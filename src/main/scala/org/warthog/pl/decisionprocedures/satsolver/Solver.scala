@@ -25,11 +25,15 @@
 
 package org.warthog.pl.decisionprocedures.satsolver
 
-import org.warthog.generic.formulas.{Formula, Falsum}
-import org.warthog.pl.formulas.PL
+import org.warthog.generic.formulas.{Formula, Falsum, Verum, And, Not, Xor}
+import org.warthog.pl.formulas.{PL, PLAtom}
 import org.warthog.pl.datastructures.cnf.{PLLiteral, ImmutablePLClause}
 import org.warthog.pl.transformations.CNFUtil
 import org.warthog.generic.datastructures.cnf.ClauseLike
+import org.warthog.pl.generators.pbc.{BailleuxBoufkhadRoussel, PBCtoSAT}
+import java.util.concurrent.{CompletableFuture, Executors, ThreadFactory}
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.{BiConsumer, Supplier}
 
 /**
  * Common interface for SAT solvers
@@ -46,11 +50,23 @@ trait Solver {
   def reset()
 
   /**
-   * Add a formula to the solver.  If the solver held a formula `F` before, it now holds `F /\ fm`.
+   * Add a formula to the solver.  If the solver held a formula `F` before, it now holds `F /\ fm`.  Conjuncts which
+   * are XORs of literals and constants are added by `addXor`.
    * @param fm the formula to add
    */
   def add(fm: Formula[PL]) {
-    add(CNFUtil.toImmutableCNF(fm))
+    val (parities, rest) = Solver.conjuncts(fm).partition(Solver.isParity)
+    if (parities.isEmpty)
+      add(CNFUtil.toImmutableCNF(fm))
+    else {
+      parities.foreach { p =>
+        Solver.parity(p) match {
+          case (Nil, odd)     => if (odd) add(new ImmutablePLClause())
+          case (l :: ls, odd) => addXor(if (odd) l :: ls else l.negate :: ls)
+        }
+      }
+      rest.foreach(f => add(CNFUtil.toImmutableCNF(f)))
+    }
   }
 
   def add(clauses: Traversable[ClauseLike[PL, PLLiteral]]) {
@@ -63,6 +79,66 @@ trait Solver {
    */
   def add(clause: ClauseLike[PL, PLLiteral])
 
+  /**
+   * Add the constraint that at most `k` of the literals are true.
+   * @param literals the literals
+   * @param k the bound, a negative bound makes the constraint unsatisfiable
+   */
+  def addAtMost(literals: Traversable[PLLiteral], k: Int) {
+    addLinearAtMost(literals.map(l => (1L, l)), k)
+  }
+
+  /**
+   * Add the constraint that at least `k` of the literals are true.
+   * @param literals the literals
+   * @param k the bound
+   */
+  def addAtLeast(literals: Traversable[PLLiteral], k: Int) {
+    addLinearAtLeast(literals.map(l => (1L, l)), k)
+  }
+
+  /**
+   * Add the linear constraint that the coefficients of the true literals sum up to at most `bound`.  Coefficients
+   * may be negative and literals may share variables.  By default the constraint is encoded into clauses over fresh
+   * variables prefixed with `PBCtoSAT.DEFAULT_PREFIX`, solvers with native linear constraints override this.
+   * @param terms the coefficients and their literals
+   * @param bound the bound
+   */
+  def addLinearAtMost(terms: Traversable[(Long, PLLiteral)], bound: Long) {
+    val prefix = PBCtoSAT.DEFAULT_PREFIX + "pb" + Solver.constraintIds.getAndIncrement + "_"
+    add(BailleuxBoufkhadRoussel.le(terms.toList, bound, prefix))
+  }
+
+  /**
+   * Add the linear constraint that the coefficients of the true literals sum up to at least `bound`.
+   * @param terms the coefficients and their literals
+   * @param bound the bound
+   */
+  def addLinearAtLeast(terms: Traversable[(Long, PLLiteral)], bound: Long) {
+    addLinearAtMost(terms.map { case (coef, lit) => (coef, lit.negate) }, terms.map(_._1).sum - bound)
+  }
+
+  /**
+   * Add the constraint that an odd number of the literals is true.  Even parity is expressed by negating one of the
+   * literals.  By default the constraint is encoded into clauses over fresh variables prefixed with
+   * `PBCtoSAT.DEFAULT_PREFIX`, which chain the parities of chunks of three literals.  Solvers with native XOR
+   * constraints override this.
+   * @param literals the literals
+   */
+  def addXor(literals: Traversable[PLLiteral]) {
+    val prefix = PBCtoSAT.DEFAULT_PREFIX + "xor" + Solver.constraintIds.getAndIncrement + "_"
+    var lits = literals.toList
+    var i = 0
+    while (lits.size > 4) {
+      val aux = PLLiteral(prefix + i, true)
+      i += 1
+      /* aux is the parity of the chunk, i.e. the chunk and the negated aux have an odd parity */
+      Solver.oddParityClauses(aux.negate :: lits.take(3)).foreach(add)
+      lits = aux :: lits.drop(3)
+    }
+    Solver.oddParityClauses(lits).foreach(add)
+  }
+
   /**
    * Mark a solver's internal stack position.  Executing
    * {{{
@@ -87,6 +163,59 @@ trait Solver {
    */
   def sat(): Int
 
+  /**
+   * Checks the previously added constraints for satisfiability under the assumption that the given literals are
+   * true.  The assumptions only hold for this call, the solver keeps no state about them.
+   * @param assumptions the literals assumed to be true
+   * @return Appropriate constant UNKNOWN, SAT or UNSAT
+   */
+  def sat(assumptions: Traversable[PLLiteral]): Int
+
+  /**
+   * The assumptions of the last call of `sat(assumptions)` which suffice to make the constraints unsatisfiable.
+   * @return a subset of the last assumptions, empty if the last call was satisfiable or the constraints are
+   *         unsatisfiable without assumptions
+   */
+  def failedAssumptions(): Set[PLLiteral]
+
+  /**
+   * Limits each following call of `sat`.  A call which runs out of budget returns `Solver.UNKNOWN` and the solver
+   * stays usable, e.g. for another call with a larger budget.  Solvers ignore the limits they do not support.
+   * @param budget the limits, `Budget.Unlimited` to remove them
+   */
+  def setBudget(budget: Budget)
+
+  /**
+   * Stops the running call of `sat`, which returns `Solver.UNKNOWN`.  May be called from any thread.  If no call is
+   * running, the next call is stopped.
+   */
+  def interrupt()
+
+  /**
+   * Runs `sat(assumptions)` on another thread.  Cancelling the future interrupts the solver.  The solver must not be
+   * used until the future is completed.
+   * @param assumptions the literals assumed to be true
+   * @return the result, an appropriate constant UNKNOWN, SAT or UNSAT
+   */
+  def satAsync(assumptions: Traversable[PLLiteral] = Nil): CompletableFuture[Int] = {
+    /* 0: not started, 1: running, 2: finished or cancelled before start */
+    val state = new AtomicInteger(0)
+    val future = CompletableFuture.supplyAsync(new Supplier[Int] {
+      def get() =
+        if (state.compareAndSet(0, 1))
+          try sat(assumptions) finally state.set(2)
+        else
+          Solver.UNKNOWN
+    }, Solver.asyncExecutor)
+    future.whenComplete(new BiConsumer[Int, Throwable] {
+      def accept(result: Int, t: Throwable) {
+        if (future.isCancelled && !state.compareAndSet(0, 2) && state.get == 1)
+          interrupt()
+      }
+    })
+    future
+  }
+
   def getModel(): Option[Model]
 }
 
@@ -95,6 +224,60 @@ object Solver {
   final val UNKNOWN = 0
   final val SAT = 1
   final val UNSAT = -1
+
+  /* numbers the auxiliary variables of encoded linear and XOR constraints */
+  private[satsolver] val constraintIds = new AtomicInteger(0)
+
+  /* the conjuncts of a formula, nested conjunctions are flattened */
+  private[satsolver] def conjuncts(fm: Formula[PL]): List[Formula[PL]] = fm match {
+    case And(fs@_*) => fs.toList.flatMap(conjuncts)
+    case _          => List(fm)
+  }
+
+  /* true for a possibly negated XOR whose operands are XORs, negations, atoms and constants only */
+  private[satsolver] def isParity(fm: Formula[PL]): Boolean = {
+    def operand(f: Formula[PL]): Boolean = f match {
+      case Xor(a, b)                => operand(a) && operand(b)
+      case Not(a)                   => operand(a)
+      case _: PLAtom | _: Verum[PL] => true
+      case _: Falsum[PL]            => true
+      case _                        => false
+    }
+    fm match {
+      case Not(f)    => isParity(f)
+      case Xor(_, _) => operand(fm)
+      case _         => false
+    }
+  }
+
+  /* the atoms of a parity formula and whether the formula is their parity (true) or its negation (false) */
+  private[satsolver] def parity(fm: Formula[PL]): (List[PLLiteral], Boolean) = fm match {
+    case Xor(a, b) =>
+      val (la, oa) = parity(a)
+      val (lb, ob) = parity(b)
+      (la ++ lb, oa == ob)
+    case Not(a) =>
+      val (l, odd) = parity(a)
+      (l, !odd)
+    case v: PLAtom     => (List(PLLiteral(v, true)), true)
+    case _: Verum[PL]  => (Nil, false)
+    case _             => (Nil, true)
+  }
+
+  /* the clauses excluding each assignment of the literals with an even number of true literals */
+  private[satsolver] def oddParityClauses(lits: List[PLLiteral]): List[ImmutablePLClause] =
+    (0 until (1 << lits.size)).filter(m => Integer.bitCount(m) % 2 == 0).map { m =>
+      new ImmutablePLClause(lits.zipWithIndex.map { case (l, i) => if ((m & (1 << i)) != 0) l.negate else l })
+    }.toList
+
+  /* runs the asynchronous sat calls, its threads do not keep the JVM alive */
+  private[satsolver] lazy val asyncExecutor = Executors.newCachedThreadPool(new ThreadFactory {
+    def newThread(r: Runnable) = {
+      val thread = new Thread(r, "Solver-async")
+      thread.setDaemon(true)
+      thread
+    }
+  })
 }
 
 /**
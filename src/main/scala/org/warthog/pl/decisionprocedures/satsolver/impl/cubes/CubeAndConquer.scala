@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.cubes
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.cubes.MSJCubeAndConquer
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisat.MSJSolverWrapper
+
+/**
+ * Solver Wrapper for the cube-and-conquer engine of MiniSatJava.  Aimed at hard combinatorial instances, where it
+ * spreads the search over all threads more evenly than a portfolio.
+ *
+ * Marks are implemented with activation variables, see [[MSJSolverWrapper]].  The conflicts and propagations of
+ * all cubes count against the budget, learnt clause memory is not limited.
+ *
+ * @param threads the number of threads, by default one per available processor
+ */
+class CubeAndConquer(val threads: Int = Runtime.getRuntime.availableProcessors) extends MSJSolverWrapper {
+  require(threads > 0, "CubeAndConquer needs at least one thread")
+
+  @volatile private var engine: MSJCubeAndConquer = _
+
+  reset()
+
+  override def name = "CubeAndConquer"
+
+  override def reset() {
+    super.reset()
+    if (engine != null)
+      engine.shutdown()
+    engine = new MSJCubeAndConquer(threads)
+  }
+
+  /**
+   * Stops the threads.  The solver cannot be used afterwards.
+   */
+  def shutdown() {
+    engine.shutdown()
+  }
+
+  protected def newVar() = engine.newVar()
+
+  protected def newClause(clause: IntVec) {
+    engine.newClause(clause)
+  }
+
+  protected def solve(assumptions: IntVec) = {
+    def limit(l: Long) = if (l > 0) l else -1
+    engine.setBudget(limit(budget.conflicts), limit(budget.propagations), limit(budget.millis))
+    val result = engine.solve(assumptions)
+    engine.clearInterrupt()
+    result
+  }
+
+  protected def failed() = engine.failedAssumptions()
+
+  protected def model() = engine.getModel()
+
+  override def interrupt() {
+    engine.interrupt()
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.localsearch
+
+import scala.collection.mutable.{ArrayBuffer, Map}
+import scala.collection.immutable
+import java.util.Random
+
+import org.warthog.pl.formulas.{PLAtom, PL}
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.MSJCoreProver
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.phases.PhaseWalker
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec
+import org.warthog.generic.datastructures.cnf.ClauseLike
+import org.warthog.pl.datastructures.cnf.PLLiteral
+import org.warthog.pl.decisionprocedures.satsolver.{Budget, Model, Solver}
+
+/**
+ * Solver Wrapper for the ProbSAT local search of MiniSatJava.  The search is incomplete: it finds models of large
+ * satisfiable random-like formulas fast, but never proves unsatisfiability.  Only formulas containing the empty clause
+ * are reported unsatisfiable, for all others `sat` runs until a model is found, the budget runs out or the solver is
+ * interrupted.
+ *
+ * Each call of `sat` starts from the model of the previous call.  Undoing a mark removes the clauses added after it,
+ * assumptions are added as unit clauses for the call.  Flips count as propagations against the budget, conflicts and
+ * learnt clause memory are not limited.
+ *
+ * @param seed the seed of the random choices
+ */
+class ProbSat(seed: Long = 0) extends Solver {
+  private val varToID = Map[PLAtom, Int]()
+  private val idToVar = ArrayBuffer[PLAtom]()
+  private val clauses = ArrayBuffer[Array[Int]]()
+  /* numbers of clauses at the active marks, innermost first */
+  private var marks: List[Int] = Nil
+  private var random = new Random(seed)
+  /* the phases of the last assignment, indexed by variable */
+  private var phases = Array[Boolean]()
+  private var lastState = Solver.UNKNOWN
+  /* true if lastState was computed under assumptions */
+  private var assumptionsUsed = false
+  private var budget = Budget.Unlimited
+  @volatile private var interruptRequested = false
+
+  override def name = "ProbSAT"
+
+  override def reset() {
+    varToID.clear()
+    idToVar.clear()
+    clauses.clear()
+    marks = Nil
+    random = new Random(seed)
+    phases = Array[Boolean]()
+    lastState = Solver.UNKNOWN
+    assumptionsUsed = false
+  }
+
+  override def add(clause: ClauseLike[PL, PLLiteral]) {
+    clauses += clause.literals.map(toLit).toArray
+
+    /* an unsatisfiable formula doesn't get satisfiable by adding clauses */
+    if (lastState != Solver.UNSAT || assumptionsUsed)
+      lastState = Solver.UNKNOWN
+  }
+
+  private def toLit(literal: PLLiteral) = MSJCoreProver.mkLit(getID(literal.variable), !literal.phase)
+
+  private def getID(v: PLAtom) = varToID.getOrElseUpdate(v, {
+    idToVar += v
+    idToVar.size - 1
+  })
+
+  override def mark() {
+    marks = clauses.size :: marks
+  }
+
+  override def undo() {
+    marks match {
+      case h :: t => {
+        marks = t
+        clauses.reduceToSize(h)
+        lastState = Solver.UNKNOWN
+      }
+      case _ => // No mark, then ignore undo
+    }
+  }
+
+  override def sat(): Int = {
+    if (lastState == Solver.UNKNOWN || assumptionsUsed)
+    /* call sat only if solver is in unknown state */
+      solve(Nil)
+    lastState
+  }
+
+  override def sat(assumptions: Traversable[PLLiteral]): Int = {
+    solve(assumptions.toList)
+    lastState
+  }
+
+  private def solve(assumptions: List[PLLiteral]) {
+    val assumptionLits = assumptions.map(toLit)
+    val nVars = idToVar.size
+    val walker = new PhaseWalker(nVars, random)
+    clauses.foreach(c => walker.addClause(new IntVec(c)))
+    assumptionLits.foreach(l => walker.addClause(new IntVec(Array(l))))
+    assumptionsUsed = assumptions.nonEmpty
+
+    if (clauses.exists(_.isEmpty))
+      lastState = Solver.UNSAT
+    else {
+      val start = phases ++ Array.fill(nVars - phases.length)(random.nextBoolean())
+      val deadline = if (budget.millis > 0) System.currentTimeMillis + budget.millis else Long.MaxValue
+      def withinBudget =
+        !interruptRequested && System.currentTimeMillis < deadline &&
+          (budget.propagations == 0 || walker.flips < budget.propagations)
+      walker.start(start)
+      var unsat = walker.nClauses()
+      while (unsat > 0 && withinBudget) {
+        val left = if (budget.propagations > 0) budget.propagations - walker.flips else Long.MaxValue
+        unsat = walker.walk(math.min(ProbSat.SLICE, left))
+      }
+      walker.best(start)
+      phases = start
+      lastState = if (unsat == 0) Solver.SAT else Solver.UNKNOWN
+    }
+    interruptRequested = false
+  }
+
+  /**
+   * The solver never proves unsatisfiability under assumptions, there are no failed assumptions.
+   */
+  override def failedAssumptions(): immutable.Set[PLLiteral] = immutable.Set.empty
+
+  override def setBudget(budget: Budget) {
+    this.budget = budget
+  }
+
+  override def interrupt() {
+    interruptRequested = true
+  }
+
+  override def getModel(): Option[Model] = {
+    require(lastState == Solver.SAT || lastState == Solver.UNSAT, "getModel(): Solver needs to be in SAT or UNSAT state!")
+
+    lastState match {
+      case Solver.UNSAT => None
+      case Solver.SAT => {
+        /* a phase is the sign of the true literal */
+        val (negative, positive) = idToVar.indices.partition(phases(_))
+        Some(Model(positive.map(idToVar).toList, negative.map(idToVar).toList))
+      }
+    }
+  }
+}
+
+object ProbSat {
+  /* flips between two checks of the budget */
+  private val SLICE = 1 << 14
+}
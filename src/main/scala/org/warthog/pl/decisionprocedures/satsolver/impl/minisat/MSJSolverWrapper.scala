@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter & Konstantin Grupp
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.minisat
+
+import scala.collection.mutable.Map
+import scala.collection.immutable
+import scala.collection.JavaConverters._
+
+import org.warthog.pl.formulas.{PLAtom, PL}
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.MSJCoreProver
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec
+import org.warthog.generic.datastructures.cnf.ClauseLike
+import org.warthog.pl.datastructures.cnf.PLLiteral
+import org.warthog.pl.decisionprocedures.satsolver.{Budget, Model, Solver}
+
+/**
+ * Common base of the solver wrappers around MiniSatJava provers.  Subclasses supply the calls to their backend,
+ * the wrapper maps atoms to variables of the backend and keeps the state of the last call of `sat`.
+ *
+ * Marks are implemented with activation variables.  Clauses added after a mark are extended by the negation of a
+ * fresh activation variable, which is assumed true while the mark is active.  Undoing the mark adds the negated
+ * activation variable as a unit, which satisfies all these clauses.
+ */
+abstract class MSJSolverWrapper extends Solver {
+  protected val varToID = Map[PLAtom, Int]()
+  protected val idToVar = Map[Int, PLAtom]()
+  /* activation variables of the active marks, innermost first */
+  protected var marks: List[Int] = Nil
+  protected var lastState = Solver.UNKNOWN
+  /* true if lastState was computed under assumptions */
+  protected var assumptionsUsed = false
+  private var failedLiterals: immutable.Set[PLLiteral] = immutable.Set.empty
+  protected var budget = Budget.Unlimited
+
+  /**
+   * @return a fresh variable of the backend
+   */
+  protected def newVar(): Int
+
+  /**
+   * Adds a clause to the backend.
+   */
+  protected def newClause(clause: IntVec)
+
+  /**
+   * Solves the clauses of the backend within `budget`.
+   * @param assumptions the literals assumed to be true
+   * @return the `LBool` result of the backend
+   */
+  protected def solve(assumptions: IntVec): Byte
+
+  /**
+   * @return the assumption literals of the last unsatisfiable call of `solve` which were used to refute the clauses
+   */
+  protected def failed(): IntVec
+
+  /**
+   * @return the model literals of the last satisfiable call of `solve`
+   */
+  protected def model(): java.util.List[Integer]
+
+  /**
+   * @return a fresh activation variable for a mark
+   */
+  protected def newActivationVar(): Int = newVar()
+
+  /**
+   * Called once a variable was created for an atom.
+   */
+  protected def atomAdded(v: PLAtom, id: Int) {}
+
+  /**
+   * Clears the state of the wrapper, subclasses reset their backend.
+   */
+  override def reset() {
+    varToID.clear()
+    idToVar.clear()
+    marks = Nil
+    lastState = Solver.UNKNOWN
+    assumptionsUsed = false
+    failedLiterals = immutable.Set.empty
+  }
+
+  override def add(clause: ClauseLike[PL, PLLiteral]) {
+    val clauseAsIntVec = new IntVec(clause.literals.map(toLit).toArray)
+    marks match {
+      case activation :: _ => clauseAsIntVec.push(MSJCoreProver.mkLit(activation, true))
+      case _ =>
+    }
+    newClause(clauseAsIntVec)
+    constraintAdded()
+  }
+
+  /**
+   * Invalidates the last result after a constraint was added.
+   */
+  protected def constraintAdded() {
+    /* an unsatisfiable formula doesn't get satisfiable by adding clauses */
+    if (lastState != Solver.UNSAT || assumptionsUsed)
+      lastState = Solver.UNKNOWN
+  }
+
+  protected def toLit(literal: PLLiteral) = MSJCoreProver.mkLit(getID(literal.variable), !literal.phase)
+
+  protected def getID(v: PLAtom) = varToID.getOrElseUpdate(v, {
+    val nextID = newVar()
+    idToVar += (nextID -> v)
+    atomAdded(v, nextID)
+    nextID
+  })
+
+  /**
+   * @return the literals assuming the activation variables of the active marks
+   */
+  protected def activations(): IntVec = new IntVec(marks.map(MSJCoreProver.mkLit(_, false)).toArray)
+
+  override def mark() {
+    marks = newActivationVar() :: marks
+  }
+
+  override def undo() {
+    marks match {
+      case h :: t => {
+        marks = t
+        newClause(new IntVec(Array(MSJCoreProver.mkLit(h, true))))
+        lastState = Solver.UNKNOWN
+      }
+      case _ => // No mark, then ignore undo
+    }
+  }
+
+  override def sat(): Int = {
+    if (lastState == Solver.UNKNOWN || assumptionsUsed)
+    /* call sat only if solver is in unknown state */
+      check(Nil)
+    lastState
+  }
+
+  override def sat(assumptions: Traversable[PLLiteral]): Int = {
+    check(assumptions.toList)
+    lastState
+  }
+
+  private def check(assumptions: List[PLLiteral]) {
+    val assumptionLits = assumptions.map(toLit)
+    val assumps = activations()
+    assumptionLits.foreach(assumps.push(_))
+    lastState = MiniSatJava.miniSatJavaStateToSolverState(solve(assumps))
+    assumptionsUsed = assumptions.nonEmpty
+    failedLiterals =
+      if (lastState == Solver.UNSAT) {
+        val failedLits = failed()
+        assumptions.zip(assumptionLits).filter(a => failedLits.contains(a._2)).map(_._1).toSet
+      } else
+        immutable.Set.empty
+  }
+
+  override def failedAssumptions(): immutable.Set[PLLiteral] = failedLiterals
+
+  override def setBudget(budget: Budget) {
+    this.budget = budget
+  }
+
+  override def getModel(): Option[Model] = {
+    require(lastState == Solver.SAT || lastState == Solver.UNSAT, "getModel(): Solver needs to be in SAT or UNSAT state!")
+
+    lastState match {
+      case Solver.UNSAT => None
+      case Solver.SAT => {
+        /* leave out the activation variables */
+        val lits: List[Integer] = model().asScala.toList.filter {
+          lit => idToVar.contains(MSJCoreProver.`var`(lit))
+        }
+        val positiveVariables = lits.filter {
+          lit => !MSJCoreProver.sign(lit)
+        }.map {
+          lit => idToVar(MSJCoreProver.`var`(lit))
+        }
+        val negativeVariables = lits.filter {
+          lit => MSJCoreProver.sign(lit)
+        }.map {
+          lit => idToVar(MSJCoreProver.`var`(lit))
+        }
+        Some(Model(positiveVariables, negativeVariables))
+      }
+    }
+  }
+}
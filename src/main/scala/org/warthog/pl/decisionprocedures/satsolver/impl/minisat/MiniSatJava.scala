@@ -25,114 +25,193 @@
 
 package org.warthog.pl.decisionprocedures.satsolver.impl.minisat
 
-import scala.collection.mutable.Map
-import scala.collection.JavaConverters._
+import scala.collection.mutable.Set
 
-import org.warthog.pl.formulas.{PLAtom, PL}
+import org.warthog.pl.formulas.PLAtom
 import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.MSJCoreProver
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.simp.MSJSimpProver
 import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec
-import org.warthog.generic.datastructures.cnf.ClauseLike
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.LBool
 import org.warthog.pl.datastructures.cnf.PLLiteral
-import org.warthog.pl.decisionprocedures.satsolver.{Model, Solver}
+import org.warthog.pl.decisionprocedures.satsolver.{Budget, Model, Solver}
 
 /**
  * Solver Wrapper for MiniSatJava.
+ *
+ * The wrapper keeps a single prover for its whole lifetime, marks are implemented with activation variables, see
+ * [[MSJSolverWrapper]].  Linear and XOR constraints added after a mark are guarded by its activation variable the
+ * same way as clauses.  Learnt clauses are kept across calls.
  */
-class MiniSatJava extends Solver {
-  private var miniSatJavaInstance = new MSJCoreProver()
-  private val varToID = Map[PLAtom, Int]()
-  private val idToVar = Map[Int, PLAtom]()
-  private var clausesStack: List[ClauseLike[PL, PLLiteral]] = Nil
-  private var marks: List[Int] = Nil
-  private var lastState = Solver.UNKNOWN
+class MiniSatJava extends MSJSolverWrapper {
+  @volatile private var miniSatJavaInstance = new MSJSimpProver()
+  private val frozen = Set[PLAtom]()
 
   override def name = "MiniSatJava"
 
   override def reset() {
-    miniSatJavaInstance = new MSJCoreProver
-    varToID.clear()
-    idToVar.clear()
-    clausesStack = Nil
-    marks = Nil
-    lastState = Solver.UNKNOWN
+    super.reset()
+    miniSatJavaInstance = new MSJSimpProver
+    frozen.clear()
   }
 
-  override def add(clause: ClauseLike[PL, PLLiteral]) {
-    clausesStack = (clause :: clausesStack)
-    addClauseToSolver(clause)
+  protected def newVar() = miniSatJavaInstance.newVar()
+
+  protected def newClause(clause: IntVec) {
+    miniSatJavaInstance.newClause(clause, false)
+  }
 
-    /* an unsatisfiable formula doesn't get satisfiable by adding clauses */
-    if (lastState != Solver.UNSAT)
-      lastState = Solver.UNKNOWN
+  protected def solve(assumptions: IntVec) = {
+    MiniSatJava.applyBudget(miniSatJavaInstance, budget)
+    val result = miniSatJavaInstance.solveLimited(assumptions)
+    miniSatJavaInstance.clearInterrupt()
+    result
   }
 
-  private def addClauseToSolver(clause: ClauseLike[PL, PLLiteral]) {
-    val clauseAsIntVec = new IntVec(clause.literals.map(literal => {
-      val (v, phase) = (literal.variable, literal.phase)
-      val id = varToID.getOrElseUpdate(v, {
-        miniSatJavaInstance.newVar()
-        val nextID = varToID.size
-        idToVar += (nextID -> v)
-        nextID
-      })
-      MSJCoreProver.mkLit(id, !phase)
-    }).toArray)
-
-    miniSatJavaInstance.newClause(clauseAsIntVec, false)
+  protected def failed() = miniSatJavaInstance.failedAssumptions()
+
+  protected def model() = miniSatJavaInstance.getModel()
+
+  /* activation variables must survive the preprocessor */
+  override protected def newActivationVar() = {
+    val activation = miniSatJavaInstance.newVar()
+    miniSatJavaInstance.setFrozen(activation, true)
+    activation
   }
 
-  override def mark() {
-    marks = clausesStack.length :: marks
+  override protected def atomAdded(v: PLAtom, id: Int) {
+    if (frozen.contains(v))
+      miniSatJavaInstance.setFrozen(id, true)
   }
 
-  override def undo() {
+  /**
+   * Adds the constraint natively, the prover sums up the coefficients of the true literals instead of encoding the
+   * constraint into clauses.  Under a mark the constraint is guarded by the activation variable of the mark.
+   */
+  override def addLinearAtMost(terms: Traversable[(Long, PLLiteral)], bound: Long) {
+    val lits = new IntVec(terms.map(t => toLit(t._2)).toArray)
+    val coefs = terms.map(_._1).toArray
     marks match {
-      case h :: t => {
-        marks = t
-        miniSatJavaInstance = new MSJCoreProver
-        varToID.clear()
-        idToVar.clear()
-        clausesStack = clausesStack.drop(clausesStack.length - h)
-        clausesStack.foreach(addClauseToSolver(_))
-        lastState = Solver.UNKNOWN
-      }
-      case _ => // No mark, then ignore undo
+      case activation :: _ => miniSatJavaInstance.addAtMost(lits, coefs, bound, MSJCoreProver.mkLit(activation, false))
+      case _ => miniSatJavaInstance.addAtMost(lits, coefs, bound)
+    }
+    constraintAdded()
+  }
+
+  /**
+   * Adds the constraint natively, the prover propagates it by Gauss-Jordan elimination instead of encoding it into
+   * clauses.  Under a mark the constraint is guarded by the activation variable of the mark.
+   */
+  override def addXor(literals: Traversable[PLLiteral]) {
+    val lits = new IntVec(literals.map(toLit).toArray)
+    marks match {
+      case activation :: _ => miniSatJavaInstance.addXor(lits, MSJCoreProver.mkLit(activation, false))
+      case _ => miniSatJavaInstance.addXor(lits)
     }
+    constraintAdded()
   }
 
-  override def sat(): Int = {
-    if (lastState == Solver.UNKNOWN)
-    /* call sat only if solver is in unknown state */
-      lastState = MiniSatJava.miniSatJavaStateToSolverState(miniSatJavaInstance.solve())
-    lastState
+  /**
+   * Protects a variable from being eliminated by the preprocessor.  Variables which will occur in clauses added
+   * after the first call of sat() should be frozen, otherwise the solver has to restore the clauses eliminated with
+   * them.
+   *
+   * @param v the variable
+   */
+  def freeze(v: PLAtom) {
+    frozen += v
+    miniSatJavaInstance.setFrozen(getID(v), true)
   }
 
-  override def getModel(): Option[Model] = {
-    require(lastState == Solver.SAT || lastState == Solver.UNSAT, "getModel(): Solver needs to be in SAT or UNSAT state!")
-
-    lastState match {
-      case Solver.UNSAT => None
-      case Solver.SAT => {
-        val miniSatJavaModel: List[Integer] = miniSatJavaInstance.getModel().asScala.toList
-        val positiveVariables = miniSatJavaModel.filter {
-          lit => !MSJCoreProver.sign(lit)
-        }.map {
-          lit => idToVar(MSJCoreProver.`var`(lit))
-        }.toList
-        val negativeVariables = miniSatJavaModel.filter {
-          lit => MSJCoreProver.sign(lit)
-        }.map {
-          lit => idToVar(MSJCoreProver.`var`(lit))
-        }.toList
-        Some(Model(positiveVariables, negativeVariables))
+  /**
+   * Seeds the phases of the solver with a model, e.g. the model of a previous, similar query.  The solver tries
+   * the values of the model first when branching.  Variables unknown to the solver are ignored.
+   *
+   * @param model the model
+   */
+  def seedPhases(model: Model) {
+    model.toMap.foreach {
+      case (v, value) => varToID.get(v).foreach(id => miniSatJavaInstance.setPhase(id, !value))
+    }
+  }
+
+  /**
+   * Enumerates the models of the added clauses projected onto the given variables.  The models are searched lazily
+   * while iterating, and the iteration ends early if the budget runs out.  Adding clauses, calling sat(), resetting
+   * the solver or starting another enumeration ends the enumeration, the iterator has no further models then.
+   *
+   * @param projection    the variables to project onto
+   * @param shrink        true to enumerate partial models, a variable missing from a model may take either value
+   * @param chronological true to backtrack over the projected variables instead of adding blocking clauses, the
+   *                      models are total then
+   * @return the models
+   */
+  def models(projection: Traversable[PLAtom], shrink: Boolean = true,
+             chronological: Boolean = false): Iterator[Model] = {
+    val prover = miniSatJavaInstance
+    val projectionVec = new IntVec(projection.map(getID).toArray)
+    prover.startEnumeration(activations(), projectionVec, shrink, chronological)
+    val enumeration = prover.enumeration()
+    lastState = Solver.UNKNOWN
+
+    new Iterator[Model] {
+      private var pending: Option[Model] = None
+      private var exhausted = false
+
+      def hasNext = {
+        /* the enumeration was ended by the solver */
+        if (prover.enumeration() != enumeration || (prover ne miniSatJavaInstance))
+          exhausted = true
+        if (pending.isEmpty && !exhausted) {
+          MiniSatJava.applyBudget(prover, budget)
+          if (prover.nextModel() == LBool.TRUE) {
+            val cube = prover.enumeratedModel()
+            val lits = (0 until cube.size()).map(cube.get).toList
+            val (negative, positive) = lits.partition(MSJCoreProver.sign)
+            pending = Some(Model(positive.map(lit => idToVar(MSJCoreProver.`var`(lit))),
+              negative.map(lit => idToVar(MSJCoreProver.`var`(lit)))))
+          } else {
+            exhausted = true
+            prover.stopEnumeration()
+          }
+          prover.clearInterrupt()
+        }
+        pending.isDefined
+      }
+
+      def next() = {
+        if (!hasNext)
+          throw new NoSuchElementException("no more models")
+        val model = pending.get
+        pending = None
+        model
       }
     }
   }
+
+  override def interrupt() {
+    miniSatJavaInstance.interrupt()
+  }
 }
 
 object MiniSatJava {
-  private def miniSatJavaStateToSolverState(miniSatJavaState: Boolean) = miniSatJavaState match {
-    case false => Solver.UNSAT
-    case true => Solver.SAT
+  private[satsolver] def miniSatJavaStateToSolverState(miniSatJavaState: Byte) = miniSatJavaState match {
+    case LBool.FALSE => Solver.UNSAT
+    case LBool.TRUE => Solver.SAT
+    case _ => Solver.UNKNOWN
+  }
+
+  /**
+   * Sets the limits of the next solve call of a prover.
+   */
+  private[satsolver] def applyBudget(prover: MSJCoreProver, budget: Budget) {
+    prover.budgetOff()
+    if (budget.conflicts > 0)
+      prover.setConfBudget(budget.conflicts)
+    if (budget.propagations > 0)
+      prover.setPropBudget(budget.propagations)
+    if (budget.millis > 0)
+      prover.setTimeBudget(budget.millis)
+    if (budget.learntMemory > 0)
+      prover.setLearntMemoryBudget(budget.learntMemory)
   }
 }
\ No newline at end of file
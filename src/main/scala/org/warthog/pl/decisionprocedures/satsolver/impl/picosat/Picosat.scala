@@ -27,15 +27,16 @@ package org.warthog.pl.decisionprocedures.satsolver.impl.picosat
 
 import scala.collection.mutable.Map
 
-import org.warthog.pl.decisionprocedures.satsolver.{Model, Solver}
+import org.warthog.pl.decisionprocedures.satsolver.{Budget, Model, Solver}
 import org.warthog.pl.formulas.{PLAtom, PL}
 import org.warthog.generic.formulas._
 import org.warthog.pl.transformations.CNFUtil
 import org.warthog.pl.datastructures.cnf.{PLLiteral, ImmutablePLClause}
 import org.warthog.generic.datastructures.cnf.ClauseLike
+import com.sun.jna.Pointer
 
 /**
- * Solver Wrapper for Picosat.
+ * Solver Wrapper for Picosat.  Picosat supports propagation and time limits, it ignores the other limits of a budget.
  */
 class Picosat extends Solver {
   private val jPicosatInstance = new JPicosat()
@@ -44,6 +45,16 @@ class Picosat extends Solver {
   private var clausesStack: List[Set[Int]] = Nil
   private var marks: List[Int] = Nil
   private var lastState = Solver.UNKNOWN
+  /* true if lastState was computed under assumptions */
+  private var assumptionsUsed = false
+  private var failed: Set[PLLiteral] = Set.empty
+  private var budget = Budget.Unlimited
+  @volatile private var interruptRequested = false
+  private var deadline = 0L
+  private val interruptCallback = new JPicosat.InterruptCallback {
+    def invoke(externalState: Pointer) =
+      if (interruptRequested || deadline > 0 && System.nanoTime() >= deadline) 1 else 0
+  }
 
   jPicosatInstance.picosat_init()
 
@@ -57,6 +68,8 @@ class Picosat extends Solver {
     clausesStack = Nil
     marks = Nil
     lastState = Solver.UNKNOWN
+    assumptionsUsed = false
+    failed = Set.empty
   }
 
   override def add(clause: ClauseLike[PL, PLLiteral]) {
@@ -65,19 +78,20 @@ class Picosat extends Solver {
     clausesStack = (clauseWithIDs :: clausesStack)
 
     /* an unsatisfiable formula doesn't get satisfiable by adding clauses */
-    if (lastState != Solver.UNSAT)
+    if (lastState != Solver.UNSAT || assumptionsUsed)
       lastState = Solver.UNKNOWN
   }
 
-  private def getIDsWithPhase(clause: ClauseLike[PL, PLLiteral]): Set[Int] = {
-    clause.literals.map(literal => {
-      val (v, phaseFactor) = (literal.variable, if (literal.phase) 1 else -1)
-      varToID.getOrElseUpdate(v, {
-        val nextID = varToID.size + 1
-        idToVar += (nextID -> v)
-        nextID
-      }) * phaseFactor
-    }).toSet
+  private def getIDsWithPhase(clause: ClauseLike[PL, PLLiteral]): Set[Int] =
+    clause.literals.map(getIDWithPhase).toSet
+
+  private def getIDWithPhase(literal: PLLiteral): Int = {
+    val (v, phaseFactor) = (literal.variable, if (literal.phase) 1 else -1)
+    varToID.getOrElseUpdate(v, {
+      val nextID = varToID.size + 1
+      idToVar += (nextID -> v)
+      nextID
+    }) * phaseFactor
   }
 
   private def addClauseWithIDs(clause: Set[Int]) {
@@ -104,13 +118,49 @@ class Picosat extends Solver {
   }
 
   override def sat(): Int = {
-    if (lastState == Solver.UNKNOWN)
-    /* call sat only if solver is in unknown state */
-      lastState = Picosat.jPicoSatStateToSolverState(
-        jPicosatInstance.picosat_sat(JPicosat.INFINITY_DECISION_LEVELS))
+    if (lastState == Solver.UNKNOWN || assumptionsUsed) {
+      /* call sat only if solver is in unknown state */
+      lastState = picosatSat()
+      assumptionsUsed = false
+      failed = Set.empty
+    }
     lastState
   }
 
+  override def sat(assumptions: Traversable[PLLiteral]): Int = {
+    val assumptionIDs = assumptions.map(literal => (getIDWithPhase(literal), literal)).toList
+    /* picosat forgets the assumptions after the next call of picosat_sat */
+    assumptionIDs.foreach(a => jPicosatInstance.picosat_assume(a._1))
+    lastState = picosatSat()
+    assumptionsUsed = assumptionIDs.nonEmpty
+    failed =
+      if (lastState == Solver.UNSAT)
+        assumptionIDs.filter(a => jPicosatInstance.picosat_failed_assumption(a._1) != 0).map(_._2).toSet
+      else
+        Set.empty
+    lastState
+  }
+
+  private def picosatSat() = {
+    jPicosatInstance.picosat_set_propagation_limit(
+      if (budget.propagations > 0) jPicosatInstance.picosat_propagations() + budget.propagations else -1L)
+    deadline = if (budget.millis > 0) System.nanoTime() + budget.millis * 1000000 else 0L
+    jPicosatInstance.picosat_set_interrupt(interruptCallback)
+    val state = Picosat.jPicoSatStateToSolverState(jPicosatInstance.picosat_sat(JPicosat.INFINITY_DECISION_LEVELS))
+    interruptRequested = false
+    state
+  }
+
+  override def failedAssumptions(): Set[PLLiteral] = failed
+
+  override def setBudget(budget: Budget) {
+    this.budget = budget
+  }
+
+  override def interrupt() {
+    interruptRequested = true
+  }
+
   override def getModel(): Option[Model] = {
     require(lastState == Solver.SAT || lastState == Solver.UNSAT, "getModel(): Solver needs to be in SAT or UNSAT state!")
 
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures.satsolver.impl.portfolio
+
+import java.util.concurrent.{Callable, ExecutorCompletionService, Executors, ThreadFactory}
+
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.MSJCoreProver
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.heuristics._
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.restarts._
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.sharing.{ClauseRing, RingClauseExchange}
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.core.stats.SearchParams
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.prover.datastructures.LBool
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisatjava.collections.nativeType.IntVec
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisat.{MiniSatJava, MSJSolverWrapper}
+
+/**
+ * A portfolio of MiniSatJava core provers solving the same clauses in parallel.
+ *
+ * The workers differ in branching heuristic, restart policy, random seed and initial phases.  The first worker to
+ * find an answer wins, the others are interrupted.  Workers share their short learnt clauses of low LBD through
+ * lock-free ring buffers and import the clauses of the others whenever they restart.  Budgets apply to each worker
+ * separately.
+ *
+ * Marks are implemented with activation variables, see [[MSJSolverWrapper]].
+ *
+ * @param workers the number of workers, by default one per available processor
+ */
+class ParallelPortfolio(val workers: Int = Runtime.getRuntime.availableProcessors) extends MSJSolverWrapper {
+  require(workers > 0, "ParallelPortfolio needs at least one worker")
+
+  private val pool = Executors.newFixedThreadPool(workers, new ThreadFactory {
+    def newThread(r: Runnable) = {
+      val thread = new Thread(r, "ParallelPortfolio-worker")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+  @volatile private var provers: Array[MSJCoreProver] = _
+  /* the worker which found the last answer */
+  private var winner = -1
+
+  reset()
+
+  override def name = "ParallelPortfolio"
+
+  override def reset() {
+    super.reset()
+    val rings = Array.fill(workers)(new ClauseRing(ParallelPortfolio.RING_CAPACITY))
+    provers = Array.tabulate(workers) {
+      i => {
+        val prover = ParallelPortfolio.newWorker(i)
+        prover.setClauseExchange(
+          new RingClauseExchange(rings, i, ParallelPortfolio.SHARE_MAX_LBD, ParallelPortfolio.SHARE_MAX_SIZE))
+        prover
+      }
+    }
+    winner = -1
+  }
+
+  /**
+   * Stops the worker threads.  The portfolio cannot be used afterwards.
+   */
+  def shutdown() {
+    pool.shutdownNow()
+  }
+
+  protected def newVar() = provers.map(_.newVar()).head
+
+  protected def newClause(clause: IntVec) {
+    provers.foreach(prover => prover.newClause(ParallelPortfolio.copy(clause), false))
+  }
+
+  protected def solve(assumptions: IntVec) = {
+    provers.foreach(MiniSatJava.applyBudget(_, budget))
+    val completion = new ExecutorCompletionService[(Int, Byte)](pool)
+    for (i <- 0 until workers)
+      completion.submit(new Callable[(Int, Byte)] {
+        def call() = (i, provers(i).solveLimited(ParallelPortfolio.copy(assumptions)))
+      })
+    var result = LBool.UNDEF
+    var running = workers
+    try {
+      /* workers which ran out of budget give no answer */
+      while (running > 0 && result == LBool.UNDEF) {
+        val done = completion.take()
+        running -= 1
+        val (i, status) = done.get()
+        if (status != LBool.UNDEF) {
+          winner = i
+          result = status
+        }
+      }
+    } finally {
+      /* the provers must not be touched before all workers stopped */
+      provers.foreach(_.interrupt())
+      for (_ <- 1 to running)
+        completion.take()
+      provers.foreach(_.clearInterrupt())
+    }
+    result
+  }
+
+  protected def failed() = provers(winner).failedAssumptions()
+
+  protected def model() = provers(winner).getModel()
+
+  override def interrupt() {
+    provers.foreach(_.interrupt())
+  }
+}
+
+object ParallelPortfolio {
+  /* learnt clauses up to this LBD and size are shared */
+  final val SHARE_MAX_LBD = 4
+  final val SHARE_MAX_SIZE = 12
+  final val RING_CAPACITY = 4096
+
+  /* each prover gets its own copy of a clause or of the assumptions */
+  private def copy(lits: IntVec) = {
+    val result = new IntVec(lits.size)
+    lits.copyTo(result)
+    result
+  }
+
+  /**
+   * Creates the i-th worker.  Heuristics, restart policies and initial phases cycle with different periods, so
+   * that the first workers all differ in every respect.
+   */
+  private def newWorker(i: Int): MSJCoreProver = {
+    val heuristic = i % 4 match {
+      case 0 => new VSIDSHeuristic
+      case 1 => new LRBHeuristic
+      case 2 => new VMTFHeuristic
+      case _ => new CHBHeuristic
+    }
+    val restarts = i % 3 match {
+      case 0 => new ModeSwitchingRestartPolicy
+      case 1 => new GlucoseRestartPolicy
+      case _ => new LubyRestartPolicy
+    }
+    val params = new SearchParams
+    params.random_seed += i
+    params.initial_phase = i % 2 == 1
+    new MSJCoreProver(heuristic, restarts, params)
+  }
+}
@@ -70,36 +70,41 @@ class WPM1(satSolver: Solver) extends PartialWeightedMaxSATSolver() {
     val id2WeightedClause = getId2WeightedClauseMapping(softClauses.toList, weights)
     var cost = 0L
     var loopCount = 0
-    var cc = ListBuffer[ImmutablePLClause]()
-    while (true) {
+    /* the exactly-one constraints of the blocking variables stay until the instance is solved */
+    satSolver.mark()
+    try {
+      while (true) {
 
-      val st = isSAT(id2WeightedClause, cc)
+        val st = isSAT(id2WeightedClause)
 
-      if (st)
-        return cost
+        if (st)
+          return cost
 
-      val BV = ListBuffer[PLAtom]()
-      val wMin: Long = softUnsatCore.map(id => id2WeightedClause(id)._2).min
-      for (id <- softUnsatCore) {
-        val newBV = PLAtom(WPM1.BLOCKING_VARIABLE_PREFIX + loopCount + "_" + BV.size)
+        val BV = ListBuffer[PLAtom]()
+        val wMin: Long = softUnsatCore.map(id => id2WeightedClause(id)._2).min
+        for (id <- softUnsatCore) {
+          val newBV = PLAtom(WPM1.BLOCKING_VARIABLE_PREFIX + loopCount + "_" + BV.size)
 
-        val oldClause = id2WeightedClause(id)._1
-        val oldWeight = id2WeightedClause(id)._2
-        id2WeightedClause.remove(id)
+          val oldClause = id2WeightedClause(id)._1
+          val oldWeight = id2WeightedClause(id)._2
+          id2WeightedClause.remove(id)
 
-        // Is weight greater than wMin?
-        if (oldWeight - wMin > 0)
-          id2WeightedClause(getNextID()) = (new MutablePLClause(oldClause.literals), oldWeight - wMin)
+          // Is weight greater than wMin?
+          if (oldWeight - wMin > 0)
+            id2WeightedClause(getNextID()) = (new MutablePLClause(oldClause.literals), oldWeight - wMin)
 
-        oldClause.push(PLLiteral(newBV, true))
-        id2WeightedClause(getNextID()) = (oldClause, wMin)
+          oldClause.push(PLLiteral(newBV, true))
+          id2WeightedClause(getNextID()) = (oldClause, wMin)
 
-        BV += newBV
-      }
+          BV += newBV
+        }
 
-      cc ++= getEQ1(BV)
-      cost += wMin
-      loopCount += 1
+        addEQ1(BV)
+        cost += wMin
+        loopCount += 1
+      }
+    } finally {
+      satSolver.undo()
     }
     throw new IllegalStateException("Should never leave the loop until instance is SAT")
   }
@@ -118,25 +123,22 @@ class WPM1(satSolver: Solver) extends PartialWeightedMaxSATSolver() {
     nextID
   }
 
-  private def isSAT(id2WeightedClause: mutable.HashMap[Int, (MutablePLClause, Long)],
-                    cc: ListBuffer[ImmutablePLClause]): Boolean = {
+  private def isSAT(id2WeightedClause: mutable.HashMap[Int, (MutablePLClause, Long)]): Boolean = {
     satSolver.mark()
     id2WeightedClause.values.foreach(weightedClause => satSolver.add(weightedClause._1))
-    cc.foreach(c => satSolver.add(c))
     val isSAT = satSolver.sat() == Solver.SAT
     model = satSolver.getModel()
     satSolver.undo()
     if (!isSAT)
-      softUnsatCore = computeSoftUnsatCore(id2WeightedClause, cc)
+      softUnsatCore = computeSoftUnsatCore(id2WeightedClause)
     isSAT
   }
 
-  private def computeSoftUnsatCore(id2WeightedClause: mutable.HashMap[Int, (MutablePLClause, Long)],
-                                   cc: ListBuffer[ImmutablePLClause]): ListBuffer[Int] = {
+  private def computeSoftUnsatCore(id2WeightedClause: mutable.HashMap[Int, (MutablePLClause, Long)])
+  : ListBuffer[Int] = {
     val softUnsatCore = ListBuffer[Int]()
 
     satSolver.mark()
-    cc.foreach(c => satSolver.add(c))
     // Add all soft clauses with marking
     val ids = id2WeightedClause.keySet.toArray
     for (i <- 0 until ids.length) {
@@ -159,13 +161,15 @@ class WPM1(satSolver: Solver) extends PartialWeightedMaxSATSolver() {
     softUnsatCore
   }
 
-  private def getEQ1(atoms: ListBuffer[PLAtom]): ListBuffer[ImmutablePLClause] = {
-    val result = new ListBuffer[ImmutablePLClause]()
-    result += new ImmutablePLClause(atoms.map(a => PLLiteral(a, true)): _*)
-    for (i <- 0 until atoms.size)
-      for (j <- i + 1 until atoms.size)
-        result += new ImmutablePLClause(PLLiteral(atoms(i), false), PLLiteral(atoms(j), false))
-    result
+  /**
+   * Adds the constraint that exactly one of the atoms is true, the at-most-one part as a cardinality constraint
+   * instead of quadratically many binary clauses.  Each group is added once, when it is created, since encoding a
+   * cardinality constraint may introduce auxiliary variables.
+   */
+  private def addEQ1(atoms: ListBuffer[PLAtom]) {
+    val literals = atoms.map(a => PLLiteral(a, true))
+    satSolver.add(new ImmutablePLClause(literals: _*))
+    satSolver.addAtMost(literals, 1)
   }
 
   override protected def areHardConstraintsSatisfiable() = {
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.parsers.pb
+
+import collection.mutable.ListBuffer
+import org.warthog.pl.datastructures.cnf.PLLiteral
+import org.warthog.pl.decisionprocedures.satsolver.Solver
+import io.Source
+
+/**
+ * A linear pseudo-Boolean constraint of an OPB file.
+ *
+ * @param terms    the coefficients and their literals
+ * @param relation one of `>=`, `<=` and `=`
+ * @param bound    the bound
+ */
+case class OPBConstraint(terms: List[(Long, PLLiteral)], relation: String, bound: Long) {
+
+  /**
+   * Adds the constraint to a solver, an equation as two linear constraints.
+   * @param solver the solver
+   */
+  def addTo(solver: Solver) {
+    if (relation != "<=")
+      solver.addLinearAtLeast(terms, bound)
+    if (relation != ">=")
+      solver.addLinearAtMost(terms, bound)
+  }
+}
+
+/**
+ * A Reader for linear pseudo-Boolean files in OPB format, e.g. `+3 x1 -2 ~x2 >= 1 ;`.  Variables keep their names,
+ * `~` negates a literal.
+ *
+ * Reference: O. Roussel, V. Manquinho: "Input/Output Format and Solver Requirements for the Competitions of
+ * Pseudo-Boolean Solvers"
+ */
+class OPBReader {
+  var objective = new ListBuffer[(Long, PLLiteral)]
+  var constraints = new ListBuffer[OPBConstraint]
+
+  private def reset() {
+    objective.clear()
+    constraints.clear()
+  }
+
+  def read(filePath: String) {
+    reset()
+    Source.fromFile(filePath).getLines().map(_.trim()).filter(_.nonEmpty).foreach(processLine)
+  }
+
+  private def processLine(line: String) {
+    line(0) match {
+      case '*' => // comment line
+      case _ if line.startsWith("min:") => objective ++= parseTerms(tokens(line.drop(4)))
+      case _ => processConstraintLine(line)
+    }
+  }
+
+  private def tokens(line: String) = line.trim().stripSuffix(";").trim().split("\\s+").filter(_.nonEmpty).toList
+
+  private def processConstraintLine(line: String) {
+    val parts = tokens(line)
+    val index = parts.indexWhere(t => t == ">=" || t == "<=" || t == "=")
+    if (index == -1 || index != parts.size - 2)
+      throw new IllegalArgumentException("Not a linear constraint: " + line)
+    constraints += OPBConstraint(parseTerms(parts.take(index)), parts(index), parts(index + 1).toLong)
+  }
+
+  private def parseTerms(parts: List[String]): List[(Long, PLLiteral)] = {
+    val terms = new ListBuffer[(Long, PLLiteral)]
+    var rest = parts
+    while (rest.nonEmpty) {
+      rest match {
+        case coef :: lit :: tail if isLiteral(lit) && !tail.headOption.exists(isLiteral) =>
+          terms += ((coef.toLong, parseLiteral(lit)))
+          rest = tail
+        case _ => throw new IllegalArgumentException("Not a linear term: " + rest.take(3).mkString(" "))
+      }
+    }
+    terms.toList
+  }
+
+  private def isLiteral(token: String) = token(0) == '~' || token(0).isLetter
+
+  private def parseLiteral(token: String) =
+    if (token(0) == '~') PLLiteral(token.drop(1), false) else PLLiteral(token, true)
+}
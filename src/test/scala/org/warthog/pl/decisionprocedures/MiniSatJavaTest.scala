@@ -27,11 +27,22 @@ package org.warthog.pl.decisionprocedures
 
 import satsolver.impl.minisat.MiniSatJava
 import org.specs2.mutable.Specification
-import satsolver.{Model, Solver, sat}
+import satsolver.{Budget, Model, Solver, sat}
 import org.warthog.pl.formulas.PLAtom
-import org.warthog.generic.formulas.{And, Not, Verum, Falsum}
+import org.warthog.pl.datastructures.cnf.PLLiteral
+import org.warthog.generic.formulas.{And, Or, Not, Xor, Verum, Falsum}
 import java.io.File
 import org.warthog.generic.parsers.DIMACSReader
+import org.warthog.pl.generators.PigeonHoleGenerator
+import java.nio.channels.FileChannel
+import java.nio.file.{Files, StandardOpenOption}
+import proofchecker.{DratChecker, LratChecker}
+import satsolver.impl.minisatjava.prover.core.MSJCoreProver
+import satsolver.impl.minisatjava.prover.core.heuristics.VSIDSHeuristic
+import satsolver.impl.minisatjava.prover.core.restarts.{LubyRestartPolicy, ModeSwitchingRestartPolicy}
+import satsolver.impl.minisatjava.prover.core.stats.SearchParams
+import satsolver.impl.minisatjava.prover.core.proof.{DratWriter, LratWriter}
+import satsolver.impl.minisatjava.collections.nativeType.IntVec
 
 /**
  * Tests for the MiniSatJava bindings
@@ -173,6 +184,242 @@ class MiniSatJavaTest extends Specification {
     }
   }
 
+  "x or y or z" should {
+    "be satisfied by the seeded phases" in {
+      sat(prover) {
+        s => {
+          s.add(Or(x, y, z))
+          prover.seedPhases(Model(List(y), List(x, z)))
+          s.sat()
+          model = s.getModel()
+        }
+      }
+      model.get.positiveVariables must be equalTo List(y)
+      model.get.negativeVariables.toSet must be equalTo Set(x, z)
+    }
+  }
+
+  "x or y" should {
+    "be unsatisfiable after adding -x and -y to the preprocessed formula" in {
+      sat(prover) {
+        s => {
+          s.add(Or(x, y))
+          resultValue0 = s.sat()
+          s.add(-x)
+          s.add(-y)
+          resultValue1 = s.sat()
+        }
+      }
+      resultValue0 must be equalTo Solver.SAT
+      resultValue1 must be equalTo Solver.UNSAT
+    }
+  }
+
+  "x or y" should {
+    "be unsatisfiable under the assumptions -x and -y, satisfiable again without them" in {
+      var failed: Set[PLLiteral] = Set.empty
+      sat(prover) {
+        s => {
+          s.add(Or(x, y))
+          s.add(Or(-x, z))
+          resultValue0 = s.sat(List(PLLiteral(x, false), PLLiteral(y, false), PLLiteral(z, true)))
+          failed = s.failedAssumptions()
+          resultValue1 = s.sat()
+        }
+      }
+      resultValue0 must be equalTo Solver.UNSAT
+      failed must be equalTo Set(PLLiteral(x, false), PLLiteral(y, false))
+      resultValue1 must be equalTo Solver.SAT
+    }
+  }
+
+  "x or y or z" should {
+    "have 7 models over x, y and z, covered by fewer partial models" in {
+      var total: List[Model] = Nil
+      var partial: List[Model] = Nil
+      var chronological: List[Model] = Nil
+      sat(prover) {
+        s => {
+          s.add(Or(x, y, z))
+          total = prover.models(List(x, y, z), shrink = false).toList
+          partial = prover.models(List(x, y, z)).toList
+          chronological = prover.models(List(x, y, z), chronological = true).toList
+        }
+      }
+      def count(models: List[Model]) =
+        models.map(m => 1 << (3 - m.positiveVariables.size - m.negativeVariables.size)).sum
+      total.map(_.toString).distinct.size must be equalTo 7
+      chronological.map(_.toString).distinct.size must be equalTo 7
+      partial.size must be lessThan 7
+      count(partial) must be equalTo 7
+    }
+    "end the enumeration when a clause is added while iterating" in {
+      var first: Option[Model] = None
+      var more = true
+      sat(prover) {
+        s => {
+          s.add(Or(x, y, z))
+          val models = prover.models(List(x, y, z), shrink = false)
+          first = Some(models.next())
+          s.add(Or(-x, -y))
+          more = models.hasNext
+          resultValue0 = s.sat()
+        }
+      }
+      first.isDefined must be equalTo true
+      more must be equalTo false
+      resultValue0 must be equalTo Solver.SAT
+    }
+    "end the enumeration when another enumeration starts" in {
+      var more = true
+      var second: List[Model] = Nil
+      sat(prover) {
+        s => {
+          s.add(Or(x, y, z))
+          val models = prover.models(List(x, y, z), shrink = false)
+          models.next()
+          val others = prover.models(List(x, y, z), shrink = false)
+          more = models.hasNext
+          second = others.toList
+        }
+      }
+      more must be equalTo false
+      second.map(_.toString).distinct.size must be equalTo 7
+    }
+  }
+
+  "x or y" should {
+    "have 2 models projected onto x, satisfiable again after the enumeration" in {
+      var models: List[Model] = Nil
+      sat(prover) {
+        s => {
+          s.add(Or(x, y))
+          s.add(Or(-x, z))
+          models = prover.models(List(x), shrink = false).toList
+          s.add(-y)
+          resultValue0 = s.sat()
+        }
+      }
+      models.map(_.toMap).toSet must be equalTo Set(Map(x -> true), Map(x -> false))
+      resultValue0 must be equalTo Solver.SAT
+    }
+  }
+
+  "at most one of x, y and z" should {
+    "be unsatisfiable together with x and y, satisfiable again after the undo" in {
+      sat(prover) {
+        s => {
+          s.add(Or(x, z))
+          s.mark()
+          s.addAtMost(List(PLLiteral(x, true), PLLiteral(y, true), PLLiteral(z, true)), 1)
+          s.add(y)
+          resultValue0 = s.sat()
+          s.undo()
+          s.add(y)
+          resultValue1 = s.sat()
+        }
+      }
+      resultValue0 must be equalTo Solver.UNSAT
+      resultValue1 must be equalTo Solver.SAT
+    }
+    "have 3 models if at least one of them is true" in {
+      var models: List[Model] = Nil
+      sat(prover) {
+        s => {
+          s.addAtMost(List(PLLiteral(x, true), PLLiteral(y, true), PLLiteral(z, true)), 1)
+          s.addAtLeast(List(PLLiteral(x, true), PLLiteral(y, true), PLLiteral(z, true)), 1)
+          models = prover.models(List(x, y, z), shrink = false).toList
+        }
+      }
+      models.map(_.positiveVariables.size).distinct must be equalTo List(1)
+      models.size must be equalTo 3
+    }
+  }
+
+  "3x + 2y + 2z >= 4" should {
+    "have the 4 models with at least two of x, y and z" in {
+      var models: List[Model] = Nil
+      sat(prover) {
+        s => {
+          s.addLinearAtLeast(List((3L, PLLiteral(x, true)), (2L, PLLiteral(y, true)), (2L, PLLiteral(z, true))), 4)
+          models = prover.models(List(x, y, z), shrink = false).toList
+        }
+      }
+      models.map(_.positiveVariables.size).forall(_ >= 2) must be equalTo true
+      models.size must be equalTo 4
+    }
+    "be unsatisfiable under a mark together with 3x + 2y + 2z <= 3, satisfiable again after the undo" in {
+      sat(prover) {
+        s => {
+          s.addLinearAtLeast(List((3L, PLLiteral(x, true)), (2L, PLLiteral(y, true)), (2L, PLLiteral(z, true))), 4)
+          s.mark()
+          s.addLinearAtMost(List((3L, PLLiteral(x, true)), (2L, PLLiteral(y, true)), (2L, PLLiteral(z, true))), 3)
+          resultValue0 = s.sat()
+          s.undo()
+          resultValue1 = s.sat()
+        }
+      }
+      resultValue0 must be equalTo Solver.UNSAT
+      resultValue1 must be equalTo Solver.SAT
+    }
+  }
+
+  "x xor y xor z" should {
+    "have the 4 models with an odd number of x, y and z" in {
+      var models: List[Model] = Nil
+      sat(prover) {
+        s => {
+          s.add(Xor(Xor(x, y), z))
+          models = prover.models(List(x, y, z), shrink = false).toList
+        }
+      }
+      models.map(_.positiveVariables.size % 2).distinct must be equalTo List(1)
+      models.size must be equalTo 4
+    }
+    "be unsatisfiable under a mark together with x xor y xor -z, satisfiable again after the undo" in {
+      sat(prover) {
+        s => {
+          s.add(Xor(Xor(x, y), z))
+          s.mark()
+          s.addXor(List(PLLiteral(x, true), PLLiteral(y, true), PLLiteral(z, false)))
+          resultValue0 = s.sat()
+          s.undo()
+          resultValue1 = s.sat()
+        }
+      }
+      resultValue0 must be equalTo Solver.UNSAT
+      resultValue1 must be equalTo Solver.SAT
+    }
+    "imply z together with x and -y" in {
+      sat(prover) {
+        s => {
+          s.add(And(Xor(Xor(x, y), z), x, Not(y)))
+          resultValue0 = s.sat()
+          resultValue1 = s.sat(List(PLLiteral(z, false)))
+        }
+      }
+      resultValue0 must be equalTo Solver.SAT
+      resultValue1 must be equalTo Solver.UNSAT
+      prover.failedAssumptions() must be equalTo Set(PLLiteral(z, false))
+    }
+  }
+
+  "the pigeon hole formula for 7 pigeons" should {
+    "be unknown within 10 conflicts, unsatisfiable without budget" in {
+      sat(prover) {
+        s => {
+          s.add(PigeonHoleGenerator.generate(6))
+          s.setBudget(Budget(conflicts = 10))
+          resultValue0 = s.sat()
+          s.setBudget(Budget.Unlimited)
+          resultValue1 = s.satAsync().get()
+        }
+      }
+      resultValue0 must be equalTo Solver.UNKNOWN
+      resultValue1 must be equalTo Solver.UNSAT
+    }
+  }
+
   private def testDIMACSFile(fileName: String, expResult: Int) {
     val expText = if (expResult == Solver.SAT) "satisfiable" else "unsatisfiable"
     val cnf = DIMACSReader.dimacs2PLClauses(getFileString("dimacs", fileName))
@@ -220,4 +467,113 @@ class MiniSatJavaTest extends Specification {
 
   testDIMACSFile("uuf150-011.cnf", Solver.UNSAT)
   testDIMACSFile("uuf150-024.cnf", Solver.UNSAT)
+
+  private def tempFile(suffix: String) = {
+    val file = Files.createTempFile("pigeons", suffix)
+    file.toFile.deleteOnExit()
+    file
+  }
+
+  /**
+   * Refutes the pigeon hole formula for 6 pigeons and writes the formula and the proof to temporary files.
+   */
+  private def refutePigeonHoles(lrat: Boolean) = {
+    val pigeons = 6
+    val proof = tempFile(if (lrat) ".lrat" else ".drat")
+    val channel = FileChannel.open(proof, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+    val writer = if (lrat) new LratWriter(channel, false) else new DratWriter(channel, false)
+    val core = new MSJCoreProver
+    core.setProof(writer)
+    val result = solvePigeonHoles(core, pigeons)
+    writer.close()
+    /* the variables in the order solvePigeonHoles creates them */
+    def p(i: Int, j: Int) = i * (pigeons - 1) + j + 1
+    val clauses = (0 until pigeons).map(i => (0 until pigeons - 1).map(p(i, _))) ++
+      (for (j <- 0 until pigeons - 1; i <- 0 until pigeons; k <- i + 1 until pigeons) yield List(-p(i, j), -p(k, j)))
+    val formula = tempFile(".cnf")
+    val dimacs = "p cnf " + pigeons * (pigeons - 1) + " " + clauses.size + "\n" +
+      clauses.map(_.mkString("", " ", " 0\n")).mkString
+    Files.write(formula, dimacs.getBytes("US-ASCII"))
+    (result, formula, proof)
+  }
+
+  private def solvePigeonHoles(core: MSJCoreProver, pigeons: Int) = {
+    val p = Array.fill(pigeons, pigeons - 1)(core.newVar())
+    def clause(lits: Int*) = {
+      val vec = new IntVec
+      lits.foreach(vec.push(_))
+      core.newClause(vec, false)
+    }
+    for (i <- 0 until pigeons)
+      clause(p(i).map(MSJCoreProver.mkLit(_, false)): _*)
+    for (j <- 0 until pigeons - 1; i <- 0 until pigeons; k <- i + 1 until pigeons)
+      clause(MSJCoreProver.mkLit(p(i)(j), true), MSJCoreProver.mkLit(p(k)(j), true))
+    core.solve()
+  }
+
+  "The pigeon hole formula for 7 pigeons" should {
+    "be unsatisfiable when backtracking chronologically after every conflict" in {
+      val params = new SearchParams
+      params.chrono_threshold = 0
+      val core = new MSJCoreProver(new VSIDSHeuristic, new ModeSwitchingRestartPolicy, params)
+      solvePigeonHoles(core, 7) must beFalse
+      core.stats.chrono_backtracks must be greaterThan 0L
+    }
+    "be unsatisfiable without chronological backtracking" in {
+      val params = new SearchParams
+      params.chrono_backtrack = false
+      val core = new MSJCoreProver(new VSIDSHeuristic, new ModeSwitchingRestartPolicy, params)
+      solvePigeonHoles(core, 7) must beFalse
+      core.stats.chrono_backtracks must be equalTo 0L
+    }
+    "be unsatisfiable when shrinking every learnt clause" in {
+      val params = new SearchParams
+      params.shrink_min_size = 0
+      val core = new MSJCoreProver(new VSIDSHeuristic, new ModeSwitchingRestartPolicy, params)
+      solvePigeonHoles(core, 7) must beFalse
+      core.stats.shrunk_literals must be greaterThan 0L
+      core.stats.tot_literals must be lessThan core.stats.max_literals
+    }
+    "be unsatisfiable when restarts reuse the trail" in {
+      val core = new MSJCoreProver(new VSIDSHeuristic, new LubyRestartPolicy(10, 2.0), new SearchParams)
+      solvePigeonHoles(core, 7) must beFalse
+      core.stats.reused_trails must be greaterThan 0L
+    }
+    "be unsatisfiable when restarts undo the whole trail" in {
+      val params = new SearchParams
+      params.reuse_trail = false
+      val core = new MSJCoreProver(new VSIDSHeuristic, new LubyRestartPolicy(10, 2.0), params)
+      solvePigeonHoles(core, 7) must beFalse
+      core.stats.reused_trails must be equalTo 0L
+    }
+  }
+
+  "The pigeon hole principle for 7 pigeons" should {
+    "be unsatisfiable with native at-most-one constraints for the holes" in {
+      val core = new MSJCoreProver
+      val p = Array.fill(7, 6)(core.newVar())
+      for (i <- 0 until 7)
+        core.addAtLeast(new IntVec(p(i).map(MSJCoreProver.mkLit(_, false))), 1)
+      for (j <- 0 until 6)
+        core.addAtMost(new IntVec(p.map(row => MSJCoreProver.mkLit(row(j), false))), 1)
+      core.solve() must beFalse
+      core.stats.linear_learnts must be greaterThan 0L
+    }
+  }
+
+  "A DRAT proof of the pigeon hole principle" should {
+    "be accepted by the DRAT checker" in {
+      val (result, formula, proof) = refutePigeonHoles(false)
+      result must beFalse
+      new DratChecker(formula, proof).check() must beTrue
+    }
+  }
+
+  "An LRAT proof of the pigeon hole principle" should {
+    "be accepted by the LRAT checker" in {
+      val (result, formula, proof) = refutePigeonHoles(true)
+      result must beFalse
+      new LratChecker(formula, proof).check() must beTrue
+    }
+  }
 }
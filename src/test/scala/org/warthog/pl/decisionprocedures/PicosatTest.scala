@@ -28,6 +28,7 @@ package org.warthog.pl.decisionprocedures
 import satsolver.{Model, Solver, sat}
 import org.specs2.mutable.Specification
 import org.warthog.pl.formulas.{PL, PLAtom}
+import org.warthog.pl.datastructures.cnf.PLLiteral
 import org.warthog.generic.formulas._
 import org.warthog.pl.decisionprocedures.satsolver.impl.picosat.Picosat
 import java.io.File
@@ -180,6 +181,24 @@ class PicosatTest extends Specification {
     }
   }
 
+  "x or y" should {
+    "be unsatisfiable under the assumptions -x and -y, satisfiable again without them" in {
+      var failed: Set[PLLiteral] = Set.empty
+      sat(prover) {
+        s => {
+          s.add(Or(x, y))
+          s.add(Or(-x, z))
+          resultValue0 = s.sat(List(PLLiteral(x, false), PLLiteral(y, false), PLLiteral(z, true)))
+          failed = s.failedAssumptions()
+          resultValue1 = s.sat()
+        }
+      }
+      resultValue0 must be equalTo Solver.UNSAT
+      failed must be equalTo Set(PLLiteral(x, false), PLLiteral(y, false))
+      resultValue1 must be equalTo Solver.SAT
+    }
+  }
+
   private def testDIMACSFile(fileName: String, expResult: Int) {
     val expText = if (expResult == Solver.SAT) "satisfiable" else "unsatisfiable"
     val cnf = DIMACSReader.dimacs2PLClauses(getFileString("dimacs", fileName))
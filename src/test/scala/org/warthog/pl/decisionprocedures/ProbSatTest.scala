@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures
+
+import satsolver.impl.localsearch.ProbSat
+import org.specs2.mutable.Specification
+import satsolver.{Budget, Model, Solver, sat}
+import org.warthog.pl.formulas.PLAtom
+import org.warthog.pl.datastructures.cnf.PLLiteral
+import org.warthog.generic.formulas.{And, Or, Xor}
+import java.io.File
+import org.warthog.generic.parsers.DIMACSReader
+import org.warthog.pl.generators.PigeonHoleGenerator
+
+/**
+ * Tests for the ProbSAT local search solver
+ */
+class ProbSatTest extends Specification {
+  args(sequential = true)
+
+  val (x, y, z) = (PLAtom("x"), PLAtom("y"), PLAtom("z"))
+  val prover = new ProbSat(42)
+  var resultValue0: Int = _
+  var resultValue1: Int = _
+  var model: Option[Model] = _
+
+  private def getFileString(folder: String, file: String) =
+    List("src", "test", "resources", folder, file).mkString(File.separator)
+
+  "x" should {
+    "be satisfied by model x" in {
+      sat(prover) {
+        (solver: Solver) => {
+          solver.add(x)
+          solver.sat()
+          model = solver.getModel()
+        }
+      }
+      model.get.positiveVariables must be equalTo List(x)
+      model.get.negativeVariables.size must be equalTo 0
+    }
+    "be unknown within 1000 flips after adding -x, satisfiable again after dropping -x" in {
+      sat(prover) {
+        solver => {
+          solver.add(x)
+          solver.mark()
+          solver.add(-x)
+          solver.setBudget(Budget(propagations = 1000))
+          resultValue0 = solver.sat()
+          solver.setBudget(Budget.Unlimited)
+          solver.undo()
+          resultValue1 = solver.sat()
+        }
+      }
+      resultValue0 must be equalTo Solver.UNKNOWN
+      resultValue1 must be equalTo Solver.SAT
+    }
+  }
+
+  "x or y" should {
+    "be satisfied by a model with -x and y under the assumption -x" in {
+      sat(prover) {
+        s => {
+          s.add(Or(x, y))
+          s.add(Or(-x, z))
+          resultValue0 = s.sat(List(PLLiteral(x, false)))
+          model = s.getModel()
+        }
+      }
+      resultValue0 must be equalTo Solver.SAT
+      model.get.negativeVariables must contain(x)
+      model.get.positiveVariables must contain(y)
+    }
+  }
+
+  "x xor y xor z" should {
+    "be satisfied by a model with an odd number of x, y and z" in {
+      sat(prover) {
+        s => {
+          s.add(Xor(Xor(x, y), z))
+          resultValue0 = s.sat()
+          model = s.getModel()
+        }
+      }
+      resultValue0 must be equalTo Solver.SAT
+      Xor(Xor(x, y), z).eval(model.get.toMap) must beTrue
+    }
+  }
+
+  "the pigeon hole formula for 6 pigeons" should {
+    "be unknown within 100 milliseconds" in {
+      sat(prover) {
+        s => {
+          s.add(PigeonHoleGenerator.generate(5))
+          s.setBudget(Budget(millis = 100))
+          resultValue0 = s.sat()
+          s.setBudget(Budget.Unlimited)
+        }
+      }
+      resultValue0 must be equalTo Solver.UNKNOWN
+    }
+  }
+
+  private def testDIMACSFile(fileName: String, expResult: Int) {
+    val expText = if (expResult == Solver.SAT) "satisfiable" else "unsatisfiable"
+    val cnf = DIMACSReader.dimacs2PLClauses(getFileString("dimacs", fileName))
+    "File " + fileName should {
+      "be " + expText in {
+        var resultVal = 0
+        sat(prover) {
+          (solver: Solver) => {
+            prover.add(cnf)
+            resultVal = solver.sat()
+            model = solver.getModel()
+          }
+        }
+        if (resultVal == Solver.SAT)
+          And(cnf.map(c => c.toFormula): _*).eval(model.get.toMap) must beTrue
+        resultVal must be equalTo expResult
+      }
+    }
+  }
+
+  testDIMACSFile("f01.cnf", Solver.SAT)
+  testDIMACSFile("f12.cnf", Solver.SAT)
+  testDIMACSFile("oneEmptyClause.cnf", Solver.UNSAT)
+  testDIMACSFile("uf150-010.cnf", Solver.SAT)
+  testDIMACSFile("uf150-027.cnf", Solver.SAT)
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.decisionprocedures
+
+import proofchecker.{DratChecker, LratChecker}
+import satsolver.impl.minisatjava.prover.core.MSJCoreProver
+import satsolver.impl.minisatjava.prover.core.proof.{DratWriter, LratWriter}
+import satsolver.impl.minisatjava.collections.nativeType.IntVec
+import org.specs2.mutable.Specification
+import java.io.File
+import java.nio.channels.FileChannel
+import java.nio.file.{Files, Path, Paths, StandardOpenOption}
+import scala.io.Source
+
+/**
+ * Tests for the DRAT and LRAT proof checkers
+ */
+class ProofCheckerTest extends Specification {
+  args(sequential = true)
+
+  private def getFileString(folder: String, file: String) =
+    List("src", "test", "resources", folder, file).mkString(File.separator)
+
+  private def tempFile(suffix: String) = {
+    val file = Files.createTempFile("proof", suffix)
+    file.toFile.deleteOnExit()
+    file
+  }
+
+  private def output(file: Path) = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+
+  private def write(file: Path, content: String) = {
+    Files.write(file, content.getBytes("US-ASCII"))
+    file
+  }
+
+  /**
+   * Solves a DIMACS file with MSJCoreProver and writes the proof to a temporary file.
+   */
+  private def solveWithProof(file: String, lrat: Boolean): (Boolean, Path) = {
+    val proof = tempFile(if (lrat) ".lrat" else ".drat")
+    val writer = if (lrat) new LratWriter(output(proof), true) else new DratWriter(output(proof), true)
+    val prover = new MSJCoreProver
+    prover.setProof(writer)
+    val lines = Source.fromFile(file).getLines().map(_.trim).filterNot(l => l.isEmpty || l.startsWith("c")).toList
+    for (i <- 0 until lines.head.split("\\s+")(2).toInt)
+      prover.newVar()
+    var clause = new IntVec
+    for (line <- lines.tail; lit <- line.split("\\s+").map(_.toInt))
+      if (lit == 0) {
+        prover.newClause(clause, false)
+        clause = new IntVec
+      } else
+        clause.push(if (lit > 0) 2 * (lit - 1) else 2 * (-lit - 1) + 1)
+    val result = prover.solve()
+    writer.close()
+    (result, proof)
+  }
+
+  def testDIMACSFile(fileName: String) {
+    val file = getFileString("dimacs", fileName)
+    "File " + fileName should {
+      "have a DRAT refutation which checks and trims to a valid LRAT proof" in {
+        val (result, proof) = solveWithProof(file, false)
+        val checker = new DratChecker(Paths.get(file), proof, true)
+        val verified = checker.check()
+        val trimmed = tempFile(".lrat")
+        if (verified) {
+          val out = new LratWriter(output(trimmed), false)
+          checker.writeLrat(out)
+          out.close()
+        }
+        result must beFalse
+        verified must beTrue
+        new LratChecker(Paths.get(file), trimmed).check() must beTrue
+      }
+      "have an LRAT refutation which checks" in {
+        val (result, proof) = solveWithProof(file, true)
+        result must beFalse
+        new LratChecker(Paths.get(file), proof).check() must beTrue
+      }
+    }
+  }
+
+  testDIMACSFile("f03.cnf")
+  testDIMACSFile("f04.cnf")
+  testDIMACSFile("f08.cnf")
+  testDIMACSFile("oneEmptyClause.cnf")
+  testDIMACSFile("uuf150-011.cnf")
+  testDIMACSFile("uuf150-024.cnf")
+
+  "The formula (x | y) & (~x | y) & (x | ~y) & (~x | ~y)" should {
+    val formula = write(tempFile(".cnf"), "p cnf 2 4\n1 2 0\n-1 2 0\n1 -2 0\n-1 -2 0\n")
+    "be refuted by the DRAT proof y, []" in {
+      new DratChecker(formula, write(tempFile(".drat"), "2 0\n0\n")).check() must beTrue
+    }
+    "be refuted by a DRAT proof with a RAT lemma on a fresh variable" in {
+      new DratChecker(formula, write(tempFile(".drat"), "c definition\n3 -1 0\n2 0\n0\n")).check() must beTrue
+    }
+    "not be refuted by the empty clause alone" in {
+      val checker = new DratChecker(formula, write(tempFile(".drat"), "0\n"))
+      checker.check() must beFalse
+      (checker.failure() != null) must beTrue
+    }
+    "not be refuted after deleting a clause the lemma needs" in {
+      new DratChecker(formula, write(tempFile(".drat"), "d 1 2 0\n2 0\n0\n")).check() must beFalse
+    }
+    "be refuted by an LRAT proof with a RAT step" in {
+      val proof = write(tempFile(".lrat"), "5 -3 1 0 0\n6 3 -1 -2 0 -5 0\n7 2 0 1 2 0\n8 0 7 3 4 0\n")
+      new LratChecker(formula, proof).check() must beTrue
+    }
+    "not be refuted by an LRAT proof with wrong hints" in {
+      new LratChecker(formula, write(tempFile(".lrat"), "5 2 0 1 0\n6 0 5 3 4 0\n")).check() must beFalse
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2011-2014, Andreas J. Kuebler & Christoph Zengler & Rouven Walter
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.warthog.pl.parsers.pb
+
+import org.specs2.mutable.Specification
+import org.warthog.pl.datastructures.cnf.PLLiteral
+import org.warthog.pl.decisionprocedures.satsolver.{Model, Solver, sat}
+import org.warthog.pl.decisionprocedures.satsolver.impl.minisat.MiniSatJava
+import org.warthog.pl.decisionprocedures.satsolver.impl.picosat.Picosat
+
+class OPBReaderTest extends Specification {
+  sequential
+  val fs = System.getProperty("file.separator")
+  val dirOPBSimple = "src" + fs + "test" + fs + "resources" + fs + "opb" + fs + "simple"
+  val reader = new OPBReader()
+
+  private def weight(terms: List[(Long, PLLiteral)], model: Model) = {
+    val values = model.toMap
+    terms.filter { case (_, lit) => values.getOrElse(lit.variable, false) == lit.phase }.map(_._1).sum
+  }
+
+  private def satisfies(c: OPBConstraint, model: Model) = c.relation match {
+    case ">=" => weight(c.terms, model) >= c.bound
+    case "<=" => weight(c.terms, model) <= c.bound
+    case _ => weight(c.terms, model) == c.bound
+  }
+
+  "f01.opb in " + dirOPBSimple should {
+    "have 3 constraints and an objective of 3 terms" in {
+      reader.read(dirOPBSimple + fs + "f01.opb")
+      reader.constraints.size must be equalTo 3
+      reader.objective.toList must be equalTo List((1L, PLLiteral("x1", true)), (2L, PLLiteral("x2", true)),
+        (3L, PLLiteral("x3", true)))
+    }
+    "read negated literals, negative coefficients and all relations" in {
+      reader.read(dirOPBSimple + fs + "f01.opb")
+      reader.constraints.map(_.relation).toList must be equalTo List(">=", "<=", "=")
+      reader.constraints(1) must be equalTo OPBConstraint(List((3L, PLLiteral("x1", true)),
+        (-2L, PLLiteral("x2", false)), (1L, PLLiteral("x4", true))), "<=", 2)
+    }
+    "be satisfiable with native linear constraints and have a model of all constraints" in {
+      val solver = new MiniSatJava()
+      var result = Solver.UNKNOWN
+      var model: Option[Model] = None
+      sat(solver) {
+        s => {
+          reader.read(dirOPBSimple + fs + "f01.opb")
+          reader.constraints.foreach(_.addTo(s))
+          result = s.sat()
+          model = s.getModel()
+        }
+      }
+      result must be equalTo Solver.SAT
+      reader.constraints.forall(satisfies(_, model.get)) must be equalTo true
+    }
+  }
+
+  "f02.opb in " + dirOPBSimple should {
+    "have coefficients in the millions" in {
+      reader.read(dirOPBSimple + fs + "f02.opb")
+      reader.constraints.map(_.bound).toList must be equalTo List(5000000L, 2000000L)
+    }
+    "be unsatisfiable with native and with encoded linear constraints" in {
+      List(new MiniSatJava(), new Picosat()).map(solver => {
+        var result = Solver.UNKNOWN
+        sat(solver) {
+          s => {
+            reader.read(dirOPBSimple + fs + "f02.opb")
+            reader.constraints.foreach(_.addTo(s))
+            result = s.sat()
+          }
+        }
+        result
+      }) must be equalTo List(Solver.UNSAT, Solver.UNSAT)
+    }
+  }
+
+  "nonlinear.opb in " + dirOPBSimple should {
+    "be rejected" in {
+      reader.read(dirOPBSimple + fs + "nonlinear.opb") must throwA[IllegalArgumentException]
+    }
+  }
+}